@@ -0,0 +1,188 @@
+package com.selimhorri.app.config.balancer;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+
+/**
+ * Outstanding requests and peak-EWMA latency of every instance this application calls through the load balancer.
+ * A slower sample replaces the average at once, a faster one only pulls it down with a time-based decay,
+ * and an idle instance's latency decays towards zero so it is probed again.
+ * While requests are pending, the estimate is never below the age of the oldest one, so an instance that has
+ * stopped answering keeps getting more expensive instead of decaying; requests abandoned without completing
+ * count as answers that took that long.
+ * Fed by Spring Cloud LoadBalancer's lifecycle callbacks, which gateway routes, Feign clients
+ * and load-balanced RestTemplates all invoke.
+ */
+public class InstanceLoadStats implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+	private static final int SWEEP_INTERVAL = 1024;
+	private static final int ABANDON_AFTER_DECAYS = 6;
+
+	private final Map<String, Stats> instances = new ConcurrentHashMap<>();
+	private final Map<Request<?>, Started> started = Collections.synchronizedMap(new IdentityHashMap<>());
+	private final double decayNanos;
+	private final long initialLatencyNanos;
+	private final long abandonAfterNanos;
+	private final LongSupplier clock;
+	private final AtomicLong starts = new AtomicLong();
+
+	public InstanceLoadStats(final Duration decay, final Duration initialLatency, final LongSupplier clock) {
+		this.decayNanos = decay.toNanos();
+		this.initialLatencyNanos = initialLatency.toNanos();
+		this.abandonAfterNanos = ABANDON_AFTER_DECAYS * decay.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * Expected wait for one more request: latency estimate times the requests it would queue behind.
+	 */
+	public double cost(final ServiceInstance instance) {
+		final Stats stats = this.stats(instance);
+		return stats.latency(this.clock.getAsLong()) * (stats.outstanding.get() + 1);
+	}
+
+	public int outstanding(final ServiceInstance instance) {
+		return this.stats(instance).outstanding.get();
+	}
+
+	@Override
+	public void onStart(final Request<Object> request) {
+		// Nothing is known until an instance has been chosen
+	}
+
+	@Override
+	public void onStartRequest(final Request<Object> request, final Response<ServiceInstance> lbResponse) {
+		if (!lbResponse.hasServer())
+			return;
+		final Stats stats = this.stats(lbResponse.getServer());
+		final long now = this.clock.getAsLong();
+		stats.start(now);
+		this.started.put(request, new Started(stats, now));
+		if (this.starts.incrementAndGet() % SWEEP_INTERVAL == 0)
+			this.sweep(now);
+	}
+
+	@Override
+	public void onComplete(final CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		final Started start = this.started.remove(completionContext.getLoadBalancerRequest());
+		if (start == null)
+			return;
+		start.stats.finish(start.nanos);
+		if (completionContext.status() == CompletionContext.Status.DISCARD)
+			return;
+
+		final long now = this.clock.getAsLong();
+		final long elapsed = now - start.nanos;
+		// A failure is at least as bad as the slowest answer seen recently
+		start.stats.observe(isFailure(completionContext) ? Math.max(elapsed, (long) (2 * start.stats.latency(now)))
+				: elapsed, now);
+	}
+
+	/**
+	 * Forgets requests that never completed, e.g. cancelled gateway exchanges, so they stop counting as outstanding.
+	 * Each one is recorded as a sample of its age, which keeps an instance that stopped answering expensive.
+	 */
+	private void sweep(final long now) {
+		synchronized (this.started) {
+			this.started.values().removeIf(start -> {
+				if (now - start.nanos < this.abandonAfterNanos)
+					return false;
+				start.stats.finish(start.nanos);
+				start.stats.observe(now - start.nanos, now);
+				return true;
+			});
+		}
+	}
+
+	private Stats stats(final ServiceInstance instance) {
+		return this.instances.computeIfAbsent(key(instance), key -> new Stats(this.initialLatencyNanos,
+				this.clock.getAsLong()));
+	}
+
+	private static String key(final ServiceInstance instance) {
+		return instance.getServiceId() + '/' + instance.getHost() + ':' + instance.getPort();
+	}
+
+	private static boolean isFailure(final CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		if (completionContext.status() == CompletionContext.Status.FAILED)
+			return true;
+		final Object clientResponse = completionContext.getClientResponse();
+		return clientResponse instanceof ResponseData
+				&& ((ResponseData) clientResponse).getHttpStatus() != null
+				&& ((ResponseData) clientResponse).getHttpStatus().is5xxServerError();
+	}
+
+	private static final class Started {
+
+		private final Stats stats;
+		private final long nanos;
+
+		Started(final Stats stats, final long nanos) {
+			this.stats = stats;
+			this.nanos = nanos;
+		}
+
+	}
+
+	private final class Stats {
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		// Guarded by this
+		private double latencyNanos;
+		private long stamp;
+		// Start times of pending requests, with their counts
+		private final TreeMap<Long, Integer> pending = new TreeMap<>();
+
+		Stats(final double latencyNanos, final long stamp) {
+			this.latencyNanos = latencyNanos;
+			this.stamp = stamp;
+		}
+
+		synchronized void start(final long now) {
+			this.outstanding.incrementAndGet();
+			this.pending.merge(now, 1, Integer::sum);
+		}
+
+		synchronized void finish(final long startedAt) {
+			this.outstanding.decrementAndGet();
+			this.pending.computeIfPresent(startedAt, (nanos, count) -> count == 1 ? null : count - 1);
+		}
+
+		synchronized double latency(final long now) {
+			final double decayed = this.latencyNanos * this.weight(now);
+			return this.pending.isEmpty() ? decayed : Math.max(decayed, now - this.pending.firstKey());
+		}
+
+		synchronized void observe(final long rttNanos, final long now) {
+			if (rttNanos > this.latencyNanos) {
+				this.latencyNanos = rttNanos;
+			}
+			else {
+				final double weight = this.weight(now);
+				this.latencyNanos = this.latencyNanos * weight + rttNanos * (1 - weight);
+			}
+			this.stamp = now;
+		}
+
+		private double weight(final long now) {
+			return Math.exp(-Math.max(0, now - this.stamp) / decayNanos);
+		}
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.selimhorri.app.config.balancer;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+	@Bean
+	public InstanceLoadStats instanceLoadStats(
+			@Value("${app.load-balancer.decay:10s}") final Duration decay,
+			@Value("${app.load-balancer.initial-latency:50ms}") final Duration initialLatency) {
+		return new InstanceLoadStats(decay, initialLatency, System::nanoTime);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.selimhorri.app.config.balancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration, instantiated in each service's child context.
+ * Deliberately not a {@code @Configuration} so component scanning leaves it out of the main context.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+	@Bean
+	public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+			final Environment environment,
+			final LoadBalancerClientFactory loadBalancerClientFactory,
+			final InstanceLoadStats instanceLoadStats) {
+		final String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		return new PeakEwmaLoadBalancer(loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+				name, instanceLoadStats);
+	}
+
+}
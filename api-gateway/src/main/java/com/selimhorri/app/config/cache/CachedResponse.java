@@ -0,0 +1,69 @@
+package com.selimhorri.app.config.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * One upstream 200 response as it will be replayed: headers minus hop-by-hop and per-client ones, and the raw body.
+ * Times are ticker nanos, so ages do not depend on wall-clock adjustments.
+ */
+public final class CachedResponse {
+
+	private final HttpHeaders headers;
+	private final byte[] body;
+	private final String etag;
+	private final long storedAt;
+	private final long freshNanos;
+	private final long staleNanos;
+
+	public CachedResponse(final HttpHeaders headers, final byte[] body, final String etag, final long storedAt,
+			final long freshNanos, final long staleNanos) {
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		this.body = body;
+		this.etag = etag;
+		this.storedAt = storedAt;
+		this.freshNanos = freshNanos;
+		this.staleNanos = staleNanos;
+	}
+
+	/**
+	 * Same headers and body, validated again upstream (a 304) at the given time.
+	 */
+	public CachedResponse revalidated(final long now, final long freshNanos, final long staleNanos) {
+		return new CachedResponse(this.headers, this.body, this.etag, now, freshNanos, staleNanos);
+	}
+
+	public boolean isFresh(final long now) {
+		return now - this.storedAt < this.freshNanos;
+	}
+
+	/**
+	 * Past its freshness but still inside the stale-while-revalidate window.
+	 */
+	public boolean isServableStale(final long now) {
+		return now - this.storedAt < this.freshNanos + this.staleNanos;
+	}
+
+	public long ageSeconds(final long now) {
+		return TimeUnit.NANOSECONDS.toSeconds(Math.max(0, now - this.storedAt));
+	}
+
+	public HttpHeaders getHeaders() {
+		return this.headers;
+	}
+
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	public String getEtag() {
+		return this.etag;
+	}
+
+	long lifetimeNanos(final long retainNanos) {
+		// An entry with a validator outlives its stale window so it can still be revalidated with a cheap 304
+		return this.freshNanos + this.staleNanos + (this.etag != null ? retainNanos : 0);
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-memory store of upstream GET responses, keyed by route and request URI and weighted by body size.
+ * Keys are also indexed by route and path, so a write drops its resource's entries without scanning the cache.
+ * Every lookup is counted as gateway.response.cache.requests{route,result},
+ * and gateway.response.cache.hit.ratio{route} is the share answered without a full upstream response.
+ */
+public class GatewayResponseCache {
+
+	public enum Result { HIT, STALE, REVALIDATED, MISS, BYPASS }
+
+	// Rough allowance for the key and the replayed headers of one entry
+	private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+	private final Cache<String, CachedResponse> cache;
+	// "<route> <path>" to the keys of that path, one per query string
+	private final ConcurrentNavigableMap<String, Set<String>> keysByPath = new ConcurrentSkipListMap<>();
+	private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+	private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+	private final MeterRegistry meterRegistry;
+	private final Ticker ticker;
+	private final int maxEntryBytes;
+
+	public GatewayResponseCache(final MeterRegistry meterRegistry, final long maximumBytes, final int maxEntryBytes,
+			final Duration retainFor, final Ticker ticker) {
+		this.meterRegistry = meterRegistry;
+		this.ticker = ticker;
+		this.maxEntryBytes = maxEntryBytes;
+		final long retainNanos = retainFor.toNanos();
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumBytes)
+				.weigher((String key, CachedResponse response) -> response.getBody().length + ENTRY_OVERHEAD_BYTES)
+				.expireAfter(new Expiry<String, CachedResponse>() {
+					@Override
+					public long expireAfterCreate(final String key, final CachedResponse response, final long currentTime) {
+						return response.lifetimeNanos(retainNanos);
+					}
+
+					@Override
+					public long expireAfterUpdate(final String key, final CachedResponse response, final long currentTime,
+							final long currentDuration) {
+						return response.lifetimeNanos(retainNanos);
+					}
+
+					@Override
+					public long expireAfterRead(final String key, final CachedResponse response, final long currentTime,
+							final long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.ticker(ticker)
+				// Unindexed on the removing thread, so the index never lags behind the cache
+				.executor(Runnable::run)
+				.removalListener((String key, CachedResponse response, RemovalCause cause) -> {
+					if (cause != RemovalCause.REPLACED)
+						this.unindex(key);
+				})
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "gateway-response");
+	}
+
+	public long now() {
+		return this.ticker.read();
+	}
+
+	public int getMaxEntryBytes() {
+		return this.maxEntryBytes;
+	}
+
+	public CachedResponse get(final String key) {
+		return this.cache.getIfPresent(key);
+	}
+
+	public void put(final String key, final CachedResponse response) {
+		this.cache.put(key, response);
+		this.keysByPath.compute(path(key), (path, keys) -> {
+			final Set<String> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+			indexed.add(key);
+			return indexed;
+		});
+	}
+
+	/**
+	 * Drops the entries of the resource at the path, of its sub-resources and of the collection that lists it,
+	 * at a cost that follows the number of entries dropped rather than the size of the cache.
+	 */
+	public void evictResource(final String routeId, final String path) {
+		final String resource = routeId + ' ' + path;
+		this.invalidate(resource);
+		final Set<String> subResources = this.keysByPath.subMap(resource + '/', resource + "/\uffff").keySet();
+		for (final String subResource : new ArrayList<>(subResources))
+			this.invalidate(subResource);
+		final int parent = resource.lastIndexOf('/');
+		if (parent > routeId.length() + 1)
+			this.invalidate(resource.substring(0, parent));
+	}
+
+	/**
+	 * @return whether the caller won the right to refresh the key; at most one background refresh runs per key
+	 */
+	public boolean startRevalidation(final String key) {
+		return this.revalidating.add(key);
+	}
+
+	public void finishRevalidation(final String key) {
+		this.revalidating.remove(key);
+	}
+
+	private void invalidate(final String path) {
+		final Set<String> keys = this.keysByPath.remove(path);
+		if (keys != null)
+			this.cache.invalidateAll(keys);
+	}
+
+	// Serialised with put() on the path's index entry; a key put again meanwhile stays indexed
+	private void unindex(final String key) {
+		this.keysByPath.computeIfPresent(path(key), (path, keys) -> {
+			if (!this.cache.asMap().containsKey(key))
+				keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	private static String path(final String key) {
+		final int query = key.indexOf('?');
+		return query < 0 ? key : key.substring(0, query);
+	}
+
+	public void record(final String routeId, final Result result) {
+		this.routes.computeIfAbsent(routeId, RouteStats::new).counters.get(result).increment();
+	}
+
+	private final class RouteStats {
+
+		private final Map<Result, Counter> counters = new EnumMap<>(Result.class);
+
+		RouteStats(final String routeId) {
+			for (final Result result : Result.values()) {
+				this.counters.put(result, Counter.builder("gateway.response.cache.requests")
+						.description("Cacheable gateway requests by how they were answered")
+						.tag("route", routeId)
+						.tag("result", result.name().toLowerCase(Locale.ROOT))
+						.register(meterRegistry));
+			}
+			Gauge.builder("gateway.response.cache.hit.ratio", this, RouteStats::hitRatio)
+					.description("Share of cacheable requests answered without a full upstream response")
+					.tag("route", routeId)
+					.register(meterRegistry);
+		}
+
+		double hitRatio() {
+			final double served = this.count(Result.HIT) + this.count(Result.STALE) + this.count(Result.REVALIDATED);
+			final double total = served + this.count(Result.MISS);
+			return total == 0 ? 0 : served / total;
+		}
+
+		private double count(final Result result) {
+			return this.counters.get(result).count();
+		}
+
+	}
+
+}
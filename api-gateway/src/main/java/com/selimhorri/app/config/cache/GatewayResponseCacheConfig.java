@@ -0,0 +1,25 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class GatewayResponseCacheConfig {
+
+	@Bean
+	public GatewayResponseCache gatewayResponseCache(
+			final MeterRegistry meterRegistry,
+			@Value("${app.gateway-response-cache.max-bytes:33554432}") final long maximumBytes,
+			@Value("${app.gateway-response-cache.max-entry-bytes:1048576}") final int maxEntryBytes,
+			@Value("${app.gateway-response-cache.retain-for:10m}") final Duration retainFor) {
+		return new GatewayResponseCache(meterRegistry, maximumBytes, maxEntryBytes, retainFor, Ticker.systemTicker());
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.selimhorri.app.config.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-style concurrency limit for one downstream.
+ * A long-term RTT average is the no-load baseline; while the current RTT stays close to it the limit grows by
+ * about sqrt(limit) per sample, and as queueing inflates the RTT the limit shrinks in proportion.
+ * A failed or 5xx exchange cuts the limit multiplicatively (AIMD).
+ * Non-priority requests may only fill {@code browseShare} of the limit, so they are shed first.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+	private static final double RTT_TOLERANCE = 1.5;
+	private static final double SMOOTHING = 0.2;
+	private static final double BACKOFF_RATIO = 0.9;
+	private static final int LONG_WINDOW = 600;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double browseShare;
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private volatile double limit;
+
+	// Guarded by this
+	private double longRtt;
+	private long samples;
+
+	AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit, final double browseShare) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.browseShare = browseShare;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+	}
+
+	boolean tryAcquire(final boolean priority) {
+		final int allowed = priority ? (int) this.limit : Math.max(1, (int) (this.limit * this.browseShare));
+		int current;
+		do {
+			current = this.inFlight.get();
+			if (current >= allowed)
+				return false;
+		} while (!this.inFlight.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	/**
+	 * Releases a slot without a sample, e.g. when the client went away.
+	 */
+	void release() {
+		this.inFlight.decrementAndGet();
+	}
+
+	void release(final long rttNanos, final boolean dropped) {
+		final int inFlightBefore = this.inFlight.getAndDecrement();
+		synchronized (this) {
+			if (dropped) {
+				this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+				return;
+			}
+
+			final double rtt = Math.max(1, rttNanos);
+			this.samples++;
+			this.longRtt += (rtt - this.longRtt) / Math.min(this.samples, LONG_WINDOW);
+			// The baseline only drifts down slowly on its own; pull it to the current RTT when it is far above
+			if (this.longRtt / rtt > 2)
+				this.longRtt *= 0.95;
+
+			// Well under the limit the RTT says nothing about capacity
+			if (inFlightBefore < this.limit / 2)
+				return;
+
+			final double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * this.longRtt / rtt));
+			final double target = this.limit * gradient + Math.sqrt(this.limit);
+			final double smoothed = this.limit * (1 - SMOOTHING) + target * SMOOTHING;
+			this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, smoothed));
+		}
+	}
+
+	int getLimit() {
+		return (int) this.limit;
+	}
+
+	int getInFlight() {
+		return this.inFlight.get();
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.selimhorri.app.config.filter;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parsed Cache-Control header: directive names lower-cased, with their unquoted argument if any.
+ */
+final class CacheControlDirectives {
+	
+	private final Map<String, String> directives;
+	
+	private CacheControlDirectives(final Map<String, String> directives) {
+		this.directives = directives;
+	}
+	
+	static CacheControlDirectives parse(final String header) {
+		final Map<String, String> directives = new HashMap<>();
+		if (header != null) {
+			for (final String part : header.split(",")) {
+				final String directive = part.trim();
+				if (directive.isEmpty())
+					continue;
+				final int equals = directive.indexOf('=');
+				if (equals < 0)
+					directives.put(directive.toLowerCase(Locale.ROOT), "");
+				else
+					directives.put(directive.substring(0, equals).trim().toLowerCase(Locale.ROOT),
+							directive.substring(equals + 1).trim().replace("\"", ""));
+			}
+		}
+		return new CacheControlDirectives(directives);
+	}
+	
+	boolean has(final String name) {
+		return this.directives.containsKey(name);
+	}
+	
+	/**
+	 * @return the delta-seconds argument, or {@code null} when absent or not a number
+	 */
+	Long seconds(final String name) {
+		final String value = this.directives.get(name);
+		if (value == null || value.isEmpty())
+			return null;
+		try {
+			return Math.max(0, Long.parseLong(value));
+		}
+		catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+	
+}
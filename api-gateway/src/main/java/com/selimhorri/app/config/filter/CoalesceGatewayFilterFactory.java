@@ -0,0 +1,260 @@
+package com.selimhorri.app.config.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Single-flight for idempotent requests: while one request for a key is upstream, identical requests wait for it
+ * and receive a copy of its response instead of going upstream themselves.
+ * A flight is forgotten the moment its response completes, so a later request always gets a fresh upstream answer.
+ * Waiters fall back to their own upstream request when the leader fails, is cancelled, streams,
+ * or returns a body larger than app.gateway-coalescing.max-body-bytes.
+ * Counted as gateway.coalescing.requests{route,role}.
+ */
+@Component
+public class CoalesceGatewayFilterFactory extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+	private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+	private final MeterRegistry meterRegistry;
+	private final int maxBodyBytes;
+
+	public CoalesceGatewayFilterFactory(final MeterRegistry meterRegistry,
+			@Value("${app.gateway-coalescing.max-body-bytes:1048576}") final int maxBodyBytes) {
+		super(Config.class);
+		this.meterRegistry = meterRegistry;
+		this.maxBodyBytes = maxBodyBytes;
+	}
+
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("maxWaiters");
+	}
+
+	@Override
+	public GatewayFilter apply(final Config config) {
+		// Behind ResponseCache, ahead of NettyWriteResponseFilter which writes the upstream body
+		return new OrderedGatewayFilter((exchange, chain) -> this.filter(exchange, chain, config),
+				NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+	}
+
+	private Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain, final Config config) {
+		final ServerHttpRequest request = exchange.getRequest();
+		final String routeId = routeId(exchange);
+
+		if (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD)
+			return chain.filter(exchange);
+
+		// Never hand one caller's response to another unless the credentials are part of the key
+		if (request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+				&& config.getKeyHeaders().stream().noneMatch(HttpHeaders.AUTHORIZATION::equalsIgnoreCase)) {
+			this.record(routeId, "bypass");
+			return chain.filter(exchange);
+		}
+
+		final String key = key(routeId, request, config);
+		final Flight flight = new Flight();
+		final Flight inFlight = this.flights.putIfAbsent(key, flight);
+
+		if (inFlight != null) {
+			if (!inFlight.join(config.getMaxWaiters())) {
+				this.record(routeId, "overflow");
+				return chain.filter(exchange);
+			}
+			this.record(routeId, "waiter");
+			return inFlight.result.asMono().flatMap(snapshot -> {
+				if (snapshot == Snapshot.NONE) {
+					this.record(routeId, "fallback");
+					return chain.filter(exchange);
+				}
+				return snapshot.writeTo(exchange.getResponse());
+			});
+		}
+
+		this.record(routeId, "leader");
+		final LeaderResponse response = new LeaderResponse(exchange.getResponse(), key, flight);
+		return chain.filter(exchange.mutate().response(response).build())
+				.doFinally(signal -> response.land(Snapshot.NONE));
+	}
+
+	private void record(final String routeId, final String role) {
+		Counter.builder("gateway.coalescing.requests")
+				.description("Idempotent gateway requests by their part in request coalescing")
+				.tag("route", routeId)
+				.tag("role", role)
+				.register(this.meterRegistry)
+				.increment();
+	}
+
+	private static String routeId(final ServerWebExchange exchange) {
+		final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		return route != null ? route.getId() : "unknown";
+	}
+
+	// Conditional headers always belong to the key: a 304 only answers the request that carried the validator
+	private static String key(final String routeId, final ServerHttpRequest request, final Config config) {
+		final StringBuilder key = new StringBuilder()
+				.append(routeId).append(' ')
+				.append(request.getMethodValue()).append(' ')
+				.append(request.getURI().getRawPath());
+		if (request.getURI().getRawQuery() != null)
+			key.append('?').append(request.getURI().getRawQuery());
+		for (final String header : config.getKeyHeaders())
+			appendHeader(key, request.getHeaders(), header);
+		appendHeader(key, request.getHeaders(), HttpHeaders.IF_NONE_MATCH);
+		appendHeader(key, request.getHeaders(), HttpHeaders.IF_MODIFIED_SINCE);
+		return key.toString();
+	}
+
+	private static void appendHeader(final StringBuilder key, final HttpHeaders headers, final String name) {
+		final List<String> values = headers.get(name);
+		if (values != null)
+			key.append('\n').append(name).append(':').append(String.join(",", values));
+	}
+
+	private static final class Flight {
+
+		private final Sinks.One<Snapshot> result = Sinks.one();
+		private final AtomicInteger waiters = new AtomicInteger();
+
+		boolean join(final int maxWaiters) {
+			int current;
+			do {
+				current = this.waiters.get();
+				if (current >= maxWaiters)
+					return false;
+			} while (!this.waiters.compareAndSet(current, current + 1));
+			return true;
+		}
+
+	}
+
+	/**
+	 * Status, replayable headers and full body of the leader's response; {@link #NONE} sends waiters upstream.
+	 */
+	private static final class Snapshot {
+
+		static final Snapshot NONE = new Snapshot(0, new HttpHeaders(), new byte[0]);
+
+		private final int status;
+		private final HttpHeaders headers;
+		private final byte[] body;
+
+		Snapshot(final int status, final HttpHeaders headers, final byte[] body) {
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		Mono<Void> writeTo(final ServerHttpResponse response) {
+			response.setRawStatusCode(this.status);
+			ReplayableHeaders.copy(this.headers, response.getHeaders());
+			if (this.body.length == 0)
+				return response.setComplete();
+			response.getHeaders().setContentLength(this.body.length);
+			return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(this.body)));
+		}
+
+	}
+
+	/**
+	 * Streams the upstream body to the leader's client while copying it for the waiters.
+	 */
+	private final class LeaderResponse extends ServerHttpResponseDecorator {
+
+		private final String key;
+		private final Flight flight;
+		private final AtomicBoolean landed = new AtomicBoolean();
+
+		LeaderResponse(final ServerHttpResponse delegate, final String key, final Flight flight) {
+			super(delegate);
+			this.key = key;
+			this.flight = flight;
+		}
+
+		/**
+		 * Ends the flight once: later arrivals start a new one, current waiters get the snapshot.
+		 */
+		void land(final Snapshot snapshot) {
+			if (this.landed.compareAndSet(false, true)) {
+				flights.remove(this.key, this.flight);
+				this.flight.result.tryEmitValue(snapshot);
+			}
+		}
+
+		@Override
+		public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+			final Integer status = this.getRawStatusCode();
+			final HttpHeaders headers = ReplayableHeaders.of(this.getHeaders());
+			final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+			return super.writeWith(Flux.from(body)
+					.doOnNext(buffer -> {
+						if (this.landed.get())
+							return;
+						final int size = buffer.readableByteCount();
+						if (copy.size() + size > maxBodyBytes) {
+							this.land(Snapshot.NONE);
+							return;
+						}
+						final byte[] bytes = new byte[size];
+						buffer.asByteBuffer().get(bytes);
+						copy.write(bytes, 0, size);
+					})
+					.doOnComplete(() -> this.land(new Snapshot(status != null ? status : 200, headers,
+							copy.toByteArray()))));
+		}
+
+		@Override
+		public Mono<Void> writeAndFlushWith(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			// A stream has no end to wait for
+			this.land(Snapshot.NONE);
+			return super.writeAndFlushWith(body);
+		}
+
+		@Override
+		public Mono<Void> setComplete() {
+			final Integer status = this.getRawStatusCode();
+			this.land(new Snapshot(status != null ? status : 200, ReplayableHeaders.of(this.getHeaders()), new byte[0]));
+			return super.setComplete();
+		}
+
+	}
+
+	@Data
+	public static class Config {
+
+		private List<String> keyHeaders = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+				HttpHeaders.ACCEPT_LANGUAGE);
+		private int maxWaiters = 1000;
+
+	}
+
+}
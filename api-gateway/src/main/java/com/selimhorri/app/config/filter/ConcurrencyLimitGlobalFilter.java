@@ -0,0 +1,157 @@
+package com.selimhorri.app.config.filter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Bounds the requests in flight to every {@code lb://} route with an adaptive limit learnt from its RTT,
+ * measured from here to the upstream response headers. Excess requests get an immediate 503 with Retry-After
+ * instead of queueing in the downstream's thread pool.
+ * Authenticated requests to checkout paths may use the whole limit; everything else is shed first.
+ * A request counts as authenticated only when its bearer token carries a subject and a valid signature
+ * under the key proxy-client signs with, so a made-up Authorization header does not buy the priority lane.
+ * Published as gateway.concurrency.limit{route}, gateway.concurrency.inflight{route}
+ * and gateway.concurrency.shed{route,priority}.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimitGlobalFilter implements GlobalFilter, Ordered {
+
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+	private final MeterRegistry meterRegistry;
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final double browseShare;
+	private final String retryAfterSeconds;
+	private final List<PathPattern> priorityPaths;
+	private final String jwtSecret;
+
+	public ConcurrencyLimitGlobalFilter(
+			final MeterRegistry meterRegistry,
+			@Value("${app.gateway-concurrency.initial-limit:20}") final int initialLimit,
+			@Value("${app.gateway-concurrency.min-limit:4}") final int minLimit,
+			@Value("${app.gateway-concurrency.max-limit:500}") final int maxLimit,
+			@Value("${app.gateway-concurrency.browse-share:0.7}") final double browseShare,
+			@Value("${app.gateway-concurrency.retry-after:1s}") final Duration retryAfter,
+			@Value("${app.gateway-concurrency.priority-paths:/order-service/**,/payment-service/**,/shipping-service/**,/app/api/orders/**,/app/api/payments/**,/app/api/carts/**,/app/api/shippings/**}") final List<String> priorityPaths,
+			@Value("${app.jwt.secret:secret}") final String jwtSecret) {
+		this.meterRegistry = meterRegistry;
+		this.initialLimit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.browseShare = browseShare;
+		this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+		this.priorityPaths = priorityPaths.stream()
+				.map(String::trim)
+				.map(PathPatternParser.defaultInstance::parse)
+				.collect(Collectors.toUnmodifiableList());
+		this.jwtSecret = jwtSecret;
+	}
+
+	@Override
+	public int getOrder() {
+		// Cache hits and coalesced waiters never get here; the slot covers the load-balanced upstream call only
+		return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+	}
+
+	@Override
+	public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+		final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		if (route == null || !"lb".equals(route.getUri().getScheme()))
+			return chain.filter(exchange);
+
+		final AdaptiveConcurrencyLimiter limiter = this.limiters.computeIfAbsent(route.getId(), this::register);
+		final boolean priority = this.isPriority(exchange.getRequest());
+		if (!limiter.tryAcquire(priority)) {
+			Counter.builder("gateway.concurrency.shed")
+					.description("Requests rejected because the route was at its concurrency limit")
+					.tag("route", route.getId())
+					.tag("priority", Boolean.toString(priority))
+					.register(this.meterRegistry)
+					.increment();
+			log.debug("Shedding request to {}: limit {} reached", route.getId(), limiter.getLimit());
+			final ServerHttpResponse response = exchange.getResponse();
+			response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+			response.getHeaders().set(HttpHeaders.RETRY_AFTER, this.retryAfterSeconds);
+			return response.setComplete();
+		}
+
+		final long start = System.nanoTime();
+		return chain.filter(exchange).doFinally(signal -> {
+			if (signal == SignalType.CANCEL) {
+				limiter.release();
+				return;
+			}
+			final HttpStatus status = exchange.getResponse().getStatusCode();
+			limiter.release(System.nanoTime() - start,
+					signal == SignalType.ON_ERROR || status != null && status.is5xxServerError());
+		});
+	}
+
+	private boolean isPriority(final ServerHttpRequest request) {
+		return this.priorityPaths.stream().anyMatch(pattern -> pattern.matches(request.getPath().pathWithinApplication()))
+				&& this.isAuthenticated(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+	}
+
+	private boolean isAuthenticated(final String authorization) {
+		if (authorization == null || !authorization.startsWith("Bearer "))
+			return false;
+		try {
+			// Also rejects expired tokens
+			final Claims claims = Jwts.parser()
+					.setSigningKey(this.jwtSecret)
+					.parseClaimsJws(authorization.substring(7))
+					.getBody();
+			return claims.getSubject() != null;
+		}
+		catch (JwtException | IllegalArgumentException e) {
+			log.debug("No priority for unverified token: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	private AdaptiveConcurrencyLimiter register(final String routeId) {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(this.initialLimit, this.minLimit,
+				this.maxLimit, this.browseShare);
+		Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+				.description("Current adaptive concurrency limit")
+				.tag("route", routeId)
+				.register(this.meterRegistry);
+		Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+				.description("Requests currently upstream")
+				.tag("route", routeId)
+				.register(this.meterRegistry);
+		return limiter;
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.selimhorri.app.config.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A response with no client behind it: headers and status stay here, and body buffers are released as they arrive.
+ * Lets a background revalidation run through the rest of the filter chain without touching the client response.
+ */
+final class DetachedServerHttpResponse extends AbstractServerHttpResponse {
+	
+	DetachedServerHttpResponse(final DataBufferFactory bufferFactory) {
+		super(bufferFactory);
+	}
+	
+	@Override
+	public <T> T getNativeResponse() {
+		throw new IllegalStateException("A detached response has no native response");
+	}
+	
+	@Override
+	protected Mono<Void> writeWithInternal(final Publisher<? extends DataBuffer> body) {
+		return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+	}
+	
+	@Override
+	protected Mono<Void> writeAndFlushWithInternal(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+		return Flux.from(body).concatMap(Flux::from).doOnNext(DataBufferUtils::release).then();
+	}
+	
+	@Override
+	protected void applyStatusCode() {
+	}
+	
+	@Override
+	protected void applyHeaders() {
+	}
+	
+	@Override
+	protected void applyCookies() {
+	}
+	
+}
@@ -0,0 +1,42 @@
+package com.selimhorri.app.config.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Upstream response headers that may be handed to a client other than the one whose request produced them.
+ */
+final class ReplayableHeaders {
+	
+	static final String CACHE_STATUS_HEADER = "X-Cache";
+	
+	// Per-connection, per-client or recomputed when replayed; Vary and CORS are set by the gateway for each client
+	private static final Set<String> UNREPLAYED = Set.of("connection", "keep-alive", "transfer-encoding", "te",
+			"trailer", "upgrade", "proxy-authenticate", "proxy-connection", "set-cookie", "content-length", "date", "age",
+			"vary", CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+	
+	private ReplayableHeaders() {
+	}
+	
+	static HttpHeaders of(final HttpHeaders headers) {
+		final HttpHeaders replayable = new HttpHeaders();
+		headers.forEach((name, values) -> {
+			final String lower = name.toLowerCase(Locale.ROOT);
+			if (!UNREPLAYED.contains(lower) && !lower.startsWith("access-control-"))
+				replayable.put(name, List.copyOf(values));
+		});
+		return replayable;
+	}
+	
+	/**
+	 * Copies into a client response; values are copied too, so later filters may still add to them.
+	 */
+	static void copy(final HttpHeaders replayable, final HttpHeaders target) {
+		replayable.forEach((name, values) -> target.put(name, new ArrayList<>(values)));
+	}
+	
+}
@@ -0,0 +1,315 @@
+package com.selimhorri.app.config.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.selimhorri.app.config.cache.CachedResponse;
+import com.selimhorri.app.config.cache.GatewayResponseCache;
+import com.selimhorri.app.config.cache.GatewayResponseCache.Result;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches anonymous GET responses of a route at the edge: {@code - ResponseCache=10s,30s} (ttl, stale-while-revalidate).
+ * Upstream Cache-Control wins over the route defaults: no-store and private are never cached, s-maxage / max-age set
+ * the freshness and no-cache forces an ETag revalidation on every request; no-cache, must-revalidate and
+ * proxy-revalidate also rule out serving stale unless upstream grants its own stale-while-revalidate.
+ * A stale entry inside its window is served at once while one background request refreshes it;
+ * past the window an entry with an ETag is revalidated with If-None-Match, so an unchanged body costs a 304.
+ * Successful writes through the route drop the entries of the written resource, its sub-resources and its collection;
+ * writes to the route's ttlOnlyWrites paths (e.g. stock reservations) leave the entries to expire by ttl.
+ */
+@Component
+@Slf4j
+public class ResponseCacheGatewayFilterFactory
+		extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+	static final String CACHE_STATUS_HEADER = ReplayableHeaders.CACHE_STATUS_HEADER;
+
+	// CORS is negotiated by the gateway itself; any other Vary means the URI alone does not identify the body
+	private static final Set<String> IGNORED_VARY = Set.of("origin", "access-control-request-method",
+			"access-control-request-headers");
+
+	private final GatewayResponseCache cache;
+
+	public ResponseCacheGatewayFilterFactory(final GatewayResponseCache cache) {
+		super(Config.class);
+		this.cache = cache;
+	}
+
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("ttl", "staleWhileRevalidate");
+	}
+
+	@Override
+	public GatewayFilter apply(final Config config) {
+		// Ahead of NettyWriteResponseFilter, so the upstream body is written through the decorated response,
+		// and ahead of Coalesce, so a cache hit never joins an in-flight request
+		return new OrderedGatewayFilter((exchange, chain) -> this.filter(exchange, chain, config),
+				NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2);
+	}
+
+	private Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain, final Config config) {
+		final ServerHttpRequest request = exchange.getRequest();
+		final String routeId = routeId(exchange);
+
+		if (request.getMethod() != HttpMethod.GET) {
+			if (request.getMethod() == HttpMethod.HEAD || request.getMethod() == HttpMethod.OPTIONS)
+				return chain.filter(exchange);
+			final String path = request.getURI().getRawPath();
+			if (config.getTtlOnlyWrites().contains(path))
+				return chain.filter(exchange);
+			return chain.filter(exchange).doOnSuccess(done -> {
+				final HttpStatus status = exchange.getResponse().getStatusCode();
+				if (status != null && status.is2xxSuccessful())
+					this.cache.evictResource(routeId, path);
+			});
+		}
+
+		if (request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+			this.cache.record(routeId, Result.BYPASS);
+			return chain.filter(exchange);
+		}
+
+		final String key = cacheKey(routeId, request);
+		final List<String> clientEtags = request.getHeaders().getOrEmpty(HttpHeaders.IF_NONE_MATCH);
+		final boolean clientWantsFresh = CacheControlDirectives.parse(request.getHeaders().getCacheControl())
+				.has("no-cache");
+		final CachedResponse cached = this.cache.get(key);
+
+		if (cached != null && !clientWantsFresh) {
+			final long now = this.cache.now();
+			if (cached.isFresh(now)) {
+				this.cache.record(routeId, Result.HIT);
+				return this.serve(exchange.getResponse(), cached, clientEtags, Result.HIT);
+			}
+			if (cached.isServableStale(now)) {
+				this.cache.record(routeId, Result.STALE);
+				if (this.cache.startRevalidation(key))
+					this.revalidateInBackground(exchange, chain, key, routeId, cached, config);
+				return this.serve(exchange.getResponse(), cached, clientEtags, Result.STALE);
+			}
+		}
+
+		final CachedResponse validated = cached != null && cached.getEtag() != null ? cached : null;
+		final ServerWebExchange forwarded = validated != null
+				? exchange.mutate().request(withValidator(request, validated.getEtag())).build()
+				: exchange;
+		final CachingResponse response = new CachingResponse(forwarded.getResponse(), key, routeId, config, validated,
+				clientEtags, false);
+		return chain.filter(forwarded.mutate().response(response).build());
+	}
+
+	/**
+	 * Sends the request on through the chain into a detached response; the client was already answered from cache.
+	 */
+	private void revalidateInBackground(final ServerWebExchange exchange, final GatewayFilterChain chain,
+			final String key, final String routeId, final CachedResponse cached, final Config config) {
+		final ServerHttpRequest request = withValidator(exchange.getRequest(), cached.getEtag());
+		final ServerHttpResponse detached = new DetachedServerHttpResponse(exchange.getResponse().bufferFactory());
+		final CachingResponse response = new CachingResponse(detached, key, routeId, config,
+				cached.getEtag() != null ? cached : null, List.of(), true);
+		chain.filter(exchange.mutate().request(request).response(response).build())
+				.doFinally(signal -> this.cache.finishRevalidation(key))
+				.subscribe(null, error -> log.warn("Background revalidation of {} failed: {}", key, error.toString()));
+	}
+
+	private Mono<Void> serve(final ServerHttpResponse response, final CachedResponse cached,
+			final List<String> clientEtags, final Result result) {
+		ReplayableHeaders.copy(cached.getHeaders(), response.getHeaders());
+		response.getHeaders().set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(this.cache.now())));
+		response.getHeaders().set(CACHE_STATUS_HEADER, result.name());
+		if (etagMatches(clientEtags, cached.getEtag())) {
+			response.setStatusCode(HttpStatus.NOT_MODIFIED);
+			return response.setComplete();
+		}
+		response.setStatusCode(HttpStatus.OK);
+		response.getHeaders().setContentLength(cached.getBody().length);
+		return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.getBody())));
+	}
+
+	private static String routeId(final ServerWebExchange exchange) {
+		final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		return route != null ? route.getId() : "unknown";
+	}
+
+	private static String cacheKey(final String routeId, final ServerHttpRequest request) {
+		final String query = request.getURI().getRawQuery();
+		return routeId + ' ' + request.getURI().getRawPath() + (query != null ? '?' + query : "");
+	}
+
+	// The client's own conditionals are answered by this filter, never forwarded
+	private static ServerHttpRequest withValidator(final ServerHttpRequest request, final String etag) {
+		return request.mutate()
+				.headers(headers -> {
+					headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+					headers.remove(HttpHeaders.IF_NONE_MATCH);
+					if (etag != null)
+						headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+				})
+				.build();
+	}
+
+	static boolean etagMatches(final List<String> headerValues, final String etag) {
+		if (etag == null)
+			return false;
+		final String target = weakless(etag);
+		for (final String value : headerValues)
+			for (final String candidate : value.split(","))
+				if (candidate.trim().equals("*") || weakless(candidate.trim()).equals(target))
+					return true;
+		return false;
+	}
+
+	private static String weakless(final String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	/**
+	 * How long an upstream response may be served, or {@code null} when it must not be stored.
+	 */
+	private static long[] lifetime(final HttpStatus status, final HttpHeaders headers, final Config config) {
+		if (status != HttpStatus.OK || headers.containsKey(HttpHeaders.SET_COOKIE)
+				|| headers.containsKey(HttpHeaders.CONTENT_ENCODING))
+			return null;
+		for (final String vary : headers.getVary())
+			if (!IGNORED_VARY.contains(vary.trim().toLowerCase(Locale.ROOT)))
+				return null;
+
+		final CacheControlDirectives directives = CacheControlDirectives.parse(headers.getCacheControl());
+		if (directives.has("no-store") || directives.has("private"))
+			return null;
+
+		Long fresh = directives.seconds("s-maxage");
+		if (fresh == null)
+			fresh = directives.seconds("max-age");
+		final long freshNanos = directives.has("no-cache") ? 0
+				: fresh != null ? Duration.ofSeconds(fresh).toNanos() : config.getTtl().toNanos();
+		final Long stale = directives.seconds("stale-while-revalidate");
+		final boolean revalidate = directives.has("no-cache") || directives.has("must-revalidate")
+				|| directives.has("proxy-revalidate");
+		final long staleNanos = stale != null ? Duration.ofSeconds(stale).toNanos()
+				: revalidate ? 0 : config.getStaleWhileRevalidate().toNanos();
+
+		if (freshNanos == 0 && staleNanos == 0 && headers.getETag() == null)
+			return null;
+		return new long[] { freshNanos, staleNanos };
+	}
+
+	/**
+	 * Streams the upstream body to its delegate while copying it aside; stores the copy once the body completes.
+	 * When the request carried the cached ETag and upstream answered 304, the cached body is sent instead.
+	 */
+	private final class CachingResponse extends ServerHttpResponseDecorator {
+
+		private final String key;
+		private final String routeId;
+		private final Config config;
+		private final CachedResponse validated;
+		private final List<String> clientEtags;
+		private final boolean background;
+
+		CachingResponse(final ServerHttpResponse delegate, final String key, final String routeId, final Config config,
+				final CachedResponse validated, final List<String> clientEtags, final boolean background) {
+			super(delegate);
+			this.key = key;
+			this.routeId = routeId;
+			this.config = config;
+			this.validated = validated;
+			this.clientEtags = clientEtags;
+			this.background = background;
+		}
+
+		@Override
+		public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+			final HttpStatus status = this.getStatusCode();
+			final long[] lifetime = lifetime(status == HttpStatus.NOT_MODIFIED ? HttpStatus.OK : status,
+					this.getHeaders(), this.config);
+
+			if (status == HttpStatus.NOT_MODIFIED && this.validated != null) {
+				final CachedResponse refreshed = lifetime == null ? this.validated
+						: this.validated.revalidated(cache.now(), lifetime[0], lifetime[1]);
+				if (lifetime != null)
+					cache.put(this.key, refreshed);
+				if (this.background)
+					return super.writeWith(body);
+				cache.record(this.routeId, Result.REVALIDATED);
+				if (etagMatches(this.clientEtags, refreshed.getEtag()))
+					return super.writeWith(body);
+				// The client never asked conditionally: swap the upstream 304 for the body it validated
+				return Flux.from(body)
+						.doOnNext(DataBufferUtils::release)
+						.then(Mono.defer(() -> serve(this.getDelegate(), refreshed, List.of(), Result.REVALIDATED)));
+			}
+
+			if (!this.background) {
+				cache.record(this.routeId, Result.MISS);
+				this.getHeaders().set(CACHE_STATUS_HEADER, Result.MISS.name());
+			}
+			if (lifetime == null)
+				return super.writeWith(body);
+
+			final HttpHeaders headers = ReplayableHeaders.of(this.getHeaders());
+			final String etag = this.getHeaders().getETag();
+			final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+			final boolean[] overflow = { false };
+			return super.writeWith(Flux.from(body)
+					.doOnNext(buffer -> {
+						if (overflow[0])
+							return;
+						final int size = buffer.readableByteCount();
+						if (copy.size() + size > cache.getMaxEntryBytes()) {
+							// Too large to keep: stop copying, the client still gets every byte
+							overflow[0] = true;
+							return;
+						}
+						final byte[] bytes = new byte[size];
+						buffer.asByteBuffer().get(bytes);
+						copy.write(bytes, 0, size);
+					})
+					.doOnComplete(() -> {
+						if (!overflow[0])
+							cache.put(this.key, new CachedResponse(headers, copy.toByteArray(), etag, cache.now(),
+									lifetime[0], lifetime[1]));
+					}));
+		}
+
+	}
+
+	@Data
+	public static class Config {
+
+		private Duration ttl = Duration.ofSeconds(10);
+		private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+		// Raw paths whose writes only touch data the route's ttl may serve stale
+		private List<String> ttlOnlyWrites = List.of();
+
+	}
+
+}
@@ -0,0 +1,203 @@
+package com.selimhorri.app.config.balancer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Flux;
+
+class PeakEwmaLoadBalancerTest {
+
+	private static final String SERVICE = "PRODUCT-SERVICE";
+
+	private static final ServiceInstance FAST_1 = instance(8501);
+	private static final ServiceInstance FAST_2 = instance(8502);
+	private static final ServiceInstance SLOW = instance(8503);
+
+	private final AtomicLong clock = new AtomicLong();
+	private final InstanceLoadStats stats = new InstanceLoadStats(Duration.ofSeconds(10), Duration.ofMillis(50),
+			this.clock::get);
+	private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(
+			new StaticListableBeanFactory(Map.of("supplier", new StaticSupplier(FAST_1, FAST_2, SLOW)))
+					.getBeanProvider(ServiceInstanceListSupplier.class),
+			SERVICE, this.stats);
+
+	@Test
+	void slowInstance_receivesProportionallyLessTraffic() {
+		final Map<ServiceInstance, Long> latencies = Map.of(FAST_1, millis(5), FAST_2, millis(5), SLOW, millis(50));
+		final Map<ServiceInstance, Integer> served = this.simulate(latencies, 20_000, millis(1));
+
+		assertEquals(20_000, served.values().stream().mapToInt(Integer::intValue).sum());
+		assertTrue(served.get(SLOW) * 5 < served.get(FAST_1), served.toString());
+		assertTrue(served.get(SLOW) * 5 < served.get(FAST_2), served.toString());
+		// Equal instances still share evenly
+		assertEquals(1.0, served.get(FAST_1) / (double) served.get(FAST_2), 0.2, served.toString());
+	}
+
+	@Test
+	void equalInstances_shareEvenly() {
+		final long latency = millis(10);
+		final Map<ServiceInstance, Integer> served = this.simulate(Map.of(FAST_1, latency, FAST_2, latency,
+				SLOW, latency), 30_000, millis(1));
+
+		for (final ServiceInstance instance : List.of(FAST_1, FAST_2, SLOW))
+			assertEquals(10_000, served.get(instance), 1_500, served.toString());
+	}
+
+	@Test
+	void instanceWithRequestsPiledUp_isAvoided() {
+		for (int i = 0; i < 20; i++)
+			this.start(SLOW);
+
+		final Map<ServiceInstance, Integer> chosen = new HashMap<>();
+		for (int i = 0; i < 300; i++)
+			chosen.merge(this.choose(), 1, Integer::sum);
+
+		assertNull(chosen.get(SLOW), chosen.toString());
+		assertEquals(20, this.stats.outstanding(SLOW));
+	}
+
+	@Test
+	void slowInstance_isProbedAgainOnceItsLatencyDecays() {
+		final Request<DefaultRequestContext> request = this.start(SLOW);
+		this.clock.addAndGet(millis(500));
+		this.complete(request, SLOW);
+		assertTrue(this.stats.cost(SLOW) > this.stats.cost(FAST_1));
+
+		// A minute later the fast instance is still answering in 5ms, the slow one has not been tried since
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+		final Request<DefaultRequestContext> fast = this.start(FAST_1);
+		this.clock.addAndGet(millis(5));
+		this.complete(fast, FAST_1);
+
+		assertTrue(this.stats.cost(SLOW) < this.stats.cost(FAST_1));
+	}
+
+	@Test
+	void stalledInstance_staysExpensiveWhileItsRequestsArePending() {
+		for (int i = 0; i < 20; i++)
+			this.start(SLOW);
+
+		// Almost six decays later nothing has come back, while the fast instance keeps answering in 5ms
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		this.answerFromFast1();
+		assertTrue(this.stats.cost(SLOW) > this.stats.cost(FAST_1));
+		for (int i = 0; i < 300; i++)
+			assertNotEquals(SLOW, this.choose());
+
+		// Past the abandon age the sweep forgets the pending requests, but not how long they took
+		this.clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		for (int i = 0; i < 1024; i++)
+			this.answerFromFast1();
+		assertEquals(0, this.stats.outstanding(SLOW));
+		assertTrue(this.stats.cost(SLOW) > this.stats.cost(FAST_1));
+	}
+
+	private void answerFromFast1() {
+		final Request<DefaultRequestContext> request = this.start(FAST_1);
+		this.clock.addAndGet(millis(5));
+		this.complete(request, FAST_1);
+	}
+
+	/**
+	 * Sends requests at a fixed rate against instances answering in fixed times, on a virtual clock.
+	 */
+	private Map<ServiceInstance, Integer> simulate(final Map<ServiceInstance, Long> latencies, final int requests,
+			final long interval) {
+		final Map<ServiceInstance, Integer> served = new HashMap<>();
+		final PriorityQueue<InFlight> inFlight = new PriorityQueue<>((a, b) -> Long.compare(a.endsAt, b.endsAt));
+		for (int i = 0; i < requests; i++) {
+			final long now = i * interval;
+			while (!inFlight.isEmpty() && inFlight.peek().endsAt <= now) {
+				final InFlight done = inFlight.poll();
+				this.clock.set(done.endsAt);
+				this.complete(done.request, done.instance);
+			}
+			this.clock.set(now);
+			final ServiceInstance instance = this.choose();
+			served.merge(instance, 1, Integer::sum);
+			inFlight.add(new InFlight(this.start(instance), instance, now + latencies.get(instance)));
+		}
+		return served;
+	}
+
+	private ServiceInstance choose() {
+		final Response<ServiceInstance> response = this.loadBalancer.choose(new DefaultRequest<>()).block();
+		assertNotNull(response);
+		return response.getServer();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Request<DefaultRequestContext> start(final ServiceInstance instance) {
+		final Request<DefaultRequestContext> request = new DefaultRequest<>(new DefaultRequestContext());
+		this.stats.onStartRequest((Request) request, new DefaultResponse(instance));
+		return request;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void complete(final Request<DefaultRequestContext> request, final ServiceInstance instance) {
+		this.stats.onComplete(new CompletionContext(CompletionContext.Status.SUCCESS, request,
+				new DefaultResponse(instance)));
+	}
+
+	private static long millis(final long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private static ServiceInstance instance(final int port) {
+		return new DefaultServiceInstance(SERVICE + "-" + port, SERVICE, "localhost", port, false);
+	}
+
+	private static final class InFlight {
+
+		private final Request<DefaultRequestContext> request;
+		private final ServiceInstance instance;
+		private final long endsAt;
+
+		InFlight(final Request<DefaultRequestContext> request, final ServiceInstance instance, final long endsAt) {
+			this.request = request;
+			this.instance = instance;
+			this.endsAt = endsAt;
+		}
+
+	}
+
+	private static final class StaticSupplier implements ServiceInstanceListSupplier {
+
+		private final List<ServiceInstance> instances;
+
+		StaticSupplier(final ServiceInstance... instances) {
+			this.instances = List.of(instances);
+		}
+
+		@Override
+		public String getServiceId() {
+			return SERVICE;
+		}
+
+		@Override
+		public Flux<List<ServiceInstance>> get() {
+			return Flux.just(this.instances);
+		}
+
+	}
+
+}
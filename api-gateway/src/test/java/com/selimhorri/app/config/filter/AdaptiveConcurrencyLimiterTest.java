@@ -0,0 +1,89 @@
+package com.selimhorri.app.config.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+	@Test
+	void saturatedAtSteadyRtt_limitGrows() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 100, 1.0);
+		this.saturate(limiter, RTT, 50);
+
+		assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+	}
+
+	@Test
+	void lightlyLoaded_limitStays() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 100, 1.0);
+		for (int i = 0; i < 50; i++) {
+			assertTrue(limiter.tryAcquire(false));
+			limiter.release(RTT, false);
+		}
+
+		assertEquals(10, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void inflatedRtt_limitShrinks() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 4, 100, 1.0);
+		this.saturate(limiter, RTT, 200);
+		final int settled = limiter.getLimit();
+
+		this.saturate(limiter, RTT * 10, 20);
+
+		assertTrue(limiter.getLimit() < settled, limiter.getLimit() + " < " + settled);
+	}
+
+	@Test
+	void droppedRequests_backOffToTheMinimum() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 100, 1.0);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.tryAcquire(true));
+			limiter.release(RTT, true);
+		}
+
+		assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void browsingRequests_areShedBeforePriorityOnes() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 100, 0.7);
+		for (int i = 0; i < 7; i++)
+			assertTrue(limiter.tryAcquire(false));
+
+		assertFalse(limiter.tryAcquire(false));
+		assertTrue(limiter.tryAcquire(true));
+		assertTrue(limiter.tryAcquire(true));
+		assertTrue(limiter.tryAcquire(true));
+		assertFalse(limiter.tryAcquire(true));
+
+		limiter.release();
+		assertEquals(9, limiter.getInFlight());
+		assertFalse(limiter.tryAcquire(false));
+	}
+
+	/**
+	 * Keeps the limiter full, completing one request per sample.
+	 */
+	private void saturate(final AdaptiveConcurrencyLimiter limiter, final long rttNanos, final int samples) {
+		while (limiter.tryAcquire(true)) {
+			// fill every slot
+		}
+		for (int i = 0; i < samples; i++) {
+			limiter.release(rttNanos, false);
+			while (limiter.tryAcquire(true)) {
+				// refill up to the new limit
+			}
+		}
+		while (limiter.getInFlight() > 0)
+			limiter.release();
+	}
+
+}
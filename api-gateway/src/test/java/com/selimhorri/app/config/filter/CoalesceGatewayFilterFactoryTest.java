@@ -0,0 +1,164 @@
+package com.selimhorri.app.config.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CoalesceGatewayFilterFactoryTest {
+
+	private static final String PRODUCT = "/product-service/api/products/1";
+
+	private static final Route ROUTE = Route.async()
+			.id("PRODUCT-SERVICE")
+			.uri(URI.create("http://localhost"))
+			.predicate(exchange -> true)
+			.build();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Upstream upstream = new Upstream();
+	private final CoalesceGatewayFilterFactory.Config config = new CoalesceGatewayFilterFactory.Config();
+	private CoalesceGatewayFilterFactory factory;
+
+	@BeforeEach
+	void setup() {
+		this.factory = new CoalesceGatewayFilterFactory(this.meterRegistry, 1 << 16);
+	}
+
+	@Test
+	void concurrentIdenticalRequests_shareOneUpstreamResponse() {
+		final MockServerWebExchange leader = exchange(PRODUCT);
+		final MockServerWebExchange waiter = exchange(PRODUCT);
+		final CompletableFuture<Void> first = this.send(leader);
+		final CompletableFuture<Void> second = this.send(waiter);
+
+		this.upstream.open();
+		first.join();
+		second.join();
+
+		assertEquals(1, this.upstream.calls);
+		assertEquals(HttpStatus.OK, waiter.getResponse().getStatusCode());
+		assertEquals(MediaType.APPLICATION_JSON, waiter.getResponse().getHeaders().getContentType());
+		assertEquals("product-1", body(waiter));
+		assertEquals("product-1", body(leader));
+		assertEquals(1, this.meterRegistry.get("gateway.coalescing.requests").tag("role", "waiter").counter().count());
+	}
+
+	@Test
+	void differentKeyHeaders_orLaterRequests_goUpstream() {
+		final CompletableFuture<Void> json = this.send(exchange(PRODUCT, HttpHeaders.ACCEPT, "application/json"));
+		final CompletableFuture<Void> xml = this.send(exchange(PRODUCT, HttpHeaders.ACCEPT, "application/xml"));
+		this.upstream.open();
+		json.join();
+		xml.join();
+
+		// The flight ended with its response: nothing already answered is handed out again
+		this.send(exchange(PRODUCT, HttpHeaders.ACCEPT, "application/json")).join();
+
+		assertEquals(3, this.upstream.calls);
+	}
+
+	@Test
+	void waitersBeyondTheLimit_goUpstreamOnTheirOwn() {
+		this.config.setMaxWaiters(1);
+		final CompletableFuture<Void> leader = this.send(exchange(PRODUCT));
+		final CompletableFuture<Void> waiter = this.send(exchange(PRODUCT));
+		final CompletableFuture<Void> overflow = this.send(exchange(PRODUCT));
+		this.upstream.open();
+		CompletableFuture.allOf(leader, waiter, overflow).join();
+
+		assertEquals(2, this.upstream.calls);
+	}
+
+	@Test
+	void failedLeader_sendsWaitersUpstream() {
+		this.upstream.failFirst = true;
+		final MockServerWebExchange waiter = exchange(PRODUCT);
+		final CompletableFuture<Void> leader = this.send(exchange(PRODUCT));
+		final CompletableFuture<Void> follower = this.send(waiter);
+		this.upstream.open();
+
+		assertThrows(CompletionException.class, leader::join);
+		follower.join();
+		assertEquals(2, this.upstream.calls);
+		assertEquals("product-1", body(waiter));
+	}
+
+	@Test
+	void authorizedRequests_areNeverShared() {
+		final CompletableFuture<Void> first = this.send(exchange(PRODUCT, HttpHeaders.AUTHORIZATION, "Bearer a"));
+		final CompletableFuture<Void> second = this.send(exchange(PRODUCT, HttpHeaders.AUTHORIZATION, "Bearer b"));
+		this.upstream.open();
+		CompletableFuture.allOf(first, second).join();
+
+		assertEquals(2, this.upstream.calls);
+	}
+
+	private CompletableFuture<Void> send(final MockServerWebExchange exchange) {
+		final GatewayFilter filter = this.factory.apply(this.config);
+		return filter.filter(exchange, this.upstream).toFuture();
+	}
+
+	private static MockServerWebExchange exchange(final String path, final String... headers) {
+		final MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+		for (int i = 0; i < headers.length; i += 2)
+			request.header(headers[i], headers[i + 1]);
+		final MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+		return exchange;
+	}
+
+	private static String body(final MockServerWebExchange exchange) {
+		return exchange.getResponse().getBodyAsString().block();
+	}
+
+	/**
+	 * Holds every request until opened, so the requests of a test are all in flight together.
+	 */
+	private static final class Upstream implements GatewayFilterChain {
+
+		private final Sinks.Empty<Void> gate = Sinks.empty();
+		private boolean failFirst;
+		private int calls;
+
+		void open() {
+			this.gate.tryEmitEmpty();
+		}
+
+		@Override
+		public Mono<Void> filter(final ServerWebExchange exchange) {
+			final int call = ++this.calls;
+			return this.gate.asMono().then(Mono.defer(() -> {
+				if (this.failFirst && call == 1)
+					return Mono.error(new IllegalStateException("upstream unavailable"));
+				final ServerHttpResponse response = exchange.getResponse();
+				response.setStatusCode(HttpStatus.OK);
+				response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+				return response.writeWith(Mono.just(response.bufferFactory()
+						.wrap("product-1".getBytes(StandardCharsets.UTF_8))));
+			}));
+		}
+
+	}
+
+}
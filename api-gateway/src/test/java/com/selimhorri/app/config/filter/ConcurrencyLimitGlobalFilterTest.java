@@ -0,0 +1,151 @@
+package com.selimhorri.app.config.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ConcurrencyLimitGlobalFilterTest {
+
+	private static final String ORDERS = "/order-service/api/orders";
+
+	private static final Route ROUTE = Route.async()
+			.id("ORDER-SERVICE")
+			.uri(URI.create("lb://ORDER-SERVICE"))
+			.predicate(exchange -> true)
+			.build();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Upstream upstream = new Upstream();
+	private ConcurrencyLimitGlobalFilter filter;
+
+	@BeforeEach
+	void setup() {
+		// A limit of 4 with half of it for browsing
+		this.filter = new ConcurrencyLimitGlobalFilter(this.meterRegistry, 4, 4, 4, 0.5, Duration.ofSeconds(2),
+				List.of("/order-service/**"), "secret");
+	}
+
+	@Test
+	void requestsBeyondTheLimit_areShedWithRetryAfter() {
+		final CompletableFuture<Void> first = this.send(exchange(ORDERS));
+		final CompletableFuture<Void> second = this.send(exchange(ORDERS));
+		final MockServerWebExchange shed = exchange(ORDERS);
+		this.send(shed).join();
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+		assertEquals("2", shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals(2, this.upstream.calls);
+		assertEquals(2.0, this.meterRegistry.get("gateway.concurrency.inflight").tag("route", "ORDER-SERVICE")
+				.gauge().value());
+		assertEquals(1, this.meterRegistry.get("gateway.concurrency.shed").tag("priority", "false").counter().count());
+
+		this.upstream.open();
+		CompletableFuture.allOf(first, second).join();
+		assertEquals(0.0, this.meterRegistry.get("gateway.concurrency.inflight").gauge().value());
+	}
+
+	@Test
+	void authenticatedCheckout_usesTheSlotsBrowsingCannot() {
+		this.send(exchange(ORDERS));
+		this.send(exchange(ORDERS));
+		final MockServerWebExchange checkout = exchange(ORDERS, HttpHeaders.AUTHORIZATION,
+				"Bearer " + token("secret", 60_000));
+		this.send(checkout);
+
+		assertNull(checkout.getResponse().getStatusCode());
+		assertEquals(3, this.upstream.calls);
+	}
+
+	@Test
+	void unverifiedTokens_areShedLikeBrowsing() {
+		this.send(exchange(ORDERS));
+		this.send(exchange(ORDERS));
+		for (final String authorization : List.of("Bearer token", "Bearer " + token("forged", 60_000),
+				"Bearer " + token("secret", -60_000))) {
+			final MockServerWebExchange checkout = exchange(ORDERS, HttpHeaders.AUTHORIZATION, authorization);
+			this.send(checkout).join();
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, checkout.getResponse().getStatusCode(), authorization);
+		}
+
+		assertEquals(2, this.upstream.calls);
+		assertEquals(3, this.meterRegistry.get("gateway.concurrency.shed").tag("priority", "false").counter().count());
+	}
+
+	@Test
+	void routesNotLoadBalanced_areNotLimited() {
+		for (int i = 0; i < 10; i++) {
+			final MockServerWebExchange exchange = exchange(ORDERS);
+			exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+					.id("STATIC")
+					.uri(URI.create("http://localhost"))
+					.predicate(e -> true)
+					.build());
+			this.send(exchange);
+		}
+
+		assertEquals(10, this.upstream.calls);
+	}
+
+	private CompletableFuture<Void> send(final MockServerWebExchange exchange) {
+		return this.filter.filter(exchange, this.upstream).toFuture();
+	}
+
+	private static MockServerWebExchange exchange(final String path, final String... headers) {
+		final MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+		for (int i = 0; i < headers.length; i += 2)
+			request.header(headers[i], headers[i + 1]);
+		final MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+		return exchange;
+	}
+
+	private static String token(final String secret, final long expiresInMillis) {
+		return Jwts.builder()
+				.setSubject("selimhorri")
+				.setExpiration(new Date(System.currentTimeMillis() + expiresInMillis))
+				.signWith(SignatureAlgorithm.HS256, secret)
+				.compact();
+	}
+
+	/**
+	 * Holds every request until opened, so the requests of a test are all in flight together.
+	 */
+	private static final class Upstream implements GatewayFilterChain {
+
+		private final Sinks.Empty<Void> gate = Sinks.empty();
+		private int calls;
+
+		void open() {
+			this.gate.tryEmitEmpty();
+		}
+
+		@Override
+		public Mono<Void> filter(final ServerWebExchange exchange) {
+			this.calls++;
+			return this.gate.asMono().then(Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.OK)));
+		}
+
+	}
+
+}
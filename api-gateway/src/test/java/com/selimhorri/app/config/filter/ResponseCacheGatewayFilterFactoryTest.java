@@ -0,0 +1,228 @@
+package com.selimhorri.app.config.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.selimhorri.app.config.cache.GatewayResponseCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+	private static final String PRODUCTS = "/product-service/api/products";
+
+	private static final Route ROUTE = Route.async()
+			.id("PRODUCT-SERVICE")
+			.uri(URI.create("http://localhost"))
+			.predicate(exchange -> true)
+			.build();
+
+	private final AtomicLong time = new AtomicLong();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Upstream upstream = new Upstream();
+	private GatewayResponseCache cache;
+	private GatewayFilter filter;
+
+	@BeforeEach
+	void setup() {
+		this.cache = new GatewayResponseCache(this.meterRegistry, 1 << 20, 1 << 16, Duration.ofMinutes(10), this.time::get);
+		final ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+		config.setTtl(Duration.ofSeconds(10));
+		config.setStaleWhileRevalidate(Duration.ofSeconds(30));
+		config.setTtlOnlyWrites(List.of(PRODUCTS + "/reserve"));
+		this.filter = new ResponseCacheGatewayFilterFactory(this.cache).apply(config);
+	}
+
+	@Test
+	void freshEntry_isServedWithoutUpstream() {
+		assertEquals("MISS", cacheStatus(this.get(PRODUCTS)));
+		final MockServerWebExchange second = this.get(PRODUCTS);
+
+		assertEquals(1, this.upstream.calls);
+		assertEquals("HIT", cacheStatus(second));
+		assertEquals("v1", body(second));
+		assertEquals(0.5, this.meterRegistry.get("gateway.response.cache.hit.ratio")
+				.tag("route", "PRODUCT-SERVICE")
+				.gauge()
+				.value());
+	}
+
+	@Test
+	void noStoreOrAuthorizedRequests_areNotCached() {
+		this.upstream.headers.setCacheControl("no-store");
+		this.get(PRODUCTS);
+		this.get(PRODUCTS);
+		this.upstream.headers.clear();
+		this.get(PRODUCTS, HttpHeaders.AUTHORIZATION, "Bearer token");
+		this.get(PRODUCTS, HttpHeaders.AUTHORIZATION, "Bearer token");
+
+		assertEquals(4, this.upstream.calls);
+	}
+
+	@Test
+	void staleEntry_isServedWhileOneBackgroundRequestRefreshesIt() {
+		this.get(PRODUCTS);
+		this.advance(15);
+		this.upstream.body = "v2";
+
+		final MockServerWebExchange stale = this.get(PRODUCTS);
+		assertEquals("STALE", cacheStatus(stale));
+		assertEquals("v1", body(stale));
+		assertEquals(2, this.upstream.calls);
+
+		final MockServerWebExchange refreshed = this.get(PRODUCTS);
+		assertEquals("HIT", cacheStatus(refreshed));
+		assertEquals("v2", body(refreshed));
+	}
+
+	@Test
+	void expiredEntryWithEtag_isRevalidatedWithIfNoneMatch() {
+		this.upstream.headers.setETag("\"abc\"");
+		this.get(PRODUCTS);
+		this.advance(60);
+		this.upstream.status = HttpStatus.NOT_MODIFIED;
+
+		final MockServerWebExchange revalidated = this.get(PRODUCTS);
+
+		assertEquals("\"abc\"", this.upstream.ifNoneMatch);
+		assertEquals(HttpStatus.OK, revalidated.getResponse().getStatusCode());
+		assertEquals("REVALIDATED", cacheStatus(revalidated));
+		assertEquals("v1", body(revalidated));
+		assertEquals("HIT", cacheStatus(this.get(PRODUCTS)));
+		assertEquals(2, this.upstream.calls);
+	}
+
+	@Test
+	void clientEtag_matchingFreshEntry_gets304() {
+		this.upstream.headers.setETag("\"abc\"");
+		this.get(PRODUCTS);
+
+		final MockServerWebExchange conditional = this.get(PRODUCTS, HttpHeaders.IF_NONE_MATCH, "W/\"abc\"");
+
+		assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+		assertEquals(1, this.upstream.calls);
+	}
+
+	@Test
+	void mustRevalidateOrNoCache_isNeverServedStale() {
+		this.upstream.headers.setCacheControl("max-age=10, must-revalidate");
+		this.get(PRODUCTS);
+		this.advance(15);
+		assertEquals("MISS", cacheStatus(this.get(PRODUCTS)));
+
+		this.upstream.headers.setCacheControl("no-cache");
+		this.upstream.headers.setETag("\"abc\"");
+		this.get(PRODUCTS + "/1");
+		this.advance(1);
+		this.upstream.status = HttpStatus.NOT_MODIFIED;
+		assertEquals("REVALIDATED", cacheStatus(this.get(PRODUCTS + "/1")));
+		assertEquals(4, this.upstream.calls);
+	}
+
+	@Test
+	void mustRevalidate_withUpstreamStaleWhileRevalidate_isServedStale() {
+		this.upstream.headers.setCacheControl("max-age=10, must-revalidate, stale-while-revalidate=30");
+		this.get(PRODUCTS);
+		this.advance(15);
+
+		assertEquals("STALE", cacheStatus(this.get(PRODUCTS)));
+	}
+
+	@Test
+	void successfulWrite_evictsTheResourceAndItsCollectionOnly() {
+		this.get(PRODUCTS);
+		this.get(PRODUCTS + "?page=2");
+		this.get(PRODUCTS + "/1");
+		this.get(PRODUCTS + "/1/images");
+		this.get(PRODUCTS + "/2");
+		this.exchange(MockServerHttpRequest.put(PRODUCTS + "/1"));
+
+		assertEquals("MISS", cacheStatus(this.get(PRODUCTS)));
+		assertEquals("MISS", cacheStatus(this.get(PRODUCTS + "?page=2")));
+		assertEquals("MISS", cacheStatus(this.get(PRODUCTS + "/1")));
+		assertEquals("MISS", cacheStatus(this.get(PRODUCTS + "/1/images")));
+		assertEquals("HIT", cacheStatus(this.get(PRODUCTS + "/2")));
+	}
+
+	@Test
+	void ttlOnlyWrite_keepsCachedEntries() {
+		this.get(PRODUCTS);
+		this.get(PRODUCTS + "/1");
+		this.exchange(MockServerHttpRequest.post(PRODUCTS + "/reserve"));
+
+		assertEquals("HIT", cacheStatus(this.get(PRODUCTS)));
+		assertEquals("HIT", cacheStatus(this.get(PRODUCTS + "/1")));
+	}
+
+	private MockServerWebExchange get(final String path, final String... headers) {
+		final MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+		for (int i = 0; i < headers.length; i += 2)
+			request.header(headers[i], headers[i + 1]);
+		return this.exchange(request);
+	}
+
+	private MockServerWebExchange exchange(final MockServerHttpRequest.BaseBuilder<?> request) {
+		final MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+		this.filter.filter(exchange, this.upstream).block();
+		return exchange;
+	}
+
+	private void advance(final long seconds) {
+		this.time.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+
+	private static String cacheStatus(final MockServerWebExchange exchange) {
+		return exchange.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER);
+	}
+
+	private static String body(final MockServerWebExchange exchange) {
+		return exchange.getResponse().getBodyAsString().block();
+	}
+
+	/**
+	 * Stands in for the routing filters: answers every request with the configured status, headers and body.
+	 */
+	private static final class Upstream implements GatewayFilterChain {
+
+		private final HttpHeaders headers = new HttpHeaders();
+		private HttpStatus status = HttpStatus.OK;
+		private String body = "v1";
+		private String ifNoneMatch;
+		private int calls;
+
+		@Override
+		public Mono<Void> filter(final ServerWebExchange exchange) {
+			this.calls++;
+			this.ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+			final ServerHttpResponse response = exchange.getResponse();
+			response.setStatusCode(this.status);
+			response.getHeaders().putAll(this.headers);
+			final byte[] bytes = this.status == HttpStatus.NOT_MODIFIED ? new byte[0]
+					: this.body.getBytes(StandardCharsets.UTF_8);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+		}
+
+	}
+
+}
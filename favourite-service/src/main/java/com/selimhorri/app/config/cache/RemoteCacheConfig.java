@@ -0,0 +1,29 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.UserDto;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class RemoteCacheConfig {
+	
+	@Bean
+	public RemoteLookupCache remoteLookupCache(
+			final MeterRegistry meterRegistry,
+			@Value("${app.remote-cache.max-size:10000}") final long maximumSize,
+			@Value("${app.remote-cache.not-found-ttl:30s}") final Duration notFoundTtl,
+			@Value("${app.remote-cache.user-ttl:5m}") final Duration userTtl,
+			@Value("${app.remote-cache.product-ttl:5m}") final Duration productTtl) {
+		return new RemoteLookupCache(meterRegistry, maximumSize, notFoundTtl)
+				.register(UserDto.class, "users", userTtl)
+				.register(ProductDto.class, "products", productTtl);
+	}
+	
+}
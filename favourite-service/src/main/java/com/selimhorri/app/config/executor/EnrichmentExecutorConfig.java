@@ -0,0 +1,30 @@
+package com.selimhorri.app.config.executor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EnrichmentExecutorConfig {
+	
+	/**
+	 * Bounded pool used to fetch users and products concurrently while enriching favourites.
+	 * When the queue is full the calling thread runs the lookup itself, which throttles the fan-out.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor enrichmentExecutor(
+			@Value("${app.enrichment.parallelism:8}") final int parallelism,
+			@Value("${app.enrichment.queue-capacity:500}") final int queueCapacity) {
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(parallelism);
+		executor.setMaxPoolSize(parallelism);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("favourite-enrichment-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+	
+}
@@ -1,7 +1,13 @@
 package com.selimhorri.app.service.impl;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
@@ -11,6 +17,8 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Favourite;
 import com.selimhorri.app.domain.id.FavouriteId;
@@ -37,14 +45,28 @@ public class FavouriteServiceImpl implements FavouriteService {
 	
 	private final FavouriteRepository favouriteRepository;
 	private final RestTemplate restTemplate;
+	private final Executor enrichmentExecutor;
+	private final RemoteLookupCache remoteLookupCache;
+	private final RequestHedger requestHedger;
 	
 	@Override
 	public List<FavouriteDto> findAll() {
 		log.info("*** FavouriteDto List, service; fetch all favourites *");
-		return this.favouriteRepository.findAll()
+		final List<FavouriteDto> favourites = this.favouriteRepository.findAll()
 				.stream()
 				.map(FavouriteMappingHelper::map)
-				.map(this::enrichFavouriteWithExternalData)
+				.collect(Collectors.toList());
+		
+		// Cada usuario y producto distinto se consulta una sola vez, en paralelo
+		final Map<Integer, CompletableFuture<UserDto>> users = fetchDistinctAsync(
+				favourites.stream().map(FavouriteDto::getUserId).collect(Collectors.toSet()),
+				this::fetchUser);
+		final Map<Integer, CompletableFuture<ProductDto>> products = fetchDistinctAsync(
+				favourites.stream().map(FavouriteDto::getProductId).collect(Collectors.toSet()),
+				this::fetchProduct);
+		
+		return favourites.stream()
+				.map(favouriteDto -> joinExternalData(favouriteDto, users, products))
 				.filter(Objects::nonNull)
 				.distinct()
 				.collect(Collectors.toUnmodifiableList());
@@ -144,6 +166,53 @@ public class FavouriteServiceImpl implements FavouriteService {
 		}
 	}
 	
+	/**
+	 * Lanza una consulta asincrona por cada id distinto sobre el executor acotado
+	 */
+	private <T> Map<Integer, CompletableFuture<T>> fetchDistinctAsync(final Set<Integer> ids, 
+			final Function<Integer, T> fetcher) {
+		return ids.stream()
+				.collect(Collectors.toMap(Function.identity(), id -> CompletableFuture.supplyAsync(
+						() -> fetchIgnoringNotFound(id, fetcher), this.enrichmentExecutor)));
+	}
+	
+	/**
+	 * Un 404 deja el dato parcial (null); cualquier otro error se propaga
+	 */
+	private <T> T fetchIgnoringNotFound(final Integer id, final Function<Integer, T> fetcher) {
+		try {
+			return fetcher.apply(id);
+		} catch (ExternalServiceException e) {
+			if (e.getCause() instanceof HttpClientErrorException.NotFound) {
+				log.warn("Resource not found while enriching favourite: {}", e.getMessage());
+				return null;
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Asocia al FavouriteDto los datos ya resueltos; omite el item si alguna consulta fallo
+	 */
+	private FavouriteDto joinExternalData(final FavouriteDto favouriteDto, 
+			final Map<Integer, CompletableFuture<UserDto>> users, 
+			final Map<Integer, CompletableFuture<ProductDto>> products) {
+		try {
+			final UserDto user = users.get(favouriteDto.getUserId()).join();
+			final ProductDto product = products.get(favouriteDto.getProductId()).join();
+			if (user != null) {
+				favouriteDto.setUserDto(user);
+			}
+			if (product != null) {
+				favouriteDto.setProductDto(product);
+			}
+			return favouriteDto;
+		} catch (CompletionException e) {
+			log.error("Error communicating with external service: {}", e.getCause().getMessage());
+			return null;
+		}
+	}
+	
 	/**
 	 * Obtiene un usuario del servicio externo
 	 */
@@ -152,7 +221,9 @@ public class FavouriteServiceImpl implements FavouriteService {
 			String url = AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL 
 					+ "/" + userId;
 			log.debug("Fetching user from: {}", url);
-			return this.restTemplate.getForObject(url, UserDto.class);
+			return this.remoteLookupCache.get(UserDto.class, userId, 
+					id -> this.requestHedger.get("USER-SERVICE",
+							() -> this.restTemplate.getForObject(url, UserDto.class)));
 		} catch (HttpClientErrorException.NotFound e) {
 			log.warn("User {} not found in user-service", userId);
 			throw new ExternalServiceException(
@@ -172,7 +243,9 @@ public class FavouriteServiceImpl implements FavouriteService {
 			String url = AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL 
 					+ "/" + productId;
 			log.debug("Fetching product from: {}", url);
-			return this.restTemplate.getForObject(url, ProductDto.class);
+			return this.remoteLookupCache.get(ProductDto.class, productId, 
+					id -> this.requestHedger.get("PRODUCT-SERVICE",
+							() -> this.restTemplate.getForObject(url, ProductDto.class)));
 		} catch (HttpClientErrorException.NotFound e) {
 			log.warn("Product {} not found in product-service", productId);
 			throw new ExternalServiceException(
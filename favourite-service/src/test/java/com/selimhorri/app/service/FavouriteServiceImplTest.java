@@ -3,17 +3,23 @@ package com.selimhorri.app.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Favourite;
 import com.selimhorri.app.domain.id.FavouriteId;
@@ -25,6 +31,8 @@ import com.selimhorri.app.helper.FavouriteMappingHelper;
 import com.selimhorri.app.repository.FavouriteRepository;
 import com.selimhorri.app.service.impl.FavouriteServiceImpl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class FavouriteServiceImplTest {
 
     @Mock
@@ -33,6 +41,15 @@ public class FavouriteServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Spy
+    private Executor enrichmentExecutor = new SyncTaskExecutor();
+
+    @Spy
+    private RemoteLookupCache remoteLookupCache = new RemoteLookupCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+
+    @Spy
+    private RequestHedger requestHedger = new RequestHedger(false, new SimpleMeterRegistry(), new SyncTaskExecutor(), 0.95, Duration.ofMillis(10), 5);
+
     @InjectMocks
     private FavouriteServiceImpl favouriteService;
 
@@ -62,6 +79,27 @@ public class FavouriteServiceImplTest {
         assertNotNull(dto.getProductDto());
     }
 
+    @Test
+    void findAll_fetchesEachDistinctProductOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        when(this.favouriteRepository.findAll()).thenReturn(List.of(
+                Favourite.builder().userId(1).productId(2).likeDate(now).build(),
+                Favourite.builder().userId(3).productId(2).likeDate(now).build()));
+
+        when(this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "/" + 1, UserDto.class))
+            .thenReturn(UserDto.builder().userId(1).build());
+        when(this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "/" + 3, UserDto.class))
+            .thenReturn(UserDto.builder().userId(3).build());
+        when(this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL + "/" + 2, ProductDto.class))
+            .thenReturn(ProductDto.builder().productId(2).productTitle("asus").build());
+
+        List<FavouriteDto> list = favouriteService.findAll();
+        assertEquals(2, list.size());
+        list.forEach(dto -> assertEquals("asus", dto.getProductDto().getProductTitle()));
+        verify(this.restTemplate, times(1))
+            .getForObject(AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL + "/" + 2, ProductDto.class);
+    }
+
     @Test
     void findById_notFound_throwsResourceNotFound() {
         FavouriteId id = new FavouriteId(9,9, LocalDateTime.now());
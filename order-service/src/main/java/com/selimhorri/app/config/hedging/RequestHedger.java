@@ -0,0 +1,233 @@
+package com.selimhorri.app.config.hedging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Hedged requests for idempotent calls to other services.
+ * The first attempt runs on the hedging pool; if it has not answered within the target's recent latency percentile,
+ * a second identical attempt is sent and whichever succeeds first is returned. Each attempt goes through the
+ * load balancer on its own, which steers the second one away from the instance still busy with the first.
+ * Hedges are capped by a budget refilled at a fixed percentage of calls, so a slow target sees at most that much
+ * extra load. Published as http.client.hedging.latency{target} and http.client.hedges{target,result}.
+ * Off unless app.hedging.enabled is set; disabled, every call runs once on the caller's thread.
+ */
+public class RequestHedger {
+	
+	private static final int MIN_SAMPLES = 20;
+	private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final double MAX_BUDGET = 10;
+	
+	private final boolean enabled;
+	private final MeterRegistry meterRegistry;
+	private final Executor executor;
+	private final double percentile;
+	private final long minDelayNanos;
+	private final double budgetRatio;
+	private final Map<String, Target> targets = new ConcurrentHashMap<>();
+	
+	public RequestHedger(final boolean enabled, final MeterRegistry meterRegistry, final Executor executor,
+			final double percentile, final Duration minDelay, final double budgetPercent) {
+		this.enabled = enabled;
+		this.meterRegistry = meterRegistry;
+		this.executor = executor;
+		this.percentile = percentile;
+		this.minDelayNanos = minDelay.toNanos();
+		this.budgetRatio = budgetPercent / 100;
+	}
+	
+	public <T> T get(final String target, final Supplier<T> attempt) {
+		return this.get(target, attempt, value -> {});
+	}
+	
+	/**
+	 * Runs {@code attempt}, hedging it if it is slow. {@code discard} receives a losing attempt's result,
+	 * e.g. to close a response the caller will never read.
+	 * Exceptions thrown by the attempt reach the caller unchanged; if both attempts fail, the primary's does.
+	 */
+	public <T> T get(final String target, final Supplier<T> attempt, final Consumer<? super T> discard) {
+		if (!this.enabled)
+			return attempt.get();
+		final Target stats = this.targets.computeIfAbsent(target, Target::new);
+		final CompletableFuture<T> primary = this.submit(stats, attempt);
+		if (primary == null)
+			return attempt.get();
+		stats.deposit();
+		
+		final long delay = stats.delayNanos();
+		if (delay <= 0)
+			return await(primary);
+		try {
+			return primary.get(delay, TimeUnit.NANOSECONDS);
+		}
+		catch (final TimeoutException e) {
+			// Slower than the percentile: hedge below
+		}
+		catch (final ExecutionException e) {
+			throw unwrap(e.getCause());
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for " + target, e);
+		}
+		
+		if (!stats.withdraw()) {
+			stats.count("throttled");
+			return await(primary);
+		}
+		final CompletableFuture<T> hedge = this.submit(stats, attempt);
+		if (hedge == null)
+			return await(primary);
+		stats.count("sent");
+		
+		final Race<T> race = new Race<>(discard);
+		primary.whenComplete((value, error) -> race.settle(value, error, () -> {}));
+		hedge.whenComplete((value, error) -> race.settle(value, error, () -> stats.count("won")));
+		try {
+			return await(race.winner);
+		}
+		catch (final RuntimeException e) {
+			// Both failed: report the primary's failure
+			return await(primary);
+		}
+	}
+	
+	private <T> CompletableFuture<T> submit(final Target stats, final Supplier<T> attempt) {
+		try {
+			final long start = System.nanoTime();
+			return CompletableFuture.supplyAsync(attempt, this.executor)
+					.whenComplete((value, error) -> {
+						if (error == null)
+							stats.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					});
+		}
+		catch (final RejectedExecutionException e) {
+			return null;
+		}
+	}
+	
+	private static <T> T await(final CompletableFuture<T> future) {
+		try {
+			return future.get();
+		}
+		catch (final ExecutionException e) {
+			throw unwrap(e.getCause());
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for a remote call", e);
+		}
+	}
+	
+	private static RuntimeException unwrap(final Throwable cause) {
+		if (cause instanceof RuntimeException)
+			return (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		return new IllegalStateException(cause);
+	}
+	
+	/**
+	 * Completes {@code winner} with the first success, or fails it once both attempts have failed.
+	 */
+	private static final class Race<T> {
+		
+		private final CompletableFuture<T> winner = new CompletableFuture<>();
+		private final AtomicBoolean decided = new AtomicBoolean();
+		private final AtomicInteger failures = new AtomicInteger();
+		private final Consumer<? super T> discard;
+		
+		Race(final Consumer<? super T> discard) {
+			this.discard = discard;
+		}
+		
+		void settle(final T value, final Throwable error, final Runnable onWin) {
+			if (error != null) {
+				if (this.failures.incrementAndGet() == 2)
+					this.winner.completeExceptionally(error);
+			}
+			else if (this.decided.compareAndSet(false, true)) {
+				onWin.run();
+				this.winner.complete(value);
+			}
+			else {
+				this.discard.accept(value);
+			}
+		}
+	
+	}
+	
+	private final class Target {
+		
+		private final String name;
+		private final Timer latency;
+		
+		// Guarded by this
+		private double budget = MAX_BUDGET;
+		private long delayNanos;
+		private long delayRefreshedAt;
+		
+		Target(final String name) {
+			this.name = name;
+			this.latency = Timer.builder("http.client.hedging.latency")
+					.description("Latency of successful attempts to a hedged target")
+					.tag("target", name)
+					.publishPercentiles(percentile)
+					.distributionStatisticExpiry(Duration.ofMinutes(1))
+					.register(meterRegistry);
+		}
+		
+		synchronized void deposit() {
+			this.budget = Math.min(MAX_BUDGET, this.budget + budgetRatio);
+		}
+		
+		synchronized boolean withdraw() {
+			if (this.budget < 1)
+				return false;
+			this.budget--;
+			return true;
+		}
+		
+		/**
+		 * The recent latency percentile, at least the configured minimum; 0 (never hedge) until enough calls were seen.
+		 */
+		synchronized long delayNanos() {
+			final long now = System.nanoTime();
+			if (this.delayNanos == 0 || now - this.delayRefreshedAt > DELAY_REFRESH_NANOS) {
+				this.delayRefreshedAt = now;
+				this.delayNanos = 0;
+				if (this.latency.count() >= MIN_SAMPLES)
+					for (final ValueAtPercentile value : this.latency.takeSnapshot().percentileValues())
+						this.delayNanos = Math.max(minDelayNanos, (long) value.value(TimeUnit.NANOSECONDS));
+			}
+			return this.delayNanos;
+		}
+		
+		void count(final String result) {
+			Counter.builder("http.client.hedges")
+					.description("Hedged attempts sent, won, or suppressed by the hedging budget")
+					.tag("target", this.name)
+					.tag("result", result)
+					.register(meterRegistry)
+					.increment();
+		}
+	
+	}
+	
+}
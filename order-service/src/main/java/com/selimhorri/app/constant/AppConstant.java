@@ -11,6 +11,10 @@ public abstract class AppConstant {
 	public static final String ZONED_DATE_TIME_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	public static final String INSTANT_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	
+	public static final int MAX_BATCH_LOOKUP_SIZE = 500;
+	public static final int USER_LOOKUP_BATCH_SIZE = 200;
+	public static final int MAX_PAGE_LIMIT = 100;
+	
 	@NoArgsConstructor(access = AccessLevel.PRIVATE)
 	public abstract class DiscoveredDomainsApi {
 		
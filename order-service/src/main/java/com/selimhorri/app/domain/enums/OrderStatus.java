@@ -1,7 +1,20 @@
 package com.selimhorri.app.domain.enums;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
 public enum OrderStatus {
     CREATED,
     ORDERED,
-    IN_PAYMENT
-}
\ No newline at end of file
+    IN_PAYMENT;
+
+    // Allowed forward transitions; a status without an entry is final
+    private static final Map<OrderStatus, OrderStatus> TRANSITIONS = new EnumMap<>(Map.of(
+            CREATED, ORDERED,
+            ORDERED, IN_PAYMENT));
+
+    public Optional<OrderStatus> next() {
+        return Optional.ofNullable(TRANSITIONS.get(this));
+    }
+}
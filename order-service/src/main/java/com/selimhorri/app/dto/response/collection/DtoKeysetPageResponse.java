@@ -0,0 +1,25 @@
+package com.selimhorri.app.dto.response.collection;
+
+import java.util.Collection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class DtoKeysetPageResponse<T> {
+	
+	private Collection<T> collection;
+	private Integer limit;
+	
+	@JsonInclude(Include.NON_NULL)
+	private String nextCursor;
+	
+}
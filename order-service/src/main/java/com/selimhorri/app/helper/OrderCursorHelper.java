@@ -0,0 +1,44 @@
+package com.selimhorri.app.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.selimhorri.app.domain.Order;
+import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.InvalidInputException;
+
+/**
+ * Opaque keyset cursor over (order_date, order_id): the position of the last order of a page.
+ */
+public interface OrderCursorHelper {
+	
+	public static String encode(final Order order) {
+		final String position = order.getOrderDate() + "|" + order.getOrderId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	public static LocalDateTime decodeOrderDate(final String cursor) {
+		return LocalDateTime.parse(decode(cursor)[0]);
+	}
+	
+	public static Integer decodeOrderId(final String cursor) {
+		return Integer.valueOf(decode(cursor)[1]);
+	}
+	
+	private static String[] decode(final String cursor) {
+		try {
+			final String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException(cursor);
+			}
+			LocalDateTime.parse(parts[0]);
+			Integer.valueOf(parts[1]);
+			return parts;
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new InvalidInputException(ErrorCode.INVALID_INPUT, "Invalid cursor: " + cursor);
+		}
+	}
+	
+}
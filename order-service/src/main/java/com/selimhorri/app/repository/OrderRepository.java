@@ -1,15 +1,51 @@
 package com.selimhorri.app.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.selimhorri.app.domain.Order;
+import com.selimhorri.app.domain.enums.OrderStatus;
 
 public interface OrderRepository extends JpaRepository<Order, Integer> {
 
     List<Order> findAllByIsActiveTrue();
 
     Optional<Order> findByOrderIdAndIsActiveTrue(Integer orderId);
+
+    List<Order> findAllByOrderIdInAndIsActiveTrue(Collection<Integer> orderIds);
+
+    // User order history, newest first; keyset on (order_date, order_id) served by idx_orders_cart_active_date.
+    // Only the order's own flag filters: a cart closed by checkout or deactivated later must not hide its orders
+    @Query("SELECT o FROM Order o JOIN FETCH o.cart c "
+            + "WHERE c.userId = :userId AND o.isActive = true "
+            + "ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findPageByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.cart c "
+            + "WHERE c.userId = :userId AND o.isActive = true "
+            + "AND (o.orderDate < :beforeDate OR (o.orderDate = :beforeDate AND o.orderId < :beforeId)) "
+            + "ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findPageByUserIdBefore(@Param("userId") Integer userId,
+            @Param("beforeDate") LocalDateTime beforeDate, @Param("beforeId") Integer beforeId, Pageable pageable);
+
+    // Compare-and-set: returns 0 when the order is missing, inactive or no longer in the expected status
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :next, o.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE o.orderId = :orderId AND o.status = :expected AND o.isActive = true")
+    int compareAndSetStatus(@Param("orderId") Integer orderId,
+            @Param("expected") OrderStatus expected, @Param("next") OrderStatus next);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :next, o.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE o.orderId IN :orderIds AND o.status = :expected AND o.isActive = true")
+    int compareAndSetStatusIn(@Param("orderIds") Collection<Integer> orderIds,
+            @Param("expected") OrderStatus expected, @Param("next") OrderStatus next);
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.selimhorri.app.resource;
 
+import java.util.Set;
+
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
@@ -13,10 +15,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.selimhorri.app.domain.enums.OrderStatus;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
 import com.selimhorri.app.service.OrderService;
 
 import lombok.RequiredArgsConstructor;
@@ -36,6 +41,22 @@ public class OrderResource {
         return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findAll()));
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<DtoCollectionResponse<OrderDto>> findAllByIds(
+            @RequestParam("ids") final Set<Integer> orderIds) {
+        log.info("GET /api/orders?ids - Fetching {} orders by id", orderIds.size());
+        return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findAllByIds(orderIds)));
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<DtoKeysetPageResponse<OrderDto>> findAllByUserId(
+            @PathVariable("userId") final Integer userId,
+            @RequestParam(value = "after", required = false) final String after,
+            @RequestParam(value = "limit", defaultValue = "20") final int limit) {
+        log.info("GET /api/orders/user/{} - Fetching order history", userId);
+        return ResponseEntity.ok(this.orderService.findAllByUserId(userId, after, limit));
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderDto> findById(@PathVariable("orderId") final Integer orderId) {
         log.info("GET /api/orders/{} - Fetching order by id", orderId);
@@ -50,9 +71,19 @@ public class OrderResource {
     }
 
     @PatchMapping("/{orderId}/status")
-    public ResponseEntity<OrderDto> updateStatus(@PathVariable("orderId") final Integer orderId) {
+    public ResponseEntity<OrderDto> updateStatus(
+            @PathVariable("orderId") final Integer orderId,
+            @RequestParam(value = "expected", required = false) final OrderStatus expected) {
         log.info("PATCH /api/orders/{}/status - Updating order status", orderId);
-        return ResponseEntity.ok(this.orderService.updateStatus(orderId));
+        return ResponseEntity.ok(this.orderService.updateStatus(orderId, expected));
+    }
+
+    @PatchMapping("/status")
+    public ResponseEntity<Integer> updateStatus(
+            @RequestParam("expected") final OrderStatus expected,
+            @RequestBody @NotNull(message = "Order ids must not be null") final Set<Integer> orderIds) {
+        log.info("PATCH /api/orders/status - Advancing {} orders from {}", orderIds.size(), expected);
+        return ResponseEntity.ok(this.orderService.updateStatus(orderIds, expected));
     }
 
     @PutMapping("/{orderId}")
@@ -1,15 +1,22 @@
 package com.selimhorri.app.service;
 
+import java.util.Collection;
 import java.util.List;
 
+import com.selimhorri.app.domain.enums.OrderStatus;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
 
 public interface OrderService {
 	
 	List<OrderDto> findAll();
 	OrderDto findById(final Integer orderId);
+	List<OrderDto> findAllByIds(final Collection<Integer> orderIds);
+	DtoKeysetPageResponse<OrderDto> findAllByUserId(final Integer userId, final String after, final int limit);
 	OrderDto save(final OrderDto orderDto);
 	OrderDto updateStatus(final int orderId);
+	OrderDto updateStatus(final int orderId, final OrderStatus expected);
+	int updateStatus(final Collection<Integer> orderIds, final OrderStatus expected);
 	OrderDto update(final Integer orderId, final OrderDto orderDto);
 	void deleteById(final Integer orderId);
 	
@@ -1,21 +1,30 @@
 package com.selimhorri.app.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.UserDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
 import com.selimhorri.app.exception.ErrorCode;
 import com.selimhorri.app.exception.custom.ExternalServiceException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
@@ -36,29 +45,32 @@ public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     @LoadBalanced
     private final RestTemplate restTemplate;
+    private final RemoteLookupCache remoteLookupCache;
+    private final RequestHedger requestHedger;
 
     @Override
     public List<CartDto> findAll() {
         log.info("Fetching all active carts");
-        return this.cartRepository.findAllByIsActiveTrue()
+        final List<CartDto> carts = this.cartRepository.findAllByIsActiveTrue()
                 .stream()
                 .map(CartMappingHelper::map)
-                .map(c -> {
-                    try {
-                        c.setUserDto(this.restTemplate.getForObject(
-                                AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "/"
-                                        + c.getUserDto().getUserId(),
-                                UserDto.class));
-                        return c;
-                    } catch (HttpClientErrorException.NotFound e) {
-                        log.warn("User not found for userId: {}", c.getUserDto().getUserId());
-                        return c;
-                    } catch (RestClientException e) {
-                        log.error("Error fetching user data for userId: {}", c.getUserDto().getUserId(), e);
-                        return null;
-                    }
-                })
+                .collect(Collectors.toList());
+
+        final Map<Integer, UserDto> users = fetchUsersByIds(carts.stream()
+                .map(CartDto::getUserId)
                 .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        // Carts whose user could not be resolved keep the id-only UserDto instead of being dropped
+        carts.forEach(cartDto -> {
+            UserDto userDto = users.get(cartDto.getUserId());
+            if (userDto != null) {
+                cartDto.setUserDto(userDto);
+            }
+        });
+
+        return carts.stream()
                 .distinct()
                 .collect(Collectors.toUnmodifiableList());
     }
@@ -73,10 +85,7 @@ public class CartServiceImpl implements CartService {
         CartDto cartDto = CartMappingHelper.map(cart);
         
         try {
-            UserDto userDto = this.restTemplate.getForObject(
-                    AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "/" + cartDto.getUserId(),
-                    UserDto.class);
-            cartDto.setUserDto(userDto);
+            cartDto.setUserDto(fetchUser(cartDto.getUserId()));
         } catch (HttpClientErrorException.NotFound e) {
             log.warn("User service returned 404 for userId: {}", cartDto.getUserId());
         } catch (RestClientException e) {
@@ -95,8 +104,7 @@ public class CartServiceImpl implements CartService {
         }
 
         try {
-            final String url = AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "/" + cartDto.getUserId();
-            UserDto userDto = this.restTemplate.getForObject(url, UserDto.class);
+            UserDto userDto = fetchUser(cartDto.getUserId());
 
             if (userDto == null) {
                 throw new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND, cartDto.getUserId());
@@ -126,4 +134,53 @@ public class CartServiceImpl implements CartService {
 
         log.debug("Cart with id: {} successfully deactivated", cartId);
     }
-}
\ No newline at end of file
+
+    private UserDto fetchUser(final Integer userId) {
+        return this.remoteLookupCache.get(UserDto.class, userId, id -> this.requestHedger.get("USER-SERVICE",
+                () -> this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "/" + id,
+                        UserDto.class)));
+    }
+
+    /**
+     * Resolves users from the lookup cache first, then the rest with GET /api/users?ids=... in chunks.
+     * A failed chunk is logged and skipped so the listing degrades to whatever is cached.
+     */
+    private Map<Integer, UserDto> fetchUsersByIds(final List<Integer> userIds) {
+        final Map<Integer, UserDto> users = new HashMap<>(userIds.size());
+        final List<Integer> missing = new ArrayList<>();
+
+        userIds.forEach(userId -> {
+            UserDto cached = this.remoteLookupCache.getIfPresent(UserDto.class, userId);
+            if (cached != null) {
+                users.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        });
+
+        for (int from = 0; from < missing.size(); from += AppConstant.USER_LOOKUP_BATCH_SIZE) {
+            final List<Integer> chunk = new ArrayList<>(missing.subList(from,
+                    Math.min(from + AppConstant.USER_LOOKUP_BATCH_SIZE, missing.size())));
+            final String url = AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "?ids="
+                    + chunk.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+            try {
+                ResponseEntity<DtoCollectionResponse<UserDto>> response = this.restTemplate.exchange(
+                        url, HttpMethod.GET, null,
+                        new ParameterizedTypeReference<DtoCollectionResponse<UserDto>>() {});
+
+                if (response.getBody() != null && response.getBody().getCollection() != null) {
+                    response.getBody().getCollection()
+                            .forEach(userDto -> {
+                                users.put(userDto.getUserId(), userDto);
+                                this.remoteLookupCache.put(UserDto.class, userDto.getUserId(), userDto);
+                            });
+                }
+            } catch (RestClientException e) {
+                log.warn("Could not fetch users {}: {}", chunk, e.getMessage());
+            }
+        }
+
+        return users;
+    }
+}
@@ -1,19 +1,24 @@
 package com.selimhorri.app.service.impl;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Order;
 import com.selimhorri.app.domain.enums.OrderStatus;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
 import com.selimhorri.app.exception.ErrorCode;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.InvalidOrderStatusException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
+import com.selimhorri.app.helper.OrderCursorHelper;
 import com.selimhorri.app.helper.OrderMappingHelper;
 import com.selimhorri.app.repository.CartRepository;
 import com.selimhorri.app.repository.OrderRepository;
@@ -49,6 +54,53 @@ public class OrderServiceImpl implements OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.ORDER_NOT_FOUND, orderId));
     }
 
+    @Override
+    public List<OrderDto> findAllByIds(final Collection<Integer> orderIds) {
+        log.info("Fetching active orders by ids, batch size: {}", orderIds == null ? 0 : orderIds.size());
+
+        if (orderIds == null || orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        if (orderIds.size() > AppConstant.MAX_BATCH_LOOKUP_SIZE) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "At most " + AppConstant.MAX_BATCH_LOOKUP_SIZE + " order ids can be requested at once");
+        }
+
+        return this.orderRepository.findAllByOrderIdInAndIsActiveTrue(orderIds)
+                .stream()
+                .map(OrderMappingHelper::map)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public DtoKeysetPageResponse<OrderDto> findAllByUserId(final Integer userId, final String after, final int limit) {
+        log.info("Fetching orders page for user: {} with limit: {}", userId, limit);
+
+        if (limit < 1 || limit > AppConstant.MAX_PAGE_LIMIT) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "Limit must be between 1 and " + AppConstant.MAX_PAGE_LIMIT);
+        }
+
+        // One extra row tells whether another page follows without a COUNT query
+        final PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        final List<Order> rows = after == null || after.isBlank()
+                ? this.orderRepository.findPageByUserId(userId, pageRequest)
+                : this.orderRepository.findPageByUserIdBefore(userId,
+                        OrderCursorHelper.decodeOrderDate(after), OrderCursorHelper.decodeOrderId(after), pageRequest);
+
+        final boolean hasMore = rows.size() > limit;
+        final List<Order> page = hasMore ? rows.subList(0, limit) : rows;
+
+        return DtoKeysetPageResponse.<OrderDto>builder()
+                .collection(page.stream()
+                        .map(OrderMappingHelper::map)
+                        .collect(Collectors.toUnmodifiableList()))
+                .limit(limit)
+                .nextCursor(hasMore ? OrderCursorHelper.encode(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
     @Override
     public OrderDto save(final OrderDto orderDto) {
         log.info("Creating new order");
@@ -71,33 +123,70 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public OrderDto updateStatus(final int orderId) {
-        log.info("Updating status for order with id: {}", orderId);
+        return this.updateStatus(orderId, null);
+    }
 
-        Order existingOrder = this.orderRepository.findByOrderIdAndIsActiveTrue(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.ORDER_NOT_FOUND, orderId));
+    /**
+     * Advances the order one step along {@link OrderStatus#next()} with a single conditional UPDATE.
+     * Without an expected status the current one is read first; either way a concurrent change
+     * makes the UPDATE match no row instead of being overwritten.
+     */
+    @Override
+    public OrderDto updateStatus(final int orderId, final OrderStatus expected) {
+        log.info("Updating status for order with id: {}, expected status: {}", orderId, expected);
+
+        final Order current = expected == null
+                ? this.orderRepository.findByOrderIdAndIsActiveTrue(orderId)
+                        .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.ORDER_NOT_FOUND, orderId))
+                : null;
+        final OrderStatus from = current == null ? expected : current.getStatus();
+        final OrderStatus next = nextStatus(from);
+
+        if (this.orderRepository.compareAndSetStatus(orderId, from, next) == 0) {
+            throw statusConflict(orderId, from);
+        }
+
+        log.info("Order status updated successfully from {} to {}", from, next);
+
+        if (current == null) {
+            return this.orderRepository.findByOrderIdAndIsActiveTrue(orderId)
+                    .map(OrderMappingHelper::map)
+                    .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.ORDER_NOT_FOUND, orderId));
+        }
+        current.setStatus(next);
+        return OrderMappingHelper.map(current);
+    }
+
+    @Override
+    public int updateStatus(final Collection<Integer> orderIds, final OrderStatus expected) {
+        log.info("Bulk updating status of {} orders from {}", orderIds == null ? 0 : orderIds.size(), expected);
 
-        OrderStatus newStatus;
-        switch (existingOrder.getStatus()) {
-            case CREATED:
-                newStatus = OrderStatus.ORDERED;
-                break;
-            case ORDERED:
-                newStatus = OrderStatus.IN_PAYMENT;
-                break;
-            case IN_PAYMENT:
-                throw new InvalidOrderStatusException(ErrorCode.ORDER_ALREADY_COMPLETED,
-                        "Order is already paid and cannot be updated further");
-            default:
-                throw new InvalidOrderStatusException(ErrorCode.INVALID_ORDER_STATUS,
-                        "Unknown order status: " + existingOrder.getStatus());
+        if (expected == null) {
+            throw new InvalidInputException(ErrorCode.MISSING_REQUIRED_FIELD, "Expected status is required");
+        }
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        if (orderIds.size() > AppConstant.MAX_BATCH_LOOKUP_SIZE) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "At most " + AppConstant.MAX_BATCH_LOOKUP_SIZE + " orders can be updated at once");
         }
 
-        existingOrder.setStatus(newStatus);
-        Order updatedOrder = this.orderRepository.save(existingOrder);
+        final int updated = this.orderRepository.compareAndSetStatusIn(orderIds, expected, nextStatus(expected));
+        log.info("{} of {} orders moved from {}", updated, orderIds.size(), expected);
+        return updated;
+    }
 
-        log.info("Order status updated successfully from {} to {}", existingOrder.getStatus(), newStatus);
+    private OrderStatus nextStatus(final OrderStatus from) {
+        return from.next().orElseThrow(() -> new InvalidOrderStatusException(ErrorCode.ORDER_ALREADY_COMPLETED,
+                "Order is already paid and cannot be updated further"));
+    }
 
-        return OrderMappingHelper.map(updatedOrder);
+    private RuntimeException statusConflict(final int orderId, final OrderStatus expected) {
+        return this.orderRepository.findByOrderIdAndIsActiveTrue(orderId)
+                .<RuntimeException>map(order -> new InvalidOrderStatusException(ErrorCode.INVALID_ORDER_STATUS,
+                        "Order " + orderId + " is " + order.getStatus() + ", expected " + expected))
+                .orElseGet(() -> new ResourceNotFoundException(ErrorCode.ORDER_NOT_FOUND, orderId));
     }
 
     @Override
@@ -0,0 +1,2 @@
+CREATE INDEX idx_carts_user_active ON carts (user_id, is_active);
+CREATE INDEX idx_orders_cart_active_date ON orders (cart_id, is_active, order_date);
@@ -0,0 +1,64 @@
+package com.selimhorri.app.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.selimhorri.app.domain.Cart;
+import com.selimhorri.app.domain.Order;
+
+@DataJpaTest
+public class OrderRepositoryTest {
+
+    private static final int USER_ID = 4242;
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void findPageByUserId_keepsOrdersOfInactiveCarts() {
+        Cart closed = this.cart(false);
+        Cart open = this.cart(true);
+        Order older = this.order(closed, DAY, true);
+        Order newer = this.order(open, DAY.plusDays(1), true);
+        this.order(open, DAY.plusDays(2), false);
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        assertEquals(List.of(newer.getOrderId(), older.getOrderId()),
+                ids(this.orderRepository.findPageByUserId(USER_ID, PageRequest.of(0, 10))));
+        assertEquals(List.of(older.getOrderId()), ids(this.orderRepository.findPageByUserIdBefore(USER_ID,
+                newer.getOrderDate(), newer.getOrderId(), PageRequest.of(0, 10))));
+    }
+
+    private Cart cart(final boolean isActive) {
+        Cart cart = Cart.builder().userId(USER_ID).isActive(isActive).build();
+        this.entityManager.persist(cart);
+        return cart;
+    }
+
+    private Order order(final Cart cart, final LocalDateTime orderDate, final boolean isActive) {
+        Order order = Order.builder().cart(cart).orderDate(orderDate).orderDesc("history").orderFee(1.0)
+                .isActive(isActive).build();
+        this.entityManager.persist(order);
+        return order;
+    }
+
+    private static List<Integer> ids(final List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+
+}
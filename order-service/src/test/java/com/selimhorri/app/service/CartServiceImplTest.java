@@ -0,0 +1,180 @@
+package com.selimhorri.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.Cart;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.UserDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.service.impl.CartServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CartServiceImplTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Spy
+    private RemoteLookupCache remoteLookupCache = new RemoteLookupCache(new SimpleMeterRegistry(), 1000, Duration.ofSeconds(30))
+            .register(UserDto.class, "users", Duration.ofMinutes(5));
+
+    @Spy
+    private RequestHedger requestHedger = new RequestHedger(false, new SimpleMeterRegistry(), new SyncTaskExecutor(), 0.95, Duration.ofMillis(10), 5);
+
+    @InjectMocks
+    private CartServiceImpl cartService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void findAll_cachedUsers_areNotFetchedAgain() {
+        when(this.cartRepository.findAllByIsActiveTrue()).thenReturn(List.of(cart(1, 10), cart(2, 20)));
+        this.remoteLookupCache.put(UserDto.class, 10, user(10));
+        this.answerWithUsersFromUrl();
+
+        Map<Integer, UserDto> users = usersByCart(this.cartService.findAll());
+
+        assertEquals("first-10", users.get(1).getFirstName());
+        assertEquals("first-20", users.get(2).getFirstName());
+        assertEquals(List.of(AppConstant.DiscoveredDomainsApi.USER_SERVICE_API_URL + "?ids=20"), this.requestedUrls(1));
+        // The fetched user is cached for the next listing
+        assertEquals("first-20", this.remoteLookupCache.getIfPresent(UserDto.class, 20).getFirstName());
+    }
+
+    @Test
+    void findAll_missingUsers_areFetchedWithOneRequestPerChunk() {
+        final int carts = 2 * AppConstant.USER_LOOKUP_BATCH_SIZE + 50;
+        when(this.cartRepository.findAllByIsActiveTrue()).thenReturn(IntStream.rangeClosed(1, carts)
+                .mapToObj(i -> cart(i, i))
+                .collect(Collectors.toList()));
+        this.answerWithUsersFromUrl();
+
+        List<CartDto> result = this.cartService.findAll();
+
+        assertEquals(carts, result.size());
+        assertTrue(result.stream().allMatch(cart -> cart.getUserDto().getFirstName() != null));
+        assertEquals(List.of(AppConstant.USER_LOOKUP_BATCH_SIZE, AppConstant.USER_LOOKUP_BATCH_SIZE, 50),
+                this.requestedUrls(3).stream()
+                        .map(url -> url.substring(url.indexOf("?ids=") + 5).split(",").length)
+                        .collect(Collectors.toList()));
+        verify(this.restTemplate, never()).getForObject(anyString(), eq(UserDto.class));
+    }
+
+    @Test
+    void findAll_unresolvedUsers_keepTheirCartWithAnIdOnlyUser() {
+        when(this.cartRepository.findAllByIsActiveTrue()).thenReturn(List.of(cart(1, 10), cart(2, 20)));
+        when(this.restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(new DtoCollectionResponse<>(List.of(user(10)))));
+
+        Map<Integer, UserDto> users = usersByCart(this.cartService.findAll());
+
+        assertEquals("first-10", users.get(1).getFirstName());
+        assertEquals(20, users.get(2).getUserId());
+        assertNull(users.get(2).getFirstName());
+        assertNull(this.remoteLookupCache.getIfPresent(UserDto.class, 20));
+    }
+
+    @Test
+    void findAll_userServiceDown_stillListsCarts() {
+        when(this.cartRepository.findAllByIsActiveTrue()).thenReturn(List.of(cart(1, 10), cart(2, 20)));
+        this.remoteLookupCache.put(UserDto.class, 10, user(10));
+        when(this.restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        Map<Integer, UserDto> users = usersByCart(this.cartService.findAll());
+
+        assertEquals("first-10", users.get(1).getFirstName());
+        assertNull(users.get(2).getFirstName());
+    }
+
+    @Test
+    void findById_repeatedLookup_fetchesUserOnce() {
+        when(this.cartRepository.findByCartIdAndIsActiveTrue(1)).thenReturn(Optional.of(cart(1, 10)));
+        when(this.restTemplate.getForObject(anyString(), eq(UserDto.class))).thenReturn(user(10));
+
+        assertEquals("first-10", this.cartService.findById(1).getUserDto().getFirstName());
+        assertEquals("first-10", this.cartService.findById(1).getUserDto().getFirstName());
+
+        verify(this.restTemplate, times(1)).getForObject(anyString(), eq(UserDto.class));
+    }
+
+    @Test
+    void findById_missingUser_isNegativelyCached() {
+        when(this.cartRepository.findByCartIdAndIsActiveTrue(1)).thenReturn(Optional.of(cart(1, 10)));
+        when(this.restTemplate.getForObject(anyString(), eq(UserDto.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertNull(this.cartService.findById(1).getUserDto().getFirstName());
+        assertNull(this.cartService.findById(1).getUserDto().getFirstName());
+
+        verify(this.restTemplate, times(1)).getForObject(anyString(), eq(UserDto.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answerWithUsersFromUrl() {
+        when(this.restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> {
+                    String url = invocation.getArgument(0);
+                    return ResponseEntity.ok(new DtoCollectionResponse<>(Arrays.stream(url.substring(url.indexOf("?ids=") + 5).split(","))
+                            .map(id -> user(Integer.valueOf(id)))
+                            .collect(Collectors.toList())));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> requestedUrls(final int times) {
+        ArgumentCaptor<String> urls = ArgumentCaptor.forClass(String.class);
+        verify(this.restTemplate, times(times)).exchange(urls.capture(), eq(HttpMethod.GET), isNull(),
+                any(ParameterizedTypeReference.class));
+        return urls.getAllValues();
+    }
+
+    private static Map<Integer, UserDto> usersByCart(final List<CartDto> carts) {
+        return carts.stream().collect(Collectors.toMap(CartDto::getCartId, CartDto::getUserDto, (a, b) -> a));
+    }
+
+    private static Cart cart(final int cartId, final int userId) {
+        return Cart.builder().cartId(cartId).userId(userId).isActive(true).build();
+    }
+
+    private static UserDto user(final int userId) {
+        return UserDto.builder().userId(userId).firstName("first-" + userId).build();
+    }
+
+}
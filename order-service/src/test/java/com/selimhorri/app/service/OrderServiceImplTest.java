@@ -3,19 +3,27 @@ package com.selimhorri.app.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.domain.Order;
 import com.selimhorri.app.domain.enums.OrderStatus;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.exception.custom.InvalidInputException;
+import com.selimhorri.app.helper.OrderCursorHelper;
 import com.selimhorri.app.exception.custom.InvalidOrderStatusException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.repository.CartRepository;
@@ -60,14 +68,98 @@ public class OrderServiceImplTest {
         assertThrows(ResourceNotFoundException.class, () -> this.orderService.findById(77));
     }
 
+    @Test
+    void findAllByIds_usesSingleQuery() {
+        Order order = Order.builder().orderId(4).status(OrderStatus.ORDERED).isActive(true).cart(Cart.builder().cartId(2).build()).build();
+        when(this.orderRepository.findAllByOrderIdInAndIsActiveTrue(Set.of(4, 5))).thenReturn(List.of(order));
+
+        var res = this.orderService.findAllByIds(Set.of(4, 5));
+        assertEquals(1, res.size());
+        assertEquals(4, res.get(0).getOrderId());
+        verify(this.orderRepository, times(1)).findAllByOrderIdInAndIsActiveTrue(Set.of(4, 5));
+    }
+
+    @Test
+    void findAllByIds_tooManyIds_throwsInvalidInput() {
+        Set<Integer> ids = IntStream.rangeClosed(1, 501).boxed().collect(Collectors.toSet());
+        assertThrows(InvalidInputException.class, () -> this.orderService.findAllByIds(ids));
+    }
+
+    @Test
+    void findAllByUserId_fullPage_returnsCursorOfLastRow() {
+        Cart cart = Cart.builder().cartId(2).userId(7).build();
+        Order newest = Order.builder().orderId(9).orderDate(LocalDateTime.of(2024, 3, 2, 10, 0)).cart(cart).isActive(true).build();
+        Order older = Order.builder().orderId(4).orderDate(LocalDateTime.of(2024, 3, 1, 10, 0)).cart(cart).isActive(true).build();
+        Order extra = Order.builder().orderId(3).orderDate(LocalDateTime.of(2024, 2, 1, 10, 0)).cart(cart).isActive(true).build();
+        when(this.orderRepository.findPageByUserId(eq(7), any(Pageable.class))).thenReturn(List.of(newest, older, extra));
+
+        var res = this.orderService.findAllByUserId(7, null, 2);
+
+        assertEquals(2, res.getCollection().size());
+        assertEquals(OrderCursorHelper.encode(older), res.getNextCursor());
+        verify(this.orderRepository).findPageByUserId(7, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void findAllByUserId_withCursor_seeksPastLastRow() {
+        Cart cart = Cart.builder().cartId(2).userId(7).build();
+        Order older = Order.builder().orderId(4).orderDate(LocalDateTime.of(2024, 3, 1, 10, 0)).cart(cart).isActive(true).build();
+        Order last = Order.builder().orderId(3).orderDate(LocalDateTime.of(2024, 2, 1, 10, 0)).cart(cart).isActive(true).build();
+        when(this.orderRepository.findPageByUserIdBefore(eq(7), eq(older.getOrderDate()), eq(4), any(Pageable.class)))
+                .thenReturn(List.of(last));
+
+        var res = this.orderService.findAllByUserId(7, OrderCursorHelper.encode(older), 2);
+
+        assertEquals(1, res.getCollection().size());
+        assertNull(res.getNextCursor());
+        verify(this.orderRepository, never()).findPageByUserId(anyInt(), any(Pageable.class));
+    }
+
+    @Test
+    void findAllByUserId_invalidCursorOrLimit_throwsInvalidInput() {
+        assertThrows(InvalidInputException.class, () -> this.orderService.findAllByUserId(7, "not-a-cursor", 20));
+        assertThrows(InvalidInputException.class, () -> this.orderService.findAllByUserId(7, null, 0));
+        assertThrows(InvalidInputException.class, () -> this.orderService.findAllByUserId(7, null, 101));
+    }
+
     @Test
     void updateStatus_fromCreated_toOrdered() {
         Order order = Order.builder().orderId(1).status(OrderStatus.CREATED).cart(Cart.builder().cartId(2).build()).isActive(true).build();
         when(this.orderRepository.findByOrderIdAndIsActiveTrue(1)).thenReturn(Optional.of(order));
-        when(this.orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(this.orderRepository.compareAndSetStatus(1, OrderStatus.CREATED, OrderStatus.ORDERED)).thenReturn(1);
 
         var res = this.orderService.updateStatus(1);
         assertEquals(OrderStatus.ORDERED, res.getOrderStatus());
+        verify(this.orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void updateStatus_withExpected_skipsInitialRead() {
+        Order order = Order.builder().orderId(1).status(OrderStatus.IN_PAYMENT).cart(Cart.builder().cartId(2).build()).isActive(true).build();
+        when(this.orderRepository.compareAndSetStatus(1, OrderStatus.ORDERED, OrderStatus.IN_PAYMENT)).thenReturn(1);
+        when(this.orderRepository.findByOrderIdAndIsActiveTrue(1)).thenReturn(Optional.of(order));
+
+        var res = this.orderService.updateStatus(1, OrderStatus.ORDERED);
+
+        assertEquals(OrderStatus.IN_PAYMENT, res.getOrderStatus());
+        verify(this.orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
+    }
+
+    @Test
+    void updateStatus_concurrentChange_throwsInvalidOrderStatus() {
+        Order order = Order.builder().orderId(1).status(OrderStatus.IN_PAYMENT).cart(Cart.builder().cartId(2).build()).isActive(true).build();
+        when(this.orderRepository.compareAndSetStatus(1, OrderStatus.ORDERED, OrderStatus.IN_PAYMENT)).thenReturn(0);
+        when(this.orderRepository.findByOrderIdAndIsActiveTrue(1)).thenReturn(Optional.of(order));
+
+        assertThrows(InvalidOrderStatusException.class, () -> this.orderService.updateStatus(1, OrderStatus.ORDERED));
+    }
+
+    @Test
+    void updateStatus_bulk_usesSingleStatement() {
+        when(this.orderRepository.compareAndSetStatusIn(Set.of(1, 2, 3), OrderStatus.CREATED, OrderStatus.ORDERED)).thenReturn(2);
+
+        assertEquals(2, this.orderService.updateStatus(Set.of(1, 2, 3), OrderStatus.CREATED));
+        verify(this.orderRepository, never()).findByOrderIdAndIsActiveTrue(anyInt());
     }
 
     @Test
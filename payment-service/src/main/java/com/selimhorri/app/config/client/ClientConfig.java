@@ -1,22 +1,64 @@
 package com.selimhorri.app.config.client;
 
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+
 @Configuration
 public class ClientConfig {
-
+	
+	@Bean(destroyMethod = "close")
+	public PoolingHttpClientConnectionManager httpClientConnectionManager(
+			@Value("${app.http-client.max-total:200}") final int maxTotal,
+			@Value("${app.http-client.max-per-route:50}") final int maxPerRoute,
+			@Value("${app.http-client.validate-after-inactivity-ms:2000}") final int validateAfterInactivity) {
+		final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+		return connectionManager;
+	}
+	
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient httpClient(
+			final PoolingHttpClientConnectionManager httpClientConnectionManager,
+			@Value("${app.http-client.connect-timeout-ms:2000}") final int connectTimeout,
+			@Value("${app.http-client.read-timeout-ms:10000}") final int readTimeout,
+			@Value("${app.http-client.connection-request-timeout-ms:2000}") final int connectionRequestTimeout,
+			@Value("${app.http-client.idle-eviction-ms:30000}") final long idleEviction) {
+		return HttpClients.custom()
+				.setConnectionManager(httpClientConnectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(connectTimeout)
+						.setSocketTimeout(readTimeout)
+						.setConnectionRequestTimeout(connectionRequestTimeout)
+						.build())
+				.evictExpiredConnections()
+				.evictIdleConnections(idleEviction, TimeUnit.MILLISECONDS)
+				.build();
+	}
+	
+	@Bean
+	public PoolingHttpClientConnectionManagerMetricsBinder httpClientPoolMetrics(
+			final PoolingHttpClientConnectionManager httpClientConnectionManager) {
+		return new PoolingHttpClientConnectionManagerMetricsBinder(httpClientConnectionManager, "rest-template");
+	}
+	
 	@LoadBalanced
 	@Bean
-	public RestTemplate restTemplateBean() {
-		CloseableHttpClient httpClient = HttpClients.createDefault();
-		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
-		return new RestTemplate(requestFactory);
+	public RestTemplate restTemplateBean(final CloseableHttpClient httpClient) {
+		return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
 	}
-
-}
\ No newline at end of file
+	
+}
@@ -0,0 +1,39 @@
+package com.selimhorri.app.config.hedging;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class HedgingConfig {
+	
+	/**
+	 * Runs hedged attempts. There is no queue: when every thread is busy the call runs on the caller, unhedged.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor hedgingExecutor(@Value("${app.hedging.threads:32}") final int threads) {
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(0);
+		executor.setThreadNamePrefix("hedging-");
+		return executor;
+	}
+	
+	@Bean
+	public RequestHedger requestHedger(
+			final MeterRegistry meterRegistry,
+			final ThreadPoolTaskExecutor hedgingExecutor,
+			@Value("${app.hedging.enabled:false}") final boolean enabled,
+			@Value("${app.hedging.percentile:0.95}") final double percentile,
+			@Value("${app.hedging.min-delay:10ms}") final Duration minDelay,
+			@Value("${app.hedging.budget-percent:5}") final double budgetPercent) {
+		return new RequestHedger(enabled, meterRegistry, hedgingExecutor, percentile, minDelay, budgetPercent);
+	}
+	
+}
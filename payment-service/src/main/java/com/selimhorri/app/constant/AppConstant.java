@@ -11,6 +11,8 @@ public abstract class AppConstant {
 	public static final String ZONED_DATE_TIME_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	public static final String INSTANT_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	
+	public static final int ORDER_LOOKUP_BATCH_SIZE = 200;
+	
 	@NoArgsConstructor(access = AccessLevel.PRIVATE)
 	public abstract class DiscoveredDomainsApi {
 		
@@ -0,0 +1,74 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "payment_outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+public final class OutboxEvent extends AbstractMappedEntity implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "outbox_id", unique = true, nullable = false, updatable = false)
+	private Integer outboxId;
+	
+	@Column(name = "payment_id", nullable = false, updatable = false)
+	private Integer paymentId;
+	
+	@Column(name = "order_id", nullable = false, updatable = false)
+	private Integer orderId;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "event_type", nullable = false, updatable = false)
+	private OutboxEventType eventType;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false)
+	private OutboxStatus status;
+	
+	@Column(name = "attempts", nullable = false)
+	private Integer attempts;
+	
+	@Column(name = "next_attempt_at", nullable = false)
+	private Instant nextAttemptAt;
+	
+	@Column(name = "delivered_at")
+	private Instant deliveredAt;
+	
+	@Column(name = "last_error", length = 512)
+	private String lastError;
+	
+	public static OutboxEvent orderInPayment(final Payment payment) {
+		return OutboxEvent.builder()
+				.paymentId(payment.getPaymentId())
+				.orderId(payment.getOrderId())
+				.eventType(OutboxEventType.ORDER_IN_PAYMENT)
+				.status(OutboxStatus.PENDING)
+				.attempts(0)
+				.nextAttemptAt(Instant.now())
+				.build();
+	}
+	
+}
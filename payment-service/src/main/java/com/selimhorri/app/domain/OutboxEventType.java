@@ -0,0 +1,8 @@
+package com.selimhorri.app.domain;
+
+public enum OutboxEventType {
+	
+	// Advances the paid order from ORDERED to IN_PAYMENT in order-service
+	ORDER_IN_PAYMENT
+	
+}
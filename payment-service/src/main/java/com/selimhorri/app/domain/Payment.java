@@ -43,6 +43,15 @@ public final class Payment extends AbstractMappedEntity implements Serializable
 	@Column(name = "payment_status")
 	private PaymentStatus paymentStatus;
 	
+	// The order id while the payment is not canceled; unique, so an order has at most one live payment
+	@Column(name = "active_order_id")
+	private Integer activeOrderId;
+	
+	public void cancel() {
+		this.paymentStatus = PaymentStatus.CANCELED;
+		this.activeOrderId = null;
+	}
+	
 }
 
 
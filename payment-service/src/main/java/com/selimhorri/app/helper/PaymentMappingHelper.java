@@ -31,6 +31,7 @@ public interface PaymentMappingHelper {
 	public static Payment mapForPayment(final PaymentDto paymentDto) {
 		return Payment.builder()
 				.orderId(paymentDto.getOrderDto().getOrderId())
+				.activeOrderId(paymentDto.getOrderDto().getOrderId())
 				.isPayed(false)
 				.paymentStatus(PaymentStatus.NOT_STARTED)
 				.build();
@@ -0,0 +1,40 @@
+package com.selimhorri.app.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.selimhorri.app.domain.OutboxEvent;
+import com.selimhorri.app.domain.OutboxStatus;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Integer> {
+	
+	List<OutboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByOutboxIdAsc(
+			final OutboxStatus status, final Instant now, final Pageable pageable);
+	
+	Optional<OutboxEvent> findFirstByStatusOrderByOutboxIdAsc(final OutboxStatus status);
+	
+	long countByStatus(final OutboxStatus status);
+	
+	/**
+	 * Leases a due row to the caller by moving its next attempt past the lease; 0 when another instance
+	 * claimed it first. A relay that dies mid-delivery leaves the row due again once the lease runs out.
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE OutboxEvent e SET e.nextAttemptAt = :leaseUntil "
+			+ "WHERE e.outboxId = :outboxId AND e.status = :status AND e.nextAttemptAt <= :now")
+	int claim(@Param("outboxId") final Integer outboxId, @Param("status") final OutboxStatus status,
+			@Param("now") final Instant now, @Param("leaseUntil") final Instant leaseUntil);
+	
+	boolean existsByOrderIdAndStatusAndOutboxIdNot(final Integer orderId, final OutboxStatus status,
+			final Integer outboxId);
+	
+}
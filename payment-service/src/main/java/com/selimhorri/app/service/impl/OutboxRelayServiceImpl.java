@@ -0,0 +1,222 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.OutboxEvent;
+import com.selimhorri.app.domain.OutboxStatus;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.repository.OutboxEventRepository;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.OutboxRelayService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers pending outbox rows to order-service outside of any database transaction.
+ * Transient failures are retried with exponential backoff. A rejected transition is treated as delivered
+ * when the order already reached IN_PAYMENT and no other event for the order was delivered (a retry after
+ * a lost response); otherwise the event fails and its payment is canceled in the same transaction.
+ * Every instance polls, so a row is claimed with a lease before it is sent.
+ */
+@Service
+@Slf4j
+public class OutboxRelayServiceImpl implements OutboxRelayService {
+	
+	private final OutboxEventRepository outboxEventRepository;
+	private final PaymentRepository paymentRepository;
+	private final TransactionOperations transactionOperations;
+	private final RestTemplate restTemplate;
+	private final RemoteLookupCache remoteLookupCache;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final long initialBackoffMs;
+	private final long maxBackoffMs;
+	private final long leaseMs;
+	
+	private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+	private final AtomicLong pendingCount = new AtomicLong();
+	private final Counter delivered;
+	private final Counter retried;
+	private final Counter failed;
+	private final Timer deliveryLag;
+	
+	public OutboxRelayServiceImpl(
+			final OutboxEventRepository outboxEventRepository,
+			final PaymentRepository paymentRepository,
+			final TransactionOperations transactionOperations,
+			final RestTemplate restTemplate,
+			final RemoteLookupCache remoteLookupCache,
+			final MeterRegistry meterRegistry,
+			@Value("${app.outbox.batch-size:50}") final int batchSize,
+			@Value("${app.outbox.max-attempts:10}") final int maxAttempts,
+			@Value("${app.outbox.initial-backoff-ms:1000}") final long initialBackoffMs,
+			@Value("${app.outbox.max-backoff-ms:60000}") final long maxBackoffMs,
+			@Value("${app.outbox.lease-ms:30000}") final long leaseMs) {
+		this.outboxEventRepository = outboxEventRepository;
+		this.paymentRepository = paymentRepository;
+		this.transactionOperations = transactionOperations;
+		this.restTemplate = restTemplate;
+		this.remoteLookupCache = remoteLookupCache;
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMs = initialBackoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+		this.leaseMs = leaseMs;
+		
+		TimeGauge.builder("payment.outbox.lag", this.oldestPendingAgeMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+				.description("Age of the oldest undelivered outbox event")
+				.register(meterRegistry);
+		Gauge.builder("payment.outbox.pending", this.pendingCount, AtomicLong::get)
+				.description("Outbox events waiting to be delivered")
+				.register(meterRegistry);
+		this.delivered = meterRegistry.counter("payment.outbox.events", "outcome", "delivered");
+		this.retried = meterRegistry.counter("payment.outbox.events", "outcome", "retried");
+		this.failed = meterRegistry.counter("payment.outbox.events", "outcome", "failed");
+		this.deliveryLag = Timer.builder("payment.outbox.delivery.lag")
+				.description("Time from payment commit to order-service acknowledging the transition")
+				.register(meterRegistry);
+	}
+	
+	@Override
+	@Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+	public void relayPending() {
+		final List<OutboxEvent> due = this.outboxEventRepository
+				.findByStatusAndNextAttemptAtLessThanEqualOrderByOutboxIdAsc(
+						OutboxStatus.PENDING, Instant.now(), PageRequest.of(0, this.batchSize));
+		
+		due.stream()
+				.filter(this::claim)
+				.forEach(this::deliver);
+		
+		this.pendingCount.set(this.outboxEventRepository.countByStatus(OutboxStatus.PENDING));
+		this.oldestPendingAgeMs.set(this.outboxEventRepository.findFirstByStatusOrderByOutboxIdAsc(OutboxStatus.PENDING)
+				.map(event -> Math.max(0L, Duration.between(event.getCreatedAt(), Instant.now()).toMillis()))
+				.orElse(0L));
+	}
+	
+	private boolean claim(final OutboxEvent event) {
+		final Instant now = Instant.now();
+		final Instant leaseUntil = now.plusMillis(this.leaseMs);
+		if (this.outboxEventRepository.claim(event.getOutboxId(), OutboxStatus.PENDING, now, leaseUntil) == 0)
+			return false;
+		event.setNextAttemptAt(leaseUntil);
+		return true;
+	}
+	
+	private void deliver(final OutboxEvent event) {
+		final String url = AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL 
+				+ "/" + event.getOrderId() + "/status?expected=" + OrderStatus.ORDERED.name();
+		try {
+			this.restTemplate.patchForObject(url, null, Void.class);
+			markDelivered(event);
+		} catch (HttpClientErrorException e) {
+			resolveRejected(event, e);
+		} catch (RestClientException e) {
+			scheduleRetry(event, e);
+		}
+	}
+	
+	private void resolveRejected(final OutboxEvent event, final HttpClientErrorException rejection) {
+		try {
+			final OrderDto orderDto = this.restTemplate.getForObject(
+					AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" + event.getOrderId(), OrderDto.class);
+			if (orderDto != null && OrderStatus.IN_PAYMENT.name().equals(orderDto.getOrderStatus())
+					&& !this.outboxEventRepository.existsByOrderIdAndStatusAndOutboxIdNot(
+							event.getOrderId(), OutboxStatus.DELIVERED, event.getOutboxId())) {
+				log.info("Order {} already in payment, outbox event {} treated as delivered", 
+						event.getOrderId(), event.getOutboxId());
+				markDelivered(event);
+			} else {
+				markFailed(event, rejection);
+			}
+		} catch (HttpClientErrorException e) {
+			markFailed(event, rejection);
+		} catch (RestClientException e) {
+			scheduleRetry(event, e);
+		}
+	}
+	
+	private void markDelivered(final OutboxEvent event) {
+		final Instant now = Instant.now();
+		event.setStatus(OutboxStatus.DELIVERED);
+		event.setDeliveredAt(now);
+		event.setAttempts(event.getAttempts() + 1);
+		event.setLastError(null);
+		this.outboxEventRepository.save(event);
+		this.remoteLookupCache.invalidate(OrderDto.class, event.getOrderId());
+		
+		this.delivered.increment();
+		if (event.getCreatedAt() != null)
+			this.deliveryLag.record(Duration.between(event.getCreatedAt(), now));
+	}
+	
+	private void scheduleRetry(final OutboxEvent event, final RestClientException e) {
+		final int attempts = event.getAttempts() + 1;
+		event.setAttempts(attempts);
+		event.setLastError(truncate(e.getMessage()));
+		
+		if (attempts >= this.maxAttempts) {
+			log.error("Outbox event {} for order {} gave up after {} attempts: {}", 
+					event.getOutboxId(), event.getOrderId(), attempts, e.getMessage());
+			event.setStatus(OutboxStatus.FAILED);
+			this.failed.increment();
+		} else {
+			final long backoffMs = Math.min(this.maxBackoffMs, this.initialBackoffMs << Math.min(attempts - 1, 20));
+			log.warn("Outbox event {} for order {} failed (attempt {}), retrying in {} ms: {}", 
+					event.getOutboxId(), event.getOrderId(), attempts, backoffMs, e.getMessage());
+			event.setNextAttemptAt(Instant.now().plusMillis(backoffMs));
+			this.retried.increment();
+		}
+		this.outboxEventRepository.save(event);
+	}
+	
+	/**
+	 * The order will never move for this payment, so the payment is canceled along with the event.
+	 */
+	private void markFailed(final OutboxEvent event, final HttpClientErrorException rejection) {
+		log.error("Order-service rejected outbox event {} for order {}, canceling payment {}: {}", 
+				event.getOutboxId(), event.getOrderId(), event.getPaymentId(), rejection.getMessage());
+		event.setStatus(OutboxStatus.FAILED);
+		event.setAttempts(event.getAttempts() + 1);
+		event.setLastError(truncate(rejection.getMessage()));
+		this.transactionOperations.executeWithoutResult(status -> {
+			this.outboxEventRepository.save(event);
+			this.paymentRepository.findById(event.getPaymentId()).ifPresent(payment -> {
+				if (payment.getPaymentStatus() == PaymentStatus.COMPLETED) {
+					log.error("Payment {} is already completed and needs manual refund", payment.getPaymentId());
+					return;
+				}
+				payment.cancel();
+				this.paymentRepository.save(payment);
+			});
+		});
+		this.failed.increment();
+	}
+	
+	private static String truncate(final String message) {
+		return message == null || message.length() <= 512 ? message : message.substring(0, 512);
+	}
+	
+}
@@ -1,27 +1,42 @@
 package com.selimhorri.app.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
 import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.OutboxEvent;
 import com.selimhorri.app.domain.Payment;
 import com.selimhorri.app.domain.PaymentStatus;
 import com.selimhorri.app.domain.enums.OrderStatus;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
 import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.DuplicateResourceException;
 import com.selimhorri.app.exception.custom.ExternalServiceException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.InvalidPaymentStatusException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.helper.PaymentMappingHelper;
+import com.selimhorri.app.repository.OutboxEventRepository;
 import com.selimhorri.app.repository.PaymentRepository;
 import com.selimhorri.app.service.PaymentService;
 
@@ -36,15 +51,34 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final RestTemplate restTemplate;
+    private final RemoteLookupCache remoteLookupCache;
+    private final RequestHedger requestHedger;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionOperations transactionOperations;
 
     @Override
     public List<PaymentDto> findAll() {
         log.info("Fetching all payments");
 
-        return this.paymentRepository.findAll()
+        final List<PaymentDto> payments = this.paymentRepository.findAll()
                 .stream()
                 .map(PaymentMappingHelper::map)
-                .map(this::enrichWithOrderDataSafely)
+                .collect(Collectors.toList());
+
+        final Map<Integer, OrderDto> orders = fetchOrdersByIds(payments.stream()
+                .map(paymentDto -> paymentDto.getOrderDto().getOrderId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        payments.forEach(paymentDto -> {
+            OrderDto orderDto = orders.get(paymentDto.getOrderDto().getOrderId());
+            if (orderDto != null) {
+                paymentDto.setOrderDto(orderDto);
+            }
+        });
+
+        return payments.stream()
                 .distinct()
                 .collect(Collectors.toUnmodifiableList());
     }
@@ -62,18 +96,32 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentDto;
     }
 
+    /**
+     * The eligibility check runs before any connection is taken; the payment and its outbox row
+     * are then written in one short transaction, and OutboxRelayService advances the order afterwards.
+     * The check can be stale, so a second live payment for the same order is refused by the unique
+     * active_order_id index within that transaction.
+     */
     @Override
-    @Transactional
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public PaymentDto save(final PaymentDto paymentDto) {
         log.info("Saving payment for order: {}", paymentDto.getOrderDto().getOrderId());
 
         validateOrderId(paymentDto);
         OrderDto orderDto = verifyOrderEligibility(paymentDto.getOrderDto().getOrderId());
         
-        PaymentDto savedPayment = PaymentMappingHelper.map(
-                this.paymentRepository.save(PaymentMappingHelper.mapForPayment(paymentDto)));
+        final PaymentDto savedPayment;
+        try {
+            savedPayment = this.transactionOperations.execute(status -> {
+                Payment payment = this.paymentRepository.saveAndFlush(PaymentMappingHelper.mapForPayment(paymentDto));
+                this.outboxEventRepository.save(OutboxEvent.orderInPayment(payment));
+                return PaymentMappingHelper.map(payment);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResourceException(ErrorCode.PAYMENT_ALREADY_EXISTS);
+        }
         
-        updateOrderStatus(paymentDto.getOrderDto().getOrderId());
+        this.remoteLookupCache.invalidate(OrderDto.class, paymentDto.getOrderDto().getOrderId());
         
         savedPayment.setOrderDto(orderDto);
         return savedPayment;
@@ -104,7 +152,7 @@ public class PaymentServiceImpl implements PaymentService {
 
         validateCancellationEligibility(payment);
 
-        payment.setPaymentStatus(PaymentStatus.CANCELED);
+        payment.cancel();
         this.paymentRepository.save(payment);
         
         log.info("Payment with id {} has been canceled", paymentId);
@@ -129,7 +177,8 @@ public class PaymentServiceImpl implements PaymentService {
 
     private void enrichWithOrderData(PaymentDto paymentDto) {
         try {
-            OrderDto orderDto = fetchOrderById(paymentDto.getOrderDto().getOrderId());
+            OrderDto orderDto = this.remoteLookupCache.get(OrderDto.class, 
+                    paymentDto.getOrderDto().getOrderId(), this::fetchOrderById);
             paymentDto.setOrderDto(orderDto);
         } catch (HttpClientErrorException.NotFound e) {
             throw new ResourceNotFoundException(
@@ -142,19 +191,6 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
-    private PaymentDto enrichWithOrderDataSafely(PaymentDto paymentDto) {
-        try {
-            OrderDto orderDto = fetchOrderById(paymentDto.getOrderDto().getOrderId());
-            paymentDto.setOrderDto(orderDto);
-        } catch (Exception e) {
-            log.warn("Could not fetch order {} for payment {}: {}", 
-                    paymentDto.getOrderDto().getOrderId(), 
-                    paymentDto.getPaymentId(),
-                    e.getMessage());
-        }
-        return paymentDto;
-    }
-
     private void validateOrderId(PaymentDto paymentDto) {
         if (paymentDto.getOrderDto() == null || paymentDto.getOrderDto().getOrderId() == null) {
             throw new InvalidInputException(
@@ -187,20 +223,6 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
-    private void updateOrderStatus(Integer orderId) {
-        String patchUrl = AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL 
-                + "/" + orderId + "/status";
-        
-        try {
-            this.restTemplate.patchForObject(patchUrl, null, Void.class);
-            log.info("Order status updated successfully for order ID: {}", orderId);
-        } catch (RestClientException e) {
-            log.error("Failed to update order status for order ID: {}", orderId, e);
-            throw new ExternalServiceException(
-                    "Payment saved but failed to update order status", e);
-        }
-    }
-
     private void validateCancellationEligibility(Payment payment) {
         if (payment.getPaymentStatus() == PaymentStatus.COMPLETED) {
             throw new InvalidPaymentStatusException(ErrorCode.PAYMENT_ALREADY_COMPLETED);
@@ -228,8 +250,52 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    /**
+     * Serves cached orders locally and resolves the rest in chunks of
+     * {@link AppConstant#ORDER_LOOKUP_BATCH_SIZE} through the bulk lookup of order-service.
+     * A failed chunk only leaves its payments without order details.
+     */
+    private Map<Integer, OrderDto> fetchOrdersByIds(List<Integer> orderIds) {
+        final Map<Integer, OrderDto> orders = new HashMap<>(orderIds.size());
+        final List<Integer> missing = new ArrayList<>();
+
+        orderIds.forEach(orderId -> {
+            OrderDto cached = this.remoteLookupCache.getIfPresent(OrderDto.class, orderId);
+            if (cached != null) {
+                orders.put(orderId, cached);
+            } else {
+                missing.add(orderId);
+            }
+        });
+
+        for (int from = 0; from < missing.size(); from += AppConstant.ORDER_LOOKUP_BATCH_SIZE) {
+            final List<Integer> chunk = new ArrayList<>(missing.subList(from,
+                    Math.min(from + AppConstant.ORDER_LOOKUP_BATCH_SIZE, missing.size())));
+            final String url = AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "?ids="
+                    + chunk.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+            try {
+                ResponseEntity<DtoCollectionResponse<OrderDto>> response = this.restTemplate.exchange(
+                        url, HttpMethod.GET, null,
+                        new ParameterizedTypeReference<DtoCollectionResponse<OrderDto>>() {});
+
+                if (response.getBody() != null && response.getBody().getCollection() != null) {
+                    response.getBody().getCollection()
+                            .forEach(orderDto -> {
+                                orders.put(orderDto.getOrderId(), orderDto);
+                                this.remoteLookupCache.put(OrderDto.class, orderDto.getOrderId(), orderDto);
+                            });
+                }
+            } catch (RestClientException e) {
+                log.warn("Could not fetch orders {}: {}", chunk, e.getMessage());
+            }
+        }
+
+        return orders;
+    }
+
     private OrderDto fetchOrderById(Integer orderId) {
         String url = AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" + orderId;
-        return this.restTemplate.getForObject(url, OrderDto.class);
+        return this.requestHedger.get("ORDER-SERVICE", () -> this.restTemplate.getForObject(url, OrderDto.class));
     }
 }
\ No newline at end of file
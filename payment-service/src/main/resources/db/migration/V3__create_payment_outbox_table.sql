@@ -0,0 +1,17 @@
+
+CREATE TABLE payment_outbox (
+	outbox_id INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+	payment_id INT NOT NULL,
+	order_id INT NOT NULL,
+	event_type VARCHAR(64) NOT NULL,
+	status VARCHAR(32) NOT NULL,
+	attempts INT DEFAULT 0 NOT NULL,
+	next_attempt_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	delivered_at TIMESTAMP NULL,
+	last_error VARCHAR(512),
+	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	updated_at TIMESTAMP NULL
+);
+
+CREATE INDEX idx_payment_outbox_status_next_attempt ON payment_outbox (status, next_attempt_at);
+
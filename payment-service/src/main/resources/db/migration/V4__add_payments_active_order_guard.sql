@@ -0,0 +1,18 @@
+
+-- At most one payment per order that is not canceled: active_order_id mirrors order_id while the payment
+-- is live and is cleared when it is canceled, so the unique index (which ignores NULLs) only guards live rows.
+ALTER TABLE payments ADD COLUMN active_order_id INT NULL;
+
+-- Orders that already carry several live payments keep the guard on the oldest one only; the others are
+-- left untouched for manual review rather than canceled here.
+UPDATE payments
+SET active_order_id = order_id
+WHERE payment_id IN (
+	SELECT keep_id FROM (
+		SELECT MIN(payment_id) AS keep_id FROM payments
+		WHERE payment_status <> 'CANCELED' AND order_id IS NOT NULL
+		GROUP BY order_id
+	) AS keepers
+);
+
+CREATE UNIQUE INDEX uq_payments_active_order_id ON payments (active_order_id);
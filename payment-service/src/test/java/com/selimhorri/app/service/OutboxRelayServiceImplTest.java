@@ -0,0 +1,170 @@
+package com.selimhorri.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.domain.OutboxEvent;
+import com.selimhorri.app.domain.OutboxEventType;
+import com.selimhorri.app.domain.OutboxStatus;
+import com.selimhorri.app.domain.Payment;
+import com.selimhorri.app.domain.PaymentStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.repository.OutboxEventRepository;
+import com.selimhorri.app.repository.PaymentRepository;
+import com.selimhorri.app.service.impl.OutboxRelayServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OutboxRelayServiceImplTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelayServiceImpl relayService;
+    private OutboxEvent event;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.relayService = new OutboxRelayServiceImpl(this.outboxEventRepository, this.paymentRepository,
+                TransactionOperations.withoutTransaction(), this.restTemplate,
+                new RemoteLookupCache(this.meterRegistry, 100, Duration.ofSeconds(30)), this.meterRegistry,
+                50, 3, 1000, 60000, 30000);
+        this.event = OutboxEvent.builder()
+                .outboxId(1).paymentId(42).orderId(5)
+                .eventType(OutboxEventType.ORDER_IN_PAYMENT)
+                .status(OutboxStatus.PENDING).attempts(0)
+                .nextAttemptAt(Instant.now())
+                .build();
+        this.event.setCreatedAt(Instant.now().minusSeconds(2));
+        when(this.outboxEventRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByOutboxIdAsc(
+                eq(OutboxStatus.PENDING), any(Instant.class), any())).thenReturn(List.of(this.event));
+        when(this.outboxEventRepository.findFirstByStatusOrderByOutboxIdAsc(OutboxStatus.PENDING))
+                .thenReturn(Optional.empty());
+        when(this.outboxEventRepository.claim(eq(1), eq(OutboxStatus.PENDING), any(Instant.class), any(Instant.class)))
+                .thenReturn(1);
+    }
+
+    @Test
+    void relayPending_rowClaimedByAnotherInstance_isNotSent() {
+        when(this.outboxEventRepository.claim(eq(1), eq(OutboxStatus.PENDING), any(Instant.class), any(Instant.class)))
+                .thenReturn(0);
+
+        this.relayService.relayPending();
+
+        verifyNoInteractions(this.restTemplate);
+        assertEquals(OutboxStatus.PENDING, this.event.getStatus());
+        verify(this.outboxEventRepository, never()).save(any());
+    }
+
+    @Test
+    void relayPending_success_marksDelivered() {
+        this.relayService.relayPending();
+
+        verify(this.restTemplate).patchForObject(endsWith("/5/status?expected=ORDERED"), isNull(), eq(Void.class));
+        assertEquals(OutboxStatus.DELIVERED, this.event.getStatus());
+        assertNotNull(this.event.getDeliveredAt());
+        verify(this.outboxEventRepository).save(this.event);
+        assertEquals(1.0, this.meterRegistry.get("payment.outbox.events").tag("outcome", "delivered").counter().count());
+    }
+
+    @Test
+    void relayPending_serverError_schedulesRetryWithBackoff() {
+        when(this.restTemplate.patchForObject(anyString(), isNull(), eq(Void.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        this.relayService.relayPending();
+
+        assertEquals(OutboxStatus.PENDING, this.event.getStatus());
+        assertEquals(1, this.event.getAttempts());
+        assertTrue(this.event.getNextAttemptAt().isAfter(Instant.now()));
+        verify(this.outboxEventRepository).save(this.event);
+    }
+
+    @Test
+    void relayPending_rejectedButAlreadyInPayment_isIdempotent() {
+        when(this.restTemplate.patchForObject(anyString(), isNull(), eq(Void.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        when(this.restTemplate.getForObject(endsWith("/5"), eq(OrderDto.class)))
+                .thenReturn(OrderDto.builder().orderId(5).orderStatus("IN_PAYMENT").build());
+
+        this.relayService.relayPending();
+
+        assertEquals(OutboxStatus.DELIVERED, this.event.getStatus());
+        verify(this.paymentRepository, never()).save(any());
+    }
+
+    @Test
+    void relayPending_rejectedDuplicatePayment_failsAndCancelsIt() {
+        final Payment payment = Payment.builder().paymentId(42).orderId(5).activeOrderId(5)
+                .paymentStatus(PaymentStatus.NOT_STARTED).build();
+        when(this.paymentRepository.findById(42)).thenReturn(Optional.of(payment));
+        when(this.restTemplate.patchForObject(anyString(), isNull(), eq(Void.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        when(this.restTemplate.getForObject(endsWith("/5"), eq(OrderDto.class)))
+                .thenReturn(OrderDto.builder().orderId(5).orderStatus("IN_PAYMENT").build());
+        // Another payment's event already moved the order
+        when(this.outboxEventRepository.existsByOrderIdAndStatusAndOutboxIdNot(5, OutboxStatus.DELIVERED, 1))
+                .thenReturn(true);
+
+        this.relayService.relayPending();
+
+        assertEquals(OutboxStatus.FAILED, this.event.getStatus());
+        assertEquals(PaymentStatus.CANCELED, payment.getPaymentStatus());
+        assertNull(payment.getActiveOrderId());
+        verify(this.paymentRepository).save(payment);
+    }
+
+    @Test
+    void relayPending_rejectedForAnotherState_cancelsThePayment() {
+        final Payment payment = Payment.builder().paymentId(42).orderId(5).activeOrderId(5)
+                .paymentStatus(PaymentStatus.NOT_STARTED).build();
+        when(this.paymentRepository.findById(42)).thenReturn(Optional.of(payment));
+        when(this.restTemplate.patchForObject(anyString(), isNull(), eq(Void.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        when(this.restTemplate.getForObject(endsWith("/5"), eq(OrderDto.class)))
+                .thenReturn(OrderDto.builder().orderId(5).orderStatus("CANCELLED").build());
+
+        this.relayService.relayPending();
+
+        assertEquals(OutboxStatus.FAILED, this.event.getStatus());
+        assertEquals(PaymentStatus.CANCELED, payment.getPaymentStatus());
+    }
+
+    @Test
+    void relayPending_lastAttemptFails_marksFailed() {
+        this.event.setAttempts(2);
+        when(this.restTemplate.patchForObject(anyString(), isNull(), eq(Void.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        this.relayService.relayPending();
+
+        assertEquals(OutboxStatus.FAILED, this.event.getStatus());
+        assertEquals(3, this.event.getAttempts());
+    }
+
+}
@@ -3,6 +3,8 @@ package com.selimhorri.app.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -10,18 +12,39 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
+import com.selimhorri.app.domain.OutboxEvent;
+import com.selimhorri.app.domain.OutboxEventType;
+import com.selimhorri.app.domain.OutboxStatus;
 import com.selimhorri.app.domain.Payment;
 import com.selimhorri.app.domain.PaymentStatus;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.PaymentDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.exception.custom.DuplicateResourceException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.InvalidPaymentStatusException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
+import com.selimhorri.app.repository.OutboxEventRepository;
 import com.selimhorri.app.repository.PaymentRepository;
 import com.selimhorri.app.service.impl.PaymentServiceImpl;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class PaymentServiceImplTest {
 
     @Mock
@@ -30,12 +53,27 @@ public class PaymentServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Spy
+    private RemoteLookupCache remoteLookupCache = new RemoteLookupCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30))
+            .register(OrderDto.class, "orders", Duration.ofMinutes(1));
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
+    @Spy
+    private RequestHedger requestHedger = new RequestHedger(false, new SimpleMeterRegistry(), new SyncTaskExecutor(), 0.95, Duration.ofMillis(10), 5);
+
     @InjectMocks
     private PaymentServiceImpl paymentService;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        when(this.transactionOperations.execute(any())).thenAnswer(invocation -> 
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -46,12 +84,94 @@ public class PaymentServiceImplTest {
         assertThrows(InvalidInputException.class, () -> this.paymentService.save(dto));
     }
 
+    @Test
+    void save_writesOutboxEventInsteadOfPatchingOrder() {
+        when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+                .thenReturn(OrderDto.builder().orderId(5).orderStatus("ORDERED").build());
+        when(this.paymentRepository.saveAndFlush(any(Payment.class))).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            payment.setPaymentId(42);
+            return payment;
+        });
+
+        PaymentDto saved = this.paymentService.save(
+                PaymentDto.builder().orderDto(OrderDto.builder().orderId(5).build()).build());
+
+        assertEquals(42, saved.getPaymentId());
+        verify(this.outboxEventRepository).save(argThat((OutboxEvent event) -> 
+                event.getPaymentId() == 42 && event.getOrderId() == 5
+                        && event.getEventType() == OutboxEventType.ORDER_IN_PAYMENT
+                        && event.getStatus() == OutboxStatus.PENDING));
+        verify(this.transactionOperations).execute(any());
+        verify(this.restTemplate, never()).patchForObject(anyString(), any(), any());
+    }
+
+    @Test
+    void save_secondLivePaymentForOrder_isRejected() {
+        when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+                .thenReturn(OrderDto.builder().orderId(5).orderStatus("ORDERED").build());
+        when(this.paymentRepository.saveAndFlush(argThat((Payment payment) -> payment.getActiveOrderId() == 5)))
+                .thenThrow(new DataIntegrityViolationException("uq_payments_active_order_id"));
+
+        assertThrows(DuplicateResourceException.class, () -> this.paymentService.save(
+                PaymentDto.builder().orderDto(OrderDto.builder().orderId(5).build()).build()));
+        verify(this.outboxEventRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAll_resolvesOrdersWithSingleBatchedCall() {
+        when(this.paymentRepository.findAll()).thenReturn(List.of(
+                Payment.builder().paymentId(1).orderId(10).paymentStatus(PaymentStatus.NOT_STARTED).build(),
+                Payment.builder().paymentId(2).orderId(11).paymentStatus(PaymentStatus.NOT_STARTED).build(),
+                Payment.builder().paymentId(3).orderId(10).paymentStatus(PaymentStatus.IN_PROGRESS).build()));
+        when(this.restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(new DtoCollectionResponse<>(List.of(
+                        OrderDto.builder().orderId(10).orderStatus("IN_PAYMENT").build()))));
+
+        List<PaymentDto> payments = this.paymentService.findAll();
+
+        assertEquals(3, payments.size());
+        assertEquals("IN_PAYMENT", payments.get(0).getOrderDto().getOrderStatus());
+        assertNull(payments.get(1).getOrderDto().getOrderStatus());
+        assertEquals(11, payments.get(1).getOrderDto().getOrderId());
+        verify(this.restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), isNull(),
+                any(ParameterizedTypeReference.class));
+        verify(this.restTemplate, never()).getForObject(anyString(), eq(OrderDto.class));
+    }
+
     @Test
     void findById_notFound_throws() {
         when(this.paymentRepository.findById(999)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> this.paymentService.findById(999));
     }
 
+    @Test
+    void findById_repeatedLookup_fetchesOrderOnce() {
+        when(this.paymentRepository.findById(1)).thenReturn(Optional.of(
+                Payment.builder().paymentId(1).orderId(10).paymentStatus(PaymentStatus.NOT_STARTED).build()));
+        when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+                .thenReturn(OrderDto.builder().orderId(10).orderStatus("ORDERED").build());
+
+        assertEquals("ORDERED", this.paymentService.findById(1).getOrderDto().getOrderStatus());
+        assertEquals("ORDERED", this.paymentService.findById(1).getOrderDto().getOrderStatus());
+
+        verify(this.restTemplate, times(1)).getForObject(anyString(), eq(OrderDto.class));
+    }
+
+    @Test
+    void findById_missingOrder_isNegativelyCached() {
+        when(this.paymentRepository.findById(1)).thenReturn(Optional.of(
+                Payment.builder().paymentId(1).orderId(10).paymentStatus(PaymentStatus.NOT_STARTED).build()));
+        when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertThrows(ResourceNotFoundException.class, () -> this.paymentService.findById(1));
+        assertThrows(ResourceNotFoundException.class, () -> this.paymentService.findById(1));
+
+        verify(this.restTemplate, times(1)).getForObject(anyString(), eq(OrderDto.class));
+    }
+
     @Test
     void updateStatus_inProgress_to_completed() {
         Payment payment = Payment.builder().paymentId(2).paymentStatus(PaymentStatus.IN_PROGRESS).build();
@@ -77,7 +197,8 @@ public class PaymentServiceImplTest {
 
         assertDoesNotThrow(() -> this.paymentService.deleteById(6));
         // verify saved with CANCELED
-        verify(this.paymentRepository).save(argThat(p -> p.getPaymentStatus() == PaymentStatus.CANCELED));
+        verify(this.paymentRepository).save(argThat(p -> p.getPaymentStatus() == PaymentStatus.CANCELED
+                && p.getActiveOrderId() == null));
     }
 
 }
@@ -7,7 +7,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 @SpringBootApplication
 @EnableEurekaClient
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "databaseClock")
 public class ProductServiceApplication {
 
 	public static void main(String[] args) {
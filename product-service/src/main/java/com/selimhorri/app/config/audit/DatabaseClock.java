@@ -0,0 +1,34 @@
+package com.selimhorri.app.config.audit;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The one clock updated_at is stamped from: bulk JPQL and import SQL write CURRENT_TIMESTAMP, so JPA auditing
+ * and the delta feed's upper bound read the database's clock too instead of each JVM's.
+ * Goes through JDBC on the transaction's connection, so it is safe to call from an auditing callback mid-flush.
+ */
+@Component("databaseClock")
+@RequiredArgsConstructor
+public class DatabaseClock implements DateTimeProvider {
+	
+	private final JdbcTemplate jdbcTemplate;
+	
+	public Instant now() {
+		return this.jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class).toInstant();
+	}
+	
+	@Override
+	public Optional<TemporalAccessor> getNow() {
+		return Optional.of(this.now());
+	}
+	
+}
@@ -0,0 +1,107 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Already-encoded UTF-8 JSON of hot read responses, bounded by total bytes.
+ * A hit skips the database, the DTO mapping and Jackson altogether.
+ * Published as cache.gets{cache="json-response"}, json.response.cache.hit.ratio and json.response.cache.bytes.
+ * Keys carry a generation that {@link #evictAll()} bumps: a load still in flight across it may have read
+ * pre-commit rows, and its late write lands under the old generation, which no reader asks for any more.
+ */
+public class JsonResponseCache {
+	
+	private static final String CATEGORIES_KEY = "categories";
+	private static final String PRODUCT_KEY_PREFIX = "product:";
+	
+	private final Cache<String, byte[]> cache;
+	private final AtomicLong generation = new AtomicLong();
+	private final ObjectMapper objectMapper;
+	
+	public JsonResponseCache(final MeterRegistry meterRegistry, final ObjectMapper objectMapper,
+			final long maximumBytes, final Duration ttl) {
+		this.objectMapper = objectMapper;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumBytes)
+				.weigher((String key, byte[] body) -> body.length)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "json-response");
+		Gauge.builder("json.response.cache.hit.ratio", this.cache, c -> c.stats().hitRate())
+				.description("Share of cached JSON lookups answered without encoding")
+				.register(meterRegistry);
+		Gauge.builder("json.response.cache.bytes", this.cache, JsonResponseCache::weightedSize)
+				.description("UTF-8 JSON bytes currently held")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * Loads and encodes on a miss; a loader that throws (e.g. not found) caches nothing.
+	 * Concurrent misses on one key encode once.
+	 */
+	public byte[] product(final Integer productId, final Supplier<?> loader) {
+		return this.get(PRODUCT_KEY_PREFIX + productId, loader);
+	}
+	
+	public byte[] categories(final Supplier<?> loader) {
+		return this.get(CATEGORIES_KEY, loader);
+	}
+	
+	public void evictProduct(final Integer productId) {
+		this.cache.invalidate(this.key(this.generation.get(), PRODUCT_KEY_PREFIX + productId));
+	}
+	
+	public void evictCategories() {
+		this.cache.invalidate(this.key(this.generation.get(), CATEGORIES_KEY));
+	}
+	
+	public void evictAll() {
+		// Bumped first, so a load finishing after the sweep below cannot be served
+		this.generation.incrementAndGet();
+		this.cache.invalidateAll();
+	}
+	
+	private byte[] get(final String name, final Supplier<?> loader) {
+		final long generation = this.generation.get();
+		final String key = this.key(generation, name);
+		final byte[] body = this.cache.get(key, k -> this.encode(loader.get()));
+		// Unreachable already; dropping it just frees the bytes before the TTL does
+		if (this.generation.get() != generation)
+			this.cache.invalidate(key);
+		return body;
+	}
+	
+	private String key(final long generation, final String name) {
+		return generation + "/" + name;
+	}
+	
+	// Pending writes are applied first so the gauge does not lag behind the cache
+	private static double weightedSize(final Cache<String, byte[]> cache) {
+		cache.cleanUp();
+		return cache.policy().eviction()
+				.map(eviction -> eviction.weightedSize().orElse(0))
+				.orElse(0L);
+	}
+	
+	private byte[] encode(final Object body) {
+		try {
+			return this.objectMapper.writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not encode cached response", e);
+		}
+	}
+	
+}
@@ -0,0 +1,30 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The cached product JSON carries quantity and price, and writes only evict the cache of the instance that handled
+ * them: other replicas keep serving their copy until it expires. The TTL is therefore that cross-instance staleness
+ * bound and is kept to seconds; raise it only for deployments running a single instance.
+ */
+@Configuration
+public class JsonResponseCacheConfig {
+	
+	@Bean
+	public JsonResponseCache jsonResponseCache(
+			final MeterRegistry meterRegistry,
+			final ObjectMapper objectMapper,
+			@Value("${app.json-response-cache.max-bytes:67108864}") final long maximumBytes,
+			@Value("${app.json-response-cache.ttl:5s}") final Duration ttl) {
+		return new JsonResponseCache(meterRegistry, objectMapper, maximumBytes, ttl);
+	}
+	
+}
@@ -0,0 +1,24 @@
+package com.selimhorri.app.config.filter;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class EtagFilterConfig {
+	
+	/**
+	 * Strong ETag computed from the response bytes; a matching If-None-Match gets an empty 304.
+	 * Limited to the full catalog listings that clients poll, never the streaming export.
+	 */
+	@Bean
+	public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+		final FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+				new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+		registration.addUrlPatterns("/api/products", "/api/categories", "/api/categories/tree");
+		registration.setName("shallowEtagHeaderFilter");
+		return registration;
+	}
+	
+}
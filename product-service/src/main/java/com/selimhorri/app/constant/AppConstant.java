@@ -11,6 +11,13 @@ public abstract class AppConstant {
 	public static final String ZONED_DATE_TIME_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	public static final String INSTANT_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	
+	public static final int MAX_PAGE_LIMIT = 500;
+	public static final String STREAM_FETCH_SIZE = "500";
+	public static final int MAX_BATCH_LOOKUP_SIZE = 500;
+	public static final int MAX_SEARCH_LIMIT = 100;
+	public static final long CHANGES_SAFETY_LAG_SECONDS = 5;
+	public static final int MAX_IMPORT_ERRORS = 1000;
+	
 	@NoArgsConstructor(access = AccessLevel.PRIVATE)
 	public abstract class DiscoveredDomainsApi {
 		
@@ -1,6 +1,7 @@
 package com.selimhorri.app.domain;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -53,6 +54,12 @@ public final class Product extends AbstractMappedEntity implements Serializable
 	@Column(name = "quantity")
 	private Integer quantity;
 	
+	@Column(name = "is_deleted", nullable = false)
+	private boolean isDeleted;
+	
+	@Column(name = "deleted_at")
+	private Instant deletedAt;
+	
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "category_id")
 	@JsonBackReference
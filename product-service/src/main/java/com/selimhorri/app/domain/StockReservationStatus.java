@@ -0,0 +1,5 @@
+package com.selimhorri.app.domain;
+
+public enum StockReservationStatus {
+	RESERVED, RELEASED
+}
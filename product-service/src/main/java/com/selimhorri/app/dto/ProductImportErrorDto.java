@@ -0,0 +1,28 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductImportErrorDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private long line;
+	
+	@JsonInclude(Include.NON_NULL)
+	private String sku;
+	
+	private String message;
+	
+}
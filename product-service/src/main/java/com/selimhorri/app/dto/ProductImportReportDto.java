@@ -0,0 +1,27 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductImportReportDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private long processed;
+	private long inserted;
+	private long updated;
+	private long failed;
+	
+	// Capped at AppConstant.MAX_IMPORT_ERRORS; failed still counts every rejected line
+	private List<ProductImportErrorDto> errors;
+	
+}
@@ -0,0 +1,28 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class StockLineDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@NotNull(message = "Product id is required")
+	private Integer productId;
+	
+	@NotNull(message = "Quantity is required")
+	@Positive(message = "Quantity must be positive")
+	private Integer quantity;
+	
+}
@@ -0,0 +1,25 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.selimhorri.app.domain.StockReservationStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class StockReservationDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private Integer reservationId;
+	private StockReservationStatus status;
+	private List<StockLineDto> lines;
+	
+}
@@ -0,0 +1,25 @@
+package com.selimhorri.app.dto.response.collection;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class DtoChangesResponse<T> {
+	
+	private Collection<T> collection;
+	private Collection<Integer> deletedIds;
+	
+	// Pass back as since / afterId to continue from here
+	private Instant watermark;
+	private Integer watermarkId;
+	private Boolean hasMore;
+	
+}
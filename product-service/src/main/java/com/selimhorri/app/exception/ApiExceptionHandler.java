@@ -18,6 +18,7 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 
 import com.selimhorri.app.exception.custom.DuplicateResourceException;
 import com.selimhorri.app.exception.custom.ForbiddenOperationException;
+import com.selimhorri.app.exception.custom.InsufficientStockException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 
@@ -72,6 +73,28 @@ public class ApiExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ErrorResponse> handleInsufficientStockException(
+            InsufficientStockException ex,
+            HttpServletRequest request) {
+        
+        String traceId = generateTraceId();
+        
+        log.warn("Insufficient stock - TraceId: {} - Path: {} - Message: {}", 
+                traceId, request.getRequestURI(), ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .errorCode(ex.getErrorCode().getCode())
+                .message(ex.getMessage())
+                .path(request.getRequestURI())
+                .traceId(traceId)
+                .build();
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(ForbiddenOperationException.class)
     public ResponseEntity<ErrorResponse> handleForbiddenOperationException(
           ForbiddenOperationException ex,
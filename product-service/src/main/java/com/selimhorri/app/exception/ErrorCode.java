@@ -17,6 +17,7 @@ public enum ErrorCode {
     
     PRODUCT_NOT_FOUND("ERR_3000", "Product with id %s not found"),
     CATEGORY_NOT_FOUND("ERR_3001", "Category with id %s not found"),
+    STOCK_RESERVATION_NOT_FOUND("ERR_3002", "Stock reservation with id %s not found"),
     
     PRODUCT_ALREADY_EXISTS("ERR_4000", "Product already exists"),
     CATEGORY_ALREADY_EXISTS("ERR_4001", "Category already exists"),
@@ -26,6 +27,8 @@ public enum ErrorCode {
 
     FORBIDDEN_OPERATION("ERR_5000", "Operation not allowed"),
     RESERVED_CATEGORY_DELETE("ERR_5001", "Cannot delete reserved system categories"),
+
+    INSUFFICIENT_STOCK("ERR_6000", "Insufficient stock for product with id %s"),
     
     DATABASE_ERROR("ERR_7000", "Database operation failed"),
     CONSTRAINT_VIOLATION("ERR_7001", "Database constraint violation"),
@@ -0,0 +1,17 @@
+package com.selimhorri.app.exception.custom;
+
+import com.selimhorri.app.exception.ErrorCode;
+
+public class InsufficientStockException extends RuntimeException {
+    
+    private final ErrorCode errorCode;
+    
+    public InsufficientStockException(ErrorCode errorCode, Object... args) {
+        super(errorCode.formatMessage(args));
+        this.errorCode = errorCode;
+    }
+    
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,41 @@
+package com.selimhorri.app.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public interface CsvHelper {
+	
+	/**
+	 * Splits one RFC 4180 record: fields may be quoted, and a doubled quote inside a quoted field is a literal quote.
+	 * Records never span lines, so a quote left open at the end of the line is rejected.
+	 */
+	public static List<String> parseLine(final String line) {
+		final List<String> fields = new ArrayList<>();
+		final StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"')
+					field.append(c);
+				else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+					field.append(line.charAt(++i));
+				else
+					quoted = false;
+			}
+			else if (c == '"')
+				quoted = true;
+			else if (c == ',') {
+				fields.add(field.toString().trim());
+				field.setLength(0);
+			}
+			else
+				field.append(c);
+		}
+		if (quoted)
+			throw new IllegalArgumentException("Unterminated quoted field");
+		fields.add(field.toString().trim());
+		return fields;
+	}
+	
+}
@@ -0,0 +1,25 @@
+package com.selimhorri.app.helper;
+
+import java.util.stream.Collectors;
+
+import com.selimhorri.app.domain.StockReservation;
+import com.selimhorri.app.dto.StockLineDto;
+import com.selimhorri.app.dto.StockReservationDto;
+
+public interface StockReservationMappingHelper {
+	
+	public static StockReservationDto map(final StockReservation reservation) {
+		return StockReservationDto.builder()
+				.reservationId(reservation.getReservationId())
+				.status(reservation.getStatus())
+				.lines(reservation.getLines()
+						.stream()
+						.map(line -> StockLineDto.builder()
+								.productId(line.getProductId())
+								.quantity(line.getQuantity())
+								.build())
+						.collect(Collectors.toUnmodifiableList()))
+				.build();
+	}
+	
+}
@@ -0,0 +1,25 @@
+package com.selimhorri.app.helper;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public interface TransactionHelper {
+	
+	/**
+	 * Runs the action once the surrounding transaction commits, or right away when there is none.
+	 * In-memory views refreshed earlier could read rows that are about to be rolled back.
+	 */
+	public static void afterCommit(final Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+	
+}
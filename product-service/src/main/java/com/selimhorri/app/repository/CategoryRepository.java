@@ -25,4 +25,9 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
     @Query("SELECT c FROM Category c WHERE c.categoryId = :id AND LOWER(c.categoryTitle) NOT IN ('deleted', 'no category')")
     Optional<Category> findNonReservedById(@Param("id") Integer id);
 
+    // Flat (categoryId, parentCategoryId, categoryTitle, imageUrl) rows for the in-memory tree, one statement
+    @Query("SELECT c.categoryId, p.categoryId, c.categoryTitle, c.imageUrl FROM Category c LEFT JOIN c.parentCategory p "
+            + "WHERE LOWER(c.categoryTitle) NOT IN ('deleted', 'no category')")
+    List<Object[]> findTreeRowsNonReserved();
+
 }
\ No newline at end of file
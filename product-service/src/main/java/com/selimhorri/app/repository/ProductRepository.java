@@ -1,31 +1,93 @@
 package com.selimhorri.app.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Category;
 import com.selimhorri.app.domain.Product;
 
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
-    @Query("SELECT p FROM Product p WHERE p.category.categoryTitle <> 'Deleted'")
+    // Read queries fetch-join the category: ProductMappingHelper.map reads it for every row.
+    // Soft delete is filtered on products.is_deleted, so the join is a plain FK -> PK lookup, never a filter
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.isDeleted = false")
     List<Product> findAllWithoutDeleted();
 
-    @Query("SELECT p FROM Product p WHERE p.id = :productId AND p.category.categoryTitle <> 'Deleted'")
-    Optional<Product> findByIdWithoutDeleted(Integer productId);
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.isDeleted = false AND p.productId > :after ORDER BY p.productId")
+    List<Product> findPageWithoutDeleted(@Param("after") Integer after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = AppConstant.STREAM_FETCH_SIZE))
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.isDeleted = false ORDER BY p.productId")
+    Stream<Product> streamAllWithoutDeleted();
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.productId = :productId AND p.isDeleted = false")
+    Optional<Product> findByIdWithoutDeleted(@Param("productId") Integer productId);
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.isDeleted = false AND c.categoryId IN :categoryIds "
+            + "AND p.productId > :after ORDER BY p.productId")
+    List<Product> findPageByCategoryIdsWithoutDeleted(@Param("categoryIds") Collection<Integer> categoryIds,
+            @Param("after") Integer after, Pageable pageable);
+
+    // Delta sync in (updated_at, product_id) order, tombstones included, served by idx_products_updated_at
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c "
+            + "WHERE (p.updatedAt > :since OR (p.updatedAt = :since AND p.productId > :afterId)) AND p.updatedAt <= :until "
+            + "ORDER BY p.updatedAt, p.productId")
+    List<Product> findChangedSince(@Param("since") Instant since, @Param("afterId") Integer afterId,
+            @Param("until") Instant until, Pageable pageable);
+
+    // Single-table primary key hit for writes that do not need the category
+    Optional<Product> findByProductIdAndIsDeletedFalse(Integer productId);
 
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.productId IN :productIds AND p.isDeleted = false")
+    List<Product> findAllByIdsWithoutDeleted(@Param("productIds") Collection<Integer> productIds);
+
+    // Bulk import: which SKUs of a batch already exist (uq_products_sku), and their rows once the batch committed
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE p.sku IN :skus AND p.isDeleted = false")
+    List<Product> findAllBySkusWithoutDeleted(@Param("skus") Collection<String> skus);
+
+    // Stock moves in place: no read-modify-write window, and the guard makes overselling impossible
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity, p.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE p.productId = :productId AND p.isDeleted = false AND p.quantity >= :quantity")
+    int decrementStock(@Param("productId") Integer productId, @Param("quantity") Integer quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity, p.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE p.productId = :productId AND p.isDeleted = false")
+    int incrementStock(@Param("productId") Integer productId, @Param("quantity") Integer quantity);
+
+    // Moved products must show up in the delta feed, which pages by updated_at
     @Modifying
-    @Query("UPDATE Product p SET p.category = :newCategory WHERE p.category.categoryId = :oldCategoryId")
+    @Query("UPDATE Product p SET p.category = :newCategory, p.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE p.category.categoryId = :oldCategoryId")
     void updateCategoryForProducts(@Param("oldCategoryId") Integer oldCategoryId,
             @Param("newCategory") Category newCategory);
 
     @Modifying
-    @Query("UPDATE Product p SET p.category.categoryId = :newCategoryId WHERE p.category.categoryId = :oldCategoryId")
+    @Query("UPDATE Product p SET p.category.categoryId = :newCategoryId, p.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE p.category.categoryId = :oldCategoryId")
     void updateCategoryIdForProducts(@Param("oldCategoryId") Integer oldCategoryId,
             @Param("newCategoryId") Integer newCategoryId);
+
+    // Product JSON embeds the category title, so a rename is a change to every product of the category
+    @Modifying
+    @Query("UPDATE Product p SET p.updatedAt = CURRENT_TIMESTAMP WHERE p.category.categoryId = :categoryId")
+    int touchProductsOfCategory(@Param("categoryId") Integer categoryId);
 }
\ No newline at end of file
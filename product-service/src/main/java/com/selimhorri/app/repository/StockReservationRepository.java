@@ -0,0 +1,21 @@
+package com.selimhorri.app.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.StockReservation;
+import com.selimhorri.app.domain.StockReservationStatus;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Integer> {
+
+    // Compare-and-set on the row: of concurrent or retried releases exactly one sees 1 and restocks
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to, r.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE r.reservationId = :reservationId AND r.status = :from")
+    int transition(@Param("reservationId") Integer reservationId,
+            @Param("from") StockReservationStatus from,
+            @Param("to") StockReservationStatus to);
+
+}
@@ -3,6 +3,7 @@ package com.selimhorri.app.resource;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,11 +12,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.selimhorri.app.config.cache.JsonResponseCache;
 import com.selimhorri.app.dto.CategoryDto;
+import com.selimhorri.app.dto.ProductDto;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
 import com.selimhorri.app.service.CategoryService;
+import com.selimhorri.app.service.CategoryTreeService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,11 +33,38 @@ import lombok.extern.slf4j.Slf4j;
 public class CategoryResource {
 
     private final CategoryService categoryService;
+    private final CategoryTreeService categoryTreeService;
+    private final JsonResponseCache jsonResponseCache;
 
-    @GetMapping
-    public ResponseEntity<DtoCollectionResponse<CategoryDto>> findAll() {
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> findAll() {
         log.info("Fetching all categories");
-        return ResponseEntity.ok(new DtoCollectionResponse<>(this.categoryService.findAll()));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(this.jsonResponseCache.categories(
+                        () -> new DtoCollectionResponse<>(this.categoryService.findAll())));
+    }
+
+    @GetMapping("/tree")
+    public ResponseEntity<DtoCollectionResponse<CategoryDto>> findTree() {
+        log.info("Fetching category tree");
+        return ResponseEntity.ok(new DtoCollectionResponse<>(this.categoryTreeService.findTree()));
+    }
+
+    @GetMapping("/{categoryId}/descendants")
+    public ResponseEntity<DtoCollectionResponse<CategoryDto>> findDescendants(
+            @PathVariable("categoryId") final Integer categoryId) {
+        log.info("Fetching descendants of category with id: {}", categoryId);
+        return ResponseEntity.ok(new DtoCollectionResponse<>(this.categoryTreeService.findDescendants(categoryId)));
+    }
+
+    @GetMapping("/{categoryId}/products")
+    public ResponseEntity<DtoKeysetPageResponse<ProductDto>> findProductsInSubtree(
+            @PathVariable("categoryId") final Integer categoryId,
+            @RequestParam(value = "after", required = false) final Integer after,
+            @RequestParam(value = "limit", defaultValue = "50") final int limit) {
+        log.info("Fetching products in subtree of category with id: {}", categoryId);
+        return ResponseEntity.ok(this.categoryTreeService.findProductsInSubtree(categoryId, after, limit));
     }
 
     @GetMapping("/{categoryId}")
@@ -1,8 +1,21 @@
 package com.selimhorri.app.resource;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,10 +24,23 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.selimhorri.app.config.cache.JsonResponseCache;
 import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.ProductImportReportDto;
+import com.selimhorri.app.dto.StockLineDto;
+import com.selimhorri.app.dto.StockReservationDto;
+import com.selimhorri.app.dto.response.collection.DtoChangesResponse;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
+import com.selimhorri.app.service.ProductImportService;
+import com.selimhorri.app.service.ProductSearchService;
 import com.selimhorri.app.service.ProductService;
 
 import lombok.RequiredArgsConstructor;
@@ -26,7 +52,13 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class ProductResource {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final ProductImportService productImportService;
+    private final ObjectMapper objectMapper;
+    private final JsonResponseCache jsonResponseCache;
 
     @GetMapping
     public ResponseEntity<DtoCollectionResponse<ProductDto>> findAll() {
@@ -34,10 +66,79 @@ public class ProductResource {
         return ResponseEntity.ok(new DtoCollectionResponse<>(this.productService.findAll()));
     }
 
-    @GetMapping("/{productId}")
-    public ResponseEntity<ProductDto> findById(@PathVariable("productId") final Integer productId) {
+    @GetMapping(params = "ids")
+    public ResponseEntity<DtoCollectionResponse<ProductDto>> findAllByIds(
+            @RequestParam("ids") final Set<Integer> productIds) {
+        log.info("Fetching {} products by id", productIds.size());
+        return ResponseEntity.ok(new DtoCollectionResponse<>(this.productService.findAllByIds(productIds)));
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<DtoKeysetPageResponse<ProductDto>> findPage(
+            @RequestParam(value = "after", required = false) final Integer after,
+            @RequestParam("limit") final int limit) {
+        log.info("Fetching products page after id: {}", after);
+        return ResponseEntity.ok(this.productService.findPage(after, limit));
+    }
+
+    /**
+     * Products changed or deleted since the given watermark, oldest first.
+     * Clients keep calling with the returned watermark / watermarkId until hasMore is false.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<DtoChangesResponse<ProductDto>> findChanges(
+            @RequestParam("since") final Instant since,
+            @RequestParam(value = "afterId", required = false) final Integer afterId,
+            @RequestParam(value = "limit", defaultValue = "500") final int limit) {
+        log.info("Fetching product changes since: {}", since);
+        return ResponseEntity.ok(this.productService.findChanges(since, afterId, limit));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<DtoCollectionResponse<ProductDto>> search(
+            @RequestParam("q") final String query,
+            @RequestParam(value = "limit", defaultValue = "20") final int limit) {
+        log.info("Searching products");
+        return ResponseEntity.ok(new DtoCollectionResponse<>(this.productSearchService.search(query, limit)));
+    }
+
+    /**
+     * Writes the whole catalog as {"collection":[...]} one product at a time,
+     * so memory stays constant regardless of catalog size.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void streamAll(final HttpServletResponse response) throws IOException {
+        log.info("Streaming all products");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        final ObjectWriter writer = this.objectMapper.writerFor(ProductDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("collection");
+            this.productService.streamAll(productDto -> {
+                try {
+                    writer.writeValue(generator, productDto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Served as pre-encoded bytes: the byte[] converter copies them to the output stream untouched.
+     */
+    @GetMapping(value = "/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> findById(@PathVariable("productId") final Integer productId) {
         log.info("Fetching product with id: {}", productId);
-        return ResponseEntity.ok(this.productService.findById(productId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(this.jsonResponseCache.product(productId, () -> this.productService.findById(productId)));
     }
 
     @PostMapping
@@ -47,6 +148,36 @@ public class ProductResource {
         return ResponseEntity.ok(this.productService.save(productDto));
     }
 
+    /**
+     * Bulk upsert by SKU from a CSV (with header) or JSON-lines body, read as it arrives.
+     * Rejected lines are listed in the report; the rest of the load still goes through.
+     */
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<ProductImportReportDto> importProducts(final HttpServletRequest request) throws IOException {
+        log.info("Importing products");
+        final MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        final ProductImportService.Format format = contentType.isCompatibleWith(TEXT_CSV)
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.JSON_LINES;
+        final Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            return ResponseEntity.ok(this.productImportService.importProducts(reader, format));
+        }
+    }
+
+    @PostMapping("/reserve")
+    public ResponseEntity<StockReservationDto> reserve(
+            @RequestBody @NotNull(message = "Request body cannot be null") final List<StockLineDto> lines) {
+        log.info("Reserving stock");
+        return ResponseEntity.ok(this.productService.reserve(lines));
+    }
+
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<StockReservationDto> release(@PathVariable("reservationId") final Integer reservationId) {
+        log.info("Releasing stock");
+        return ResponseEntity.ok(this.productService.release(reservationId));
+    }
+
     @PutMapping
     public ResponseEntity<ProductDto> update(
             @RequestBody @NotNull(message = "Request body cannot be null") @Valid final ProductDto productDto) {
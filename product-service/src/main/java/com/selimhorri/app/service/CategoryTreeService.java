@@ -0,0 +1,16 @@
+package com.selimhorri.app.service;
+
+import java.util.List;
+
+import com.selimhorri.app.dto.CategoryDto;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
+
+public interface CategoryTreeService {
+	
+	List<CategoryDto> findTree();
+	List<CategoryDto> findDescendants(final Integer categoryId);
+	DtoKeysetPageResponse<ProductDto> findProductsInSubtree(final Integer categoryId, final Integer after, final int limit);
+	void refreshAfterCommit();
+	
+}
@@ -0,0 +1,13 @@
+package com.selimhorri.app.service;
+
+import java.io.Reader;
+
+import com.selimhorri.app.dto.ProductImportReportDto;
+
+public interface ProductImportService {
+	
+	enum Format { CSV, JSON_LINES }
+	
+	ProductImportReportDto importProducts(final Reader reader, final Format format);
+	
+}
@@ -0,0 +1,16 @@
+package com.selimhorri.app.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.selimhorri.app.dto.ProductDto;
+
+public interface ProductSearchService {
+	
+	List<ProductDto> search(final String query, final int limit);
+	void rebuild();
+	void refreshAfterCommit(final Integer productId);
+	void refreshCategoryAfterCommit(final Integer categoryId);
+	void refresh(final Collection<ProductDto> products);
+	
+}
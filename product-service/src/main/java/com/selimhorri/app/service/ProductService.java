@@ -1,16 +1,29 @@
 package com.selimhorri.app.service;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.StockLineDto;
+import com.selimhorri.app.dto.StockReservationDto;
+import com.selimhorri.app.dto.response.collection.DtoChangesResponse;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
 
 public interface ProductService {
 	
 	List<ProductDto> findAll();
+	DtoKeysetPageResponse<ProductDto> findPage(final Integer after, final int limit);
+	void streamAll(final Consumer<ProductDto> consumer);
+	DtoChangesResponse<ProductDto> findChanges(final Instant since, final Integer afterId, final int limit);
 	ProductDto findById(final Integer productId);
+	List<ProductDto> findAllByIds(final Collection<Integer> productIds);
 	ProductDto save(final ProductDto productDto);
 	ProductDto update(final ProductDto productDto);
 	ProductDto update(final Integer productId, final ProductDto productDto);
 	void deleteById(final Integer productId);
+	StockReservationDto reserve(final Collection<StockLineDto> lines);
+	StockReservationDto release(final Integer reservationId);
 	
 }
@@ -7,6 +7,7 @@ import javax.transaction.Transactional;
 
 import org.springframework.stereotype.Service;
 
+import com.selimhorri.app.config.cache.JsonResponseCache;
 import com.selimhorri.app.domain.Category;
 import com.selimhorri.app.dto.CategoryDto;
 import com.selimhorri.app.exception.ErrorCode;
@@ -15,9 +16,12 @@ import com.selimhorri.app.exception.custom.ForbiddenOperationException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.helper.CategoryMappingHelper;
+import com.selimhorri.app.helper.TransactionHelper;
 import com.selimhorri.app.repository.CategoryRepository;
 import com.selimhorri.app.repository.ProductRepository;
 import com.selimhorri.app.service.CategoryService;
+import com.selimhorri.app.service.ProductSearchService;
+import com.selimhorri.app.service.CategoryTreeService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +34,9 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductSearchService productSearchService;
+    private final JsonResponseCache jsonResponseCache;
 
     @Override
     public List<CategoryDto> findAll() {
@@ -68,8 +75,10 @@ public class CategoryServiceImpl implements CategoryService {
         categoryDto.setSubCategoriesDtos(null);
         categoryDto.setCategoryId(null);
 
-        return CategoryMappingHelper.map(
-                this.categoryRepository.save(CategoryMappingHelper.map(categoryDto)));
+        final Category savedCategory = this.categoryRepository.save(CategoryMappingHelper.map(categoryDto));
+        this.categoryTreeService.refreshAfterCommit();
+        TransactionHelper.afterCommit(this.jsonResponseCache::evictCategories);
+        return CategoryMappingHelper.map(savedCategory);
     }
 
     @Override
@@ -97,11 +106,21 @@ public class CategoryServiceImpl implements CategoryService {
             throw new DuplicateResourceException(ErrorCode.CATEGORY_TITLE_ALREADY_EXISTS, normalizedTitle);
         }
 
+        final boolean renamed = !normalizedTitle.equals(existingCategory.getCategoryTitle());
         existingCategory.setCategoryTitle(normalizedTitle);
         existingCategory.setParentCategory(null);
         existingCategory.setSubCategories(null);
 
-        return CategoryMappingHelper.map(this.categoryRepository.save(existingCategory));
+        final Category savedCategory = this.categoryRepository.save(existingCategory);
+        if (renamed) {
+            this.productRepository.touchProductsOfCategory(savedCategory.getCategoryId());
+        }
+        this.categoryTreeService.refreshAfterCommit();
+        // Category titles are searchable, so products of a renamed category are re-indexed
+        this.productSearchService.refreshCategoryAfterCommit(savedCategory.getCategoryId());
+        // Cached product JSON embeds the category title
+        TransactionHelper.afterCommit(this.jsonResponseCache::evictAll);
+        return CategoryMappingHelper.map(savedCategory);
     }
 
     @Override
@@ -129,11 +148,21 @@ public class CategoryServiceImpl implements CategoryService {
             throw new DuplicateResourceException(ErrorCode.CATEGORY_TITLE_ALREADY_EXISTS, normalizedTitle);
         }
 
+        final boolean renamed = !normalizedTitle.equals(existingCategory.getCategoryTitle());
         existingCategory.setCategoryTitle(normalizedTitle);
         existingCategory.setParentCategory(null);
         existingCategory.setSubCategories(null);
 
-        return CategoryMappingHelper.map(this.categoryRepository.save(existingCategory));
+        final Category savedCategory = this.categoryRepository.save(existingCategory);
+        if (renamed) {
+            this.productRepository.touchProductsOfCategory(savedCategory.getCategoryId());
+        }
+        this.categoryTreeService.refreshAfterCommit();
+        // Category titles are searchable, so products of a renamed category are re-indexed
+        this.productSearchService.refreshCategoryAfterCommit(savedCategory.getCategoryId());
+        // Cached product JSON embeds the category title
+        TransactionHelper.afterCommit(this.jsonResponseCache::evictAll);
+        return CategoryMappingHelper.map(savedCategory);
     }
 
     @Override
@@ -157,5 +186,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         this.productRepository.updateCategoryForProducts(categoryId, noCategory);
         this.categoryRepository.delete(category);
+        this.categoryTreeService.refreshAfterCommit();
+        this.productSearchService.refreshCategoryAfterCommit(noCategory.getCategoryId());
+        TransactionHelper.afterCommit(this.jsonResponseCache::evictAll);
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.dto.CategoryDto;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
+import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.InvalidInputException;
+import com.selimhorri.app.exception.custom.ResourceNotFoundException;
+import com.selimhorri.app.helper.ProductMappingHelper;
+import com.selimhorri.app.helper.TransactionHelper;
+import com.selimhorri.app.repository.CategoryRepository;
+import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.service.CategoryTreeService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves category navigation from an immutable snapshot that is swapped whole after every category mutation.
+ * Readers never lock: they see either the previous tree or the new one.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CategoryTreeServiceImpl implements CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+
+    private volatile CategoryTreeSnapshot snapshot;
+
+    @Override
+    public List<CategoryDto> findTree() {
+        log.info("Fetching category tree");
+        return this.snapshot().roots();
+    }
+
+    @Override
+    public List<CategoryDto> findDescendants(final Integer categoryId) {
+        log.info("Fetching descendants of category with id: {}", categoryId);
+        final CategoryTreeSnapshot current = this.snapshot();
+        if (!current.contains(categoryId)) {
+            throw new ResourceNotFoundException(ErrorCode.CATEGORY_NOT_FOUND, categoryId);
+        }
+        return current.descendants(categoryId);
+    }
+
+    @Override
+    public DtoKeysetPageResponse<ProductDto> findProductsInSubtree(final Integer categoryId, final Integer after,
+            final int limit) {
+        log.info("Fetching products in subtree of category: {} after id: {} with limit: {}", categoryId, after, limit);
+
+        if (limit < 1 || limit > AppConstant.MAX_PAGE_LIMIT) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "Limit must be between 1 and " + AppConstant.MAX_PAGE_LIMIT);
+        }
+
+        final List<Integer> categoryIds = this.snapshot().subtreeIds(categoryId);
+        if (categoryIds.isEmpty()) {
+            throw new ResourceNotFoundException(ErrorCode.CATEGORY_NOT_FOUND, categoryId);
+        }
+
+        // One extra row tells whether another page follows without a COUNT query
+        final List<ProductDto> rows = this.productRepository
+                .findPageByCategoryIdsWithoutDeleted(categoryIds, after == null ? 0 : after, PageRequest.of(0, limit + 1))
+                .stream()
+                .map(ProductMappingHelper::map)
+                .collect(Collectors.toList());
+
+        final boolean hasMore = rows.size() > limit;
+        final List<ProductDto> page = hasMore ? rows.subList(0, limit) : rows;
+
+        return DtoKeysetPageResponse.<ProductDto>builder()
+                .collection(List.copyOf(page))
+                .limit(limit)
+                .nextCursor(hasMore ? page.get(page.size() - 1).getProductId() : null)
+                .build();
+    }
+
+    @Override
+    public void refreshAfterCommit() {
+        TransactionHelper.afterCommit(this::rebuild);
+    }
+
+    private CategoryTreeSnapshot snapshot() {
+        final CategoryTreeSnapshot current = this.snapshot;
+        return current != null ? current : this.rebuild();
+    }
+
+    // Serialized so that the last rebuild to finish is also the one that read the newest rows
+    private synchronized CategoryTreeSnapshot rebuild() {
+        final CategoryTreeSnapshot rebuilt = CategoryTreeSnapshot.build(this.categoryRepository.findTreeRowsNonReserved());
+        this.snapshot = rebuilt;
+        log.info("Category tree rebuilt with {} categories", rebuilt.size());
+        return rebuilt;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.selimhorri.app.dto.CategoryDto;
+
+/**
+ * Immutable, array-backed view of the category tree.
+ * Nodes are laid out in pre-order so that every subtree is a contiguous slice of {@code order}.
+ */
+final class CategoryTreeSnapshot {
+
+	private final int[] ids;
+	private final int[] order;
+	private final int[] position;
+	private final int[] subtreeEnd;
+	private final CategoryDto[] flatDtos;
+	private final List<CategoryDto> roots;
+
+	private CategoryTreeSnapshot(final int[] ids, final int[] order, final int[] position, final int[] subtreeEnd,
+			final CategoryDto[] flatDtos, final List<CategoryDto> roots) {
+		this.ids = ids;
+		this.order = order;
+		this.position = position;
+		this.subtreeEnd = subtreeEnd;
+		this.flatDtos = flatDtos;
+		this.roots = roots;
+	}
+
+	/**
+	 * @param rows (categoryId, parentCategoryId, categoryTitle, imageUrl) tuples
+	 */
+	static CategoryTreeSnapshot build(final List<Object[]> rows) {
+
+		final Object[][] sorted = rows.toArray(new Object[0][]);
+		Arrays.sort(sorted, Comparator.comparingInt(row -> (Integer) row[0]));
+		final int n = sorted.length;
+
+		final int[] ids = new int[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = (Integer) sorted[i][0];
+
+		// Parent pointers and child adjacency (CSR); a parent outside the snapshot makes the node a root
+		final int[] parent = new int[n];
+		final int[] childStart = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			final Integer parentId = (Integer) sorted[i][1];
+			final int p = parentId == null ? -1 : Arrays.binarySearch(ids, parentId);
+			parent[i] = p < 0 || p == i ? -1 : p;
+			if (parent[i] >= 0)
+				childStart[parent[i] + 1]++;
+		}
+		for (int i = 0; i < n; i++)
+			childStart[i + 1] += childStart[i];
+		final int[] children = new int[childStart[n]];
+		final int[] fill = Arrays.copyOf(childStart, n);
+		for (int i = 0; i < n; i++)
+			if (parent[i] >= 0)
+				children[fill[parent[i]]++] = i;
+
+		// Iterative pre-order walk from the roots; nodes caught in a parent cycle are never reached and dropped
+		final int[] order = new int[n];
+		final int[] position = new int[n];
+		Arrays.fill(position, -1);
+		final int[] stack = new int[n];
+		int size = 0;
+		int top = 0;
+		for (int r = n - 1; r >= 0; r--)
+			if (parent[r] < 0)
+				stack[top++] = r;
+		while (top > 0) {
+			final int node = stack[--top];
+			position[node] = size;
+			order[size++] = node;
+			for (int c = childStart[node + 1] - 1; c >= childStart[node]; c--)
+				stack[top++] = children[c];
+		}
+
+		// Walking the pre-order backwards visits children before parents: subtree sizes and nested DTOs
+		final int[] subtreeEnd = new int[n];
+		final CategoryDto[] flatDtos = new CategoryDto[n];
+		final CategoryDto[] treeDtos = new CategoryDto[n];
+		for (int k = size - 1; k >= 0; k--) {
+			final int node = order[k];
+			int end = k + 1;
+			Set<CategoryDto> subCategories = null;
+			if (childStart[node + 1] > childStart[node]) {
+				subCategories = new LinkedHashSet<>();
+				for (int c = childStart[node]; c < childStart[node + 1]; c++) {
+					subCategories.add(treeDtos[children[c]]);
+					end = Math.max(end, subtreeEnd[children[c]]);
+				}
+				subCategories = Collections.unmodifiableSet(subCategories);
+			}
+			subtreeEnd[node] = end;
+			flatDtos[node] = dto(sorted[node], null);
+			treeDtos[node] = dto(sorted[node], subCategories);
+		}
+
+		final List<CategoryDto> roots = new ArrayList<>();
+		for (int k = 0; k < size; k++)
+			if (parent[order[k]] < 0)
+				roots.add(treeDtos[order[k]]);
+
+		return new CategoryTreeSnapshot(ids, Arrays.copyOf(order, size), position, subtreeEnd, flatDtos,
+				Collections.unmodifiableList(roots));
+	}
+
+	List<CategoryDto> roots() {
+		return this.roots;
+	}
+
+	boolean contains(final Integer categoryId) {
+		return this.indexOf(categoryId) >= 0;
+	}
+
+	/**
+	 * Descendants in pre-order, excluding the category itself; empty when the category is unknown.
+	 */
+	List<CategoryDto> descendants(final Integer categoryId) {
+		final int node = this.indexOf(categoryId);
+		if (node < 0)
+			return List.of();
+		final List<CategoryDto> descendants = new ArrayList<>(this.subtreeEnd[node] - this.position[node] - 1);
+		for (int k = this.position[node] + 1; k < this.subtreeEnd[node]; k++)
+			descendants.add(this.flatDtos[this.order[k]]);
+		return Collections.unmodifiableList(descendants);
+	}
+
+	/**
+	 * Ids of the category and all of its descendants; empty when the category is unknown.
+	 */
+	List<Integer> subtreeIds(final Integer categoryId) {
+		final int node = this.indexOf(categoryId);
+		if (node < 0)
+			return List.of();
+		final List<Integer> subtreeIds = new ArrayList<>(this.subtreeEnd[node] - this.position[node]);
+		for (int k = this.position[node]; k < this.subtreeEnd[node]; k++)
+			subtreeIds.add(this.ids[this.order[k]]);
+		return Collections.unmodifiableList(subtreeIds);
+	}
+
+	int size() {
+		return this.order.length;
+	}
+
+	private int indexOf(final Integer categoryId) {
+		if (categoryId == null)
+			return -1;
+		final int index = Arrays.binarySearch(this.ids, categoryId);
+		return index >= 0 && this.position[index] >= 0 ? index : -1;
+	}
+
+	private static CategoryDto dto(final Object[] row, final Set<CategoryDto> subCategories) {
+		return CategoryDto.builder()
+				.categoryId((Integer) row[0])
+				.categoryTitle((String) row[2])
+				.imageUrl((String) row[3])
+				.subCategoriesDtos(subCategories)
+				.build();
+	}
+
+}
@@ -0,0 +1,356 @@
+package com.selimhorri.app.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.selimhorri.app.config.cache.JsonResponseCache;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.Category;
+import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.dto.CategoryDto;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.ProductImportErrorDto;
+import com.selimhorri.app.dto.ProductImportReportDto;
+import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.InvalidInputException;
+import com.selimhorri.app.helper.CsvHelper;
+import com.selimhorri.app.helper.ProductMappingHelper;
+import com.selimhorri.app.repository.CategoryRepository;
+import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.service.ProductImportService;
+import com.selimhorri.app.service.ProductSearchService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads products line by line and upserts them by SKU in JDBC batches, one transaction per batch.
+ * A bad line is reported and skipped; it never rolls back the lines around it.
+ * An imported SKU that was soft deleted is brought back to life.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "sku", "productTitle", "imageUrl", "priceUnit", "quantity", "categoryId");
+
+    private static final String INSERT_SQL = "INSERT INTO products "
+            + "(category_id, product_title, image_url, sku, price_unit, quantity, is_deleted, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)";
+
+    private static final String UPDATE_SQL = "UPDATE products SET category_id = ?, product_title = ?, image_url = ?, "
+            + "price_unit = ?, quantity = ?, is_deleted = FALSE, deleted_at = NULL, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE sku = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchService productSearchService;
+    private final JsonResponseCache jsonResponseCache;
+    private final ObjectReader productReader;
+    private final int batchSize;
+
+    public ProductImportServiceImpl(final JdbcTemplate jdbcTemplate, final TransactionOperations transactionOperations,
+            final ProductRepository productRepository, final CategoryRepository categoryRepository,
+            final ProductSearchService productSearchService, final JsonResponseCache jsonResponseCache,
+            final ObjectMapper objectMapper, @Value("${app.product-import.batch-size:1000}") final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.product-import.batch-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productSearchService = productSearchService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.productReader = objectMapper.readerFor(ProductDto.class);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ProductImportReportDto importProducts(final Reader reader, final Format format) {
+        log.info("Importing products as {} in batches of {}", format, this.batchSize);
+        final long startedAt = System.nanoTime();
+
+        // Every line is checked against this set instead of one category lookup per product
+        final Set<Integer> categoryIds = this.categoryRepository.findAllNonReserved()
+                .stream()
+                .map(Category::getCategoryId)
+                .collect(Collectors.toUnmodifiableSet());
+
+        final Report report = new Report();
+        final Map<String, ImportLine> batch = new LinkedHashMap<>();
+        final BufferedReader lines = new BufferedReader(reader, 1 << 16);
+        try {
+            Map<String, Integer> columns = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && columns == null) {
+                    columns = csvColumns(line);
+                    continue;
+                }
+
+                report.processed++;
+                final ProductDto product;
+                try {
+                    product = format == Format.CSV ? fromCsv(line, columns) : this.fromJson(line);
+                    validate(product, categoryIds);
+                }
+                catch (final IllegalArgumentException e) {
+                    report.reject(lineNumber, null, e.getMessage());
+                    continue;
+                }
+
+                // A SKU repeated within the load keeps its last line
+                batch.remove(product.getSku());
+                batch.put(product.getSku(), new ImportLine(lineNumber, product));
+                if (batch.size() >= this.batchSize) {
+                    this.flush(batch, report);
+                }
+            }
+        }
+        catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            // Whatever was read before a broken stream still gets written
+            this.flush(batch, report);
+        }
+
+        log.info("Imported products in {} ms: {} processed, {} inserted, {} updated, {} failed",
+                (System.nanoTime() - startedAt) / 1_000_000, report.processed, report.inserted, report.updated,
+                report.failed);
+        return report.toDto();
+    }
+
+    private void flush(final Map<String, ImportLine> batch, final Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final List<ImportLine> lines = new ArrayList<>(batch.values());
+        batch.clear();
+
+        try {
+            final int[] counts = this.transactionOperations.execute(status -> this.upsert(lines));
+            report.inserted += counts[0];
+            report.updated += counts[1];
+        }
+        catch (final DataAccessException e) {
+            // One bad row fails the whole batch statement; replay the batch row by row to find it
+            log.warn("Import batch of {} lines failed, retrying line by line: {}", lines.size(),
+                    e.getMostSpecificCause().getMessage());
+            final List<ImportLine> written = new ArrayList<>(lines.size());
+            for (final ImportLine line : lines) {
+                try {
+                    final int[] counts = this.transactionOperations.execute(status -> this.upsert(List.of(line)));
+                    report.inserted += counts[0];
+                    report.updated += counts[1];
+                    written.add(line);
+                }
+                catch (final DataAccessException rowFailure) {
+                    report.reject(line.number, line.product.getSku(), rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+            this.refresh(written);
+            return;
+        }
+        this.refresh(lines);
+    }
+
+    /**
+     * @return the number of inserted and updated rows
+     */
+    private int[] upsert(final List<ImportLine> lines) {
+        final List<String> skus = lines.stream().map(line -> line.product.getSku()).collect(Collectors.toList());
+        final Set<String> existing = new HashSet<>(this.productRepository.findExistingSkus(skus));
+
+        final List<ProductDto> inserts = new ArrayList<>();
+        final List<ProductDto> updates = new ArrayList<>();
+        lines.forEach(line -> (existing.contains(line.product.getSku()) ? updates : inserts).add(line.product));
+
+        if (!inserts.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, product) -> {
+                ps.setInt(1, product.getCategoryDto().getCategoryId());
+                ps.setString(2, product.getProductTitle());
+                ps.setString(3, product.getImageUrl());
+                ps.setString(4, product.getSku());
+                ps.setDouble(5, product.getPriceUnit());
+                ps.setInt(6, product.getQuantity());
+            });
+        }
+        if (!updates.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, product) -> {
+                ps.setInt(1, product.getCategoryDto().getCategoryId());
+                ps.setString(2, product.getProductTitle());
+                ps.setString(3, product.getImageUrl());
+                ps.setDouble(4, product.getPriceUnit());
+                ps.setInt(5, product.getQuantity());
+                ps.setString(6, product.getSku());
+            });
+        }
+        return new int[] { inserts.size(), updates.size() };
+    }
+
+    // Runs once the batch has committed, so the in-memory views never show rows that were rolled back
+    private void refresh(final List<ImportLine> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        final List<Product> products = this.productRepository.findAllBySkusWithoutDeleted(
+                lines.stream().map(line -> line.product.getSku()).collect(Collectors.toList()));
+        this.productSearchService.refresh(products.stream()
+                .map(ProductMappingHelper::map)
+                .collect(Collectors.toList()));
+        products.forEach(product -> this.jsonResponseCache.evictProduct(product.getProductId()));
+    }
+
+    private static Map<String, Integer> csvColumns(final String header) {
+        final List<String> names = CsvHelper.parseLine(header);
+        final Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i), i);
+        }
+        for (final String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new InvalidInputException(ErrorCode.INVALID_FORMAT,
+                        "CSV header must contain the columns " + String.join(",", CSV_COLUMNS));
+            }
+        }
+        return columns;
+    }
+
+    private static ProductDto fromCsv(final String line, final Map<String, Integer> columns) {
+        final List<String> fields = CsvHelper.parseLine(line);
+        try {
+            final String categoryId = field(fields, columns, "categoryId");
+            final String priceUnit = field(fields, columns, "priceUnit");
+            final String quantity = field(fields, columns, "quantity");
+            return ProductDto.builder()
+                    .sku(field(fields, columns, "sku"))
+                    .productTitle(field(fields, columns, "productTitle"))
+                    .imageUrl(field(fields, columns, "imageUrl"))
+                    .priceUnit(priceUnit == null ? null : Double.valueOf(priceUnit))
+                    .quantity(quantity == null ? null : Integer.valueOf(quantity))
+                    .categoryDto(categoryId == null ? null
+                            : CategoryDto.builder().categoryId(Integer.valueOf(categoryId)).build())
+                    .build();
+        }
+        catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed number: " + e.getMessage());
+        }
+    }
+
+    private static String field(final List<String> fields, final Map<String, Integer> columns, final String column) {
+        final int at = columns.get(column);
+        return at < fields.size() && !fields.get(at).isEmpty() ? fields.get(at) : null;
+    }
+
+    private ProductDto fromJson(final String line) {
+        final ProductDto product;
+        try {
+            product = this.productReader.readValue(line);
+        }
+        catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (product == null) {
+            throw new IllegalArgumentException("Record must be a JSON object");
+        }
+        return product;
+    }
+
+    // Same rules as ProductService.save, reported per line instead of thrown
+    private static void validate(final ProductDto product, final Set<Integer> categoryIds) {
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            throw new IllegalArgumentException("SKU is required");
+        }
+        if (product.getProductTitle() == null || product.getProductTitle().isEmpty()) {
+            throw new IllegalArgumentException("Product title is required");
+        }
+        if (product.getImageUrl() == null || product.getImageUrl().isEmpty()) {
+            throw new IllegalArgumentException("Image URL is required");
+        }
+        if (product.getPriceUnit() == null || product.getPriceUnit() < 0) {
+            throw new IllegalArgumentException("Price unit is required and cannot be negative");
+        }
+        if (product.getQuantity() == null || product.getQuantity() < 0) {
+            throw new IllegalArgumentException("Quantity is required and cannot be negative");
+        }
+        if (product.getCategoryDto() == null || product.getCategoryDto().getCategoryId() == null) {
+            throw new IllegalArgumentException("Category is required");
+        }
+        if (!categoryIds.contains(product.getCategoryDto().getCategoryId())) {
+            throw new IllegalArgumentException(
+                    ErrorCode.CATEGORY_NOT_FOUND.formatMessage(product.getCategoryDto().getCategoryId()));
+        }
+    }
+
+    private static final class ImportLine {
+
+        private final long number;
+        private final ProductDto product;
+
+        ImportLine(final long number, final ProductDto product) {
+            this.number = number;
+            this.product = product;
+        }
+
+    }
+
+    private static final class Report {
+
+        private final List<ProductImportErrorDto> errors = new ArrayList<>();
+        private long processed;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        void reject(final long line, final String sku, final String message) {
+            this.failed++;
+            if (this.errors.size() < AppConstant.MAX_IMPORT_ERRORS) {
+                this.errors.add(ProductImportErrorDto.builder()
+                        .line(line)
+                        .sku(sku)
+                        .message(message)
+                        .build());
+            }
+        }
+
+        ProductImportReportDto toDto() {
+            return ProductImportReportDto.builder()
+                    .processed(this.processed)
+                    .inserted(this.inserted)
+                    .updated(this.updated)
+                    .failed(this.failed)
+                    .errors(List.copyOf(this.errors))
+                    .build();
+        }
+
+    }
+
+}
@@ -0,0 +1,607 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import com.selimhorri.app.dto.ProductDto;
+
+/**
+ * In-process inverted index over product title, SKU and category title.
+ * Every term maps to a sorted posting list of product ids, each carrying a bit mask of the fields it occurs in,
+ * and the same ids split into impact tiers by their best field (title, SKU, category).
+ * Queries are conjunctive; the last query term also matches as a prefix (type-ahead).
+ * Tiers are scored in descending order of the best score they could reach, from the rarest exact term's side and
+ * from the prefix completions' side in turn, and the scan stops as soon as either side has no tier left that could
+ * enter the current top-k, so the result is the exact top-k by score.
+ */
+final class ProductSearchIndex {
+
+	static final byte TITLE = 1;
+	static final byte SKU = 2;
+	static final byte CATEGORY = 4;
+
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final double PREFIX_PENALTY = 0.8;
+	private static final double[] TIER_WEIGHTS = { 3, 2, 1 };
+	private static final int RANKED_PREFIX_LENGTH = 3;
+	// Bounds and scores sum the same idf terms in different orders
+	private static final double EPSILON = 1e-9;
+
+	private final NavigableMap<String, Postings> postings = new TreeMap<>();
+	// Terms by their first one to RANKED_PREFIX_LENGTH characters and by tier, rarest first, so short prefixes need not expand every completion
+	private final Map<String, List<NavigableSet<Postings>>> ranked = new HashMap<>();
+	private final Map<Integer, Document> documents = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final int maxCandidates;
+
+	ProductSearchIndex(final int maxCandidates) {
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * Adds or replaces the product.
+	 */
+	void put(final ProductDto product) {
+		this.write(product, true);
+	}
+
+	/**
+	 * Adds the product unless a newer version was already put; used by the bulk load.
+	 */
+	void putIfAbsent(final ProductDto product) {
+		this.write(product, false);
+	}
+
+	void remove(final Integer productId) {
+		this.lock.writeLock().lock();
+		try {
+			this.unlink(productId);
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.documents.size();
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	List<ProductDto> search(final String query, final int limit) {
+		final String[] terms = tokenize(query);
+		if (terms.length == 0)
+			return List.of();
+
+		final String prefix = terms[terms.length - 1];
+		final String[] exactTerms = Arrays.copyOf(terms, terms.length - 1);
+
+		this.lock.readLock().lock();
+		try {
+			final int total = Math.max(1, this.documents.size());
+			final Postings[] exact = new Postings[exactTerms.length];
+			for (int i = 0; i < exactTerms.length; i++) {
+				exact[i] = this.postings.get(exactTerms[i]);
+				if (exact[i] == null)
+					return List.of();
+			}
+
+			double exactBound = 0;
+			for (final Postings p : exact)
+				exactBound += idf(p.size, total) * TIER_WEIGHTS[0];
+			// The prefix as a whole term is not penalised; its tiers are queued up front, the others stream in best first
+			final Postings whole = this.postings.get(prefix);
+			final List<Block> wholeBlocks = new ArrayList<>(TIER_WEIGHTS.length);
+			if (whole != null)
+				for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+					if (whole.tiers[tier].size > 0)
+						wholeBlocks.add(new Block(whole.tiers[tier], exactBound + idf(whole.size, total) * TIER_WEIGHTS[tier]));
+			final Completions completions = new Completions(whole, this.rarestCompletions(prefix), exactBound, total);
+			if (wholeBlocks.isEmpty() && !completions.hasNext())
+				return List.of();
+
+			// Both sides cover every match, so either one running out of reach settles the top-k;
+			// a rare exact term settles it from its own postings, a varied prefix from its rarest completions
+			final List<Cursor> sides = new ArrayList<>(2);
+			double prefixBound = completions.hasNext() ? completions.nextBound() - exactBound : 0;
+			for (final Block block : wholeBlocks)
+				prefixBound = Math.max(prefixBound, block.bound - exactBound);
+			sides.add(new Cursor(wholeBlocks, completions));
+			if (exact.length > 0) {
+				Postings driver = exact[0];
+				for (final Postings p : exact)
+					if (p.size < driver.size)
+						driver = p;
+				double others = prefixBound;
+				for (final Postings p : exact)
+					if (p != driver)
+						others += idf(p.size, total) * TIER_WEIGHTS[0];
+				final List<Block> driverBlocks = new ArrayList<>(TIER_WEIGHTS.length);
+				for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+					if (driver.tiers[tier].size > 0)
+						driverBlocks.add(new Block(driver.tiers[tier], idf(driver.size, total) * TIER_WEIGHTS[tier] + others));
+				sides.add(new Cursor(driverBlocks, null));
+			}
+
+			final PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+			final Set<Integer> scored = new HashSet<>();
+			final Candidates candidates = new Candidates(this.maxCandidates);
+			while (candidates.take()) {
+				// Advance the side that has done the least work, so a query costs at most twice its cheaper side
+				Cursor side = sides.get(0);
+				for (final Cursor other : sides)
+					if (other.scanned < side.scanned)
+						side = other;
+				final int productId = side.next(top, limit);
+				if (productId < 0)
+					break;
+				if (scored.add(productId))
+					this.score(productId, exact, prefix, total, top, limit);
+			}
+
+			final List<ProductDto> results = new ArrayList<>(top.size());
+			while (!top.isEmpty())
+				results.add(top.poll().product);
+			Collections.reverse(results);
+			return results;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	static String[] tokenize(final String text) {
+		if (text == null || text.isBlank())
+			return new String[0];
+		return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+				.filter(term -> !term.isEmpty())
+				.toArray(String[]::new);
+	}
+
+	private void score(final int productId, final Postings[] exact, final String prefix, final int total,
+			final PriorityQueue<Hit> top, final int limit) {
+		double score = 0;
+		for (final Postings p : exact) {
+			final int at = p.indexOf(productId);
+			if (at < 0)
+				return;
+			score += idf(p.size, total) * weight(p.masks[at]);
+		}
+
+		final Document document = this.documents.get(productId);
+		if (document == null)
+			return;
+
+		// Best completion of the prefix among the product's own terms
+		double best = -1;
+		for (int i = 0; i < document.terms.length; i++) {
+			final String term = document.terms[i];
+			if (!term.startsWith(prefix))
+				continue;
+			final Postings p = this.postings.get(term);
+			final double candidate = idf(p.size, total) * weight(document.masks[i])
+					* (term.length() == prefix.length() ? 1 : PREFIX_PENALTY);
+			best = Math.max(best, candidate);
+		}
+		if (best < 0)
+			return;
+
+		final Hit hit = new Hit(productId, score + best, document.product);
+		if (top.size() < limit) {
+			top.add(hit);
+		}
+		else if (Hit.WORST_FIRST.compare(hit, top.peek()) > 0) {
+			top.poll();
+			top.add(hit);
+		}
+	}
+
+	/**
+	 * Per impact tier, the terms that extend the prefix and occur in that tier, rarest (best scoring) first.
+	 * Short prefixes read the maintained ranking, longer ones have few enough completions to sort per query.
+	 */
+	private List<Iterator<Postings>> rarestCompletions(final String prefix) {
+		final List<Iterator<Postings>> tiers = new ArrayList<>(TIER_WEIGHTS.length);
+		if (prefix.length() <= RANKED_PREFIX_LENGTH) {
+			final List<NavigableSet<Postings>> ranking = this.ranked.get(prefix);
+			for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+				tiers.add(ranking == null ? Collections.emptyIterator() : ranking.get(tier).iterator());
+			return tiers;
+		}
+		final List<Postings> completions = new ArrayList<>(
+				this.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+		completions.sort(Postings.RAREST_FIRST);
+		for (int tier = 0; tier < TIER_WEIGHTS.length; tier++) {
+			final int t = tier;
+			tiers.add(completions.stream().filter(p -> p.tiers[t].size > 0).iterator());
+		}
+		return tiers;
+	}
+
+	private void rank(final Postings p) {
+		for (int length = 1; length <= Math.min(RANKED_PREFIX_LENGTH, p.term.length()); length++) {
+			final List<NavigableSet<Postings>> ranking = this.ranked.computeIfAbsent(p.term.substring(0, length), key -> {
+				final List<NavigableSet<Postings>> tiers = new ArrayList<>(TIER_WEIGHTS.length);
+				for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+					tiers.add(new TreeSet<>(Postings.RAREST_FIRST));
+				return tiers;
+			});
+			for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+				if (p.tiers[tier].size > 0)
+					ranking.get(tier).add(p);
+		}
+	}
+
+	private void unrank(final Postings p) {
+		for (int length = 1; length <= Math.min(RANKED_PREFIX_LENGTH, p.term.length()); length++) {
+			final String key = p.term.substring(0, length);
+			final List<NavigableSet<Postings>> ranking = this.ranked.get(key);
+			if (ranking == null)
+				continue;
+			ranking.forEach(terms -> terms.remove(p));
+			if (ranking.stream().allMatch(NavigableSet::isEmpty))
+				this.ranked.remove(key);
+		}
+	}
+
+	private void write(final ProductDto product, final boolean replace) {
+		final Integer productId = product.getProductId();
+		final Map<String, Byte> fields = new LinkedHashMap<>();
+		collect(fields, product.getProductTitle(), TITLE);
+		collect(fields, product.getSku(), SKU);
+		if (product.getSku() != null) {
+			// Also index the SKU without separators so "AB-12" matches "ab12"
+			final String compactSku = String.join("", tokenize(product.getSku()));
+			if (!compactSku.isEmpty())
+				fields.merge(compactSku, SKU, (a, b) -> (byte) (a | b));
+		}
+		if (product.getCategoryDto() != null)
+			collect(fields, product.getCategoryDto().getCategoryTitle(), CATEGORY);
+
+		final String[] terms = fields.keySet().toArray(new String[0]);
+		final byte[] masks = new byte[terms.length];
+		for (int i = 0; i < terms.length; i++)
+			masks[i] = fields.get(terms[i]);
+
+		this.lock.writeLock().lock();
+		try {
+			if (this.documents.containsKey(productId)) {
+				if (!replace)
+					return;
+				this.unlink(productId);
+			}
+			this.documents.put(productId, new Document(product, terms, masks));
+			for (int i = 0; i < terms.length; i++) {
+				// The ranking orders by document frequency, so re-rank the term around the change
+				final Postings p = this.postings.computeIfAbsent(terms[i], Postings::new);
+				this.unrank(p);
+				p.add(productId, masks[i]);
+				this.rank(p);
+			}
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private void unlink(final Integer productId) {
+		final Document previous = this.documents.remove(productId);
+		if (previous == null)
+			return;
+		for (final String term : previous.terms) {
+			final Postings p = this.postings.get(term);
+			if (p == null)
+				continue;
+			this.unrank(p);
+			p.remove(productId);
+			if (p.size == 0)
+				this.postings.remove(term);
+			else
+				this.rank(p);
+		}
+	}
+
+	private static void collect(final Map<String, Byte> fields, final String text, final byte field) {
+		for (final String term : tokenize(text))
+			fields.merge(term, field, (a, b) -> (byte) (a | b));
+	}
+
+	private static double idf(final int documentFrequency, final int total) {
+		return Math.log(1 + (double) total / documentFrequency);
+	}
+
+	private static double weight(final byte mask) {
+		return TIER_WEIGHTS[tier(mask)];
+	}
+
+	private static int tier(final byte mask) {
+		if ((mask & TITLE) != 0)
+			return 0;
+		if ((mask & SKU) != 0)
+			return 1;
+		return 2;
+	}
+
+	/**
+	 * Sorted product ids of one term with a parallel array of field masks, plus the same ids by impact tier.
+	 */
+	private static final class Postings {
+
+		static final Comparator<Postings> RAREST_FIRST = Comparator.<Postings>comparingInt(p -> p.size)
+				.thenComparing(p -> p.term);
+
+		private final String term;
+		private int[] docs = new int[4];
+		private byte[] masks = new byte[4];
+		private int size;
+		private final SortedIds[] tiers = { new SortedIds(), new SortedIds(), new SortedIds() };
+
+		Postings(final String term) {
+			this.term = term;
+		}
+
+		void add(final int productId, final byte mask) {
+			int at = this.indexOf(productId);
+			if (at >= 0) {
+				this.tiers[tier(this.masks[at])].remove(productId);
+				this.tiers[tier(mask)].add(productId);
+				this.masks[at] = mask;
+				return;
+			}
+			this.tiers[tier(mask)].add(productId);
+			at = -at - 1;
+			if (this.size == this.docs.length) {
+				this.docs = Arrays.copyOf(this.docs, this.size * 2);
+				this.masks = Arrays.copyOf(this.masks, this.size * 2);
+			}
+			System.arraycopy(this.docs, at, this.docs, at + 1, this.size - at);
+			System.arraycopy(this.masks, at, this.masks, at + 1, this.size - at);
+			this.docs[at] = productId;
+			this.masks[at] = mask;
+			this.size++;
+		}
+
+		boolean remove(final int productId) {
+			final int at = this.indexOf(productId);
+			if (at < 0)
+				return false;
+			this.tiers[tier(this.masks[at])].remove(productId);
+			System.arraycopy(this.docs, at + 1, this.docs, at, this.size - at - 1);
+			System.arraycopy(this.masks, at + 1, this.masks, at, this.size - at - 1);
+			this.size--;
+			return true;
+		}
+
+		int indexOf(final int productId) {
+			return Arrays.binarySearch(this.docs, 0, this.size, productId);
+		}
+
+	}
+
+	private static final class SortedIds {
+
+		private int[] values = new int[4];
+		private int size;
+
+		void add(final int productId) {
+			int at = Arrays.binarySearch(this.values, 0, this.size, productId);
+			if (at >= 0)
+				return;
+			at = -at - 1;
+			if (this.size == this.values.length)
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			System.arraycopy(this.values, at, this.values, at + 1, this.size - at);
+			this.values[at] = productId;
+			this.size++;
+		}
+
+		void remove(final int productId) {
+			final int at = Arrays.binarySearch(this.values, 0, this.size, productId);
+			if (at < 0)
+				return;
+			System.arraycopy(this.values, at + 1, this.values, at, this.size - at - 1);
+			this.size--;
+		}
+
+	}
+
+	/**
+	 * One impact tier of one term, with the best score any of its products can reach.
+	 */
+	private static final class Block {
+
+		static final Comparator<Block> BEST_FIRST = Comparator.<Block>comparingDouble(block -> block.bound).reversed();
+
+		private final SortedIds ids;
+		private final double bound;
+
+		Block(final SortedIds ids, final double bound) {
+			this.ids = ids;
+			this.bound = bound;
+		}
+
+	}
+
+	/**
+	 * Walks one side's blocks best bound first and stops once no posting left on that side can enter the top-k.
+	 */
+	private static final class Cursor {
+
+		private final PriorityQueue<Block> blocks;
+		private final Completions completions;
+		private Block block;
+		private int at;
+		private int scanned;
+
+		Cursor(final List<Block> blocks, final Completions completions) {
+			this.blocks = new PriorityQueue<>(Math.max(1, blocks.size()), Block.BEST_FIRST);
+			this.blocks.addAll(blocks);
+			this.completions = completions;
+		}
+
+		/**
+		 * The next product id worth scoring, or -1 once the rest of this side is out of reach.
+		 */
+		int next(final PriorityQueue<Hit> top, final int limit) {
+			while (true) {
+				if (this.block == null || this.at == this.block.ids.size) {
+					// Completions arrive best first, so only those that could outrank the queued blocks are expanded
+					while (this.completions != null && this.completions.hasNext()
+							&& (this.blocks.isEmpty() || this.completions.nextBound() >= this.blocks.peek().bound))
+						this.completions.expand(this.blocks);
+					this.block = this.blocks.poll();
+					this.at = 0;
+					if (this.block == null)
+						return -1;
+				}
+				final int productId = this.block.ids.values[this.at];
+				if (top.size() == limit) {
+					final Hit worst = top.peek();
+					if (this.block.bound < worst.score - EPSILON)
+						return -1;
+					// Ties on score go to the lower id and ids ascend within a block, so the rest of it can only tie and lose
+					if (this.block.bound <= worst.score + EPSILON && productId > worst.productId) {
+						this.at = this.block.ids.size;
+						continue;
+					}
+				}
+				this.at++;
+				this.scanned++;
+				return productId;
+			}
+		}
+
+	}
+
+	/**
+	 * The prefix completions other than the prefix itself, one tier block at a time in descending order of the best
+	 * score it can add: a merge of the per-tier rarest-first streams.
+	 */
+	private static final class Completions {
+
+		private final Postings whole;
+		private final List<Iterator<Postings>> tiers;
+		private final Postings[] heads = new Postings[TIER_WEIGHTS.length];
+		private final double exactBound;
+		private final int total;
+
+		Completions(final Postings whole, final List<Iterator<Postings>> tiers, final double exactBound, final int total) {
+			this.whole = whole;
+			this.tiers = tiers;
+			this.exactBound = exactBound;
+			this.total = total;
+			for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+				this.heads[tier] = this.poll(tier);
+		}
+
+		boolean hasNext() {
+			return this.best() >= 0;
+		}
+
+		double nextBound() {
+			return this.bound(this.best());
+		}
+
+		void expand(final PriorityQueue<Block> blocks) {
+			final int tier = this.best();
+			blocks.add(new Block(this.heads[tier].tiers[tier], this.bound(tier)));
+			this.heads[tier] = this.poll(tier);
+		}
+
+		private int best() {
+			int best = -1;
+			for (int tier = 0; tier < TIER_WEIGHTS.length; tier++)
+				if (this.heads[tier] != null && (best < 0 || this.bound(tier) > this.bound(best)))
+					best = tier;
+			return best;
+		}
+
+		private double bound(final int tier) {
+			return this.exactBound + idf(this.heads[tier].size, this.total) * TIER_WEIGHTS[tier] * PREFIX_PENALTY;
+		}
+
+		private Postings poll(final int tier) {
+			final Iterator<Postings> terms = this.tiers.get(tier);
+			while (terms.hasNext()) {
+				final Postings p = terms.next();
+				if (p != this.whole)
+					return p;
+			}
+			return null;
+		}
+
+	}
+
+	private static final class Document {
+
+		private final ProductDto product;
+		private final String[] terms;
+		private final byte[] masks;
+
+		Document(final ProductDto product, final String[] terms, final byte[] masks) {
+			this.product = product;
+			this.terms = terms;
+			this.masks = masks;
+		}
+
+	}
+
+	private static final class Hit {
+
+		// Lower score first; on equal scores the higher id is worse so results stay stable
+		static final Comparator<Hit> WORST_FIRST = Comparator.<Hit>comparingDouble(hit -> hit.score)
+				.thenComparing(hit -> hit.productId, Comparator.reverseOrder());
+
+		private final int productId;
+		private final double score;
+		private final ProductDto product;
+
+		Hit(final int productId, final double score, final ProductDto product) {
+			this.productId = productId;
+			this.score = score;
+			this.product = product;
+		}
+
+	}
+
+	/**
+	 * Bounds the number of postings scored per query, a safety net for queries whose top-k cannot be settled early
+	 * (e.g. thousands of equal scores). Tiers are visited best bound first, so what it cuts are the weakest candidates.
+	 */
+	private static final class Candidates {
+
+		private int remaining;
+
+		Candidates(final int budget) {
+			this.remaining = budget;
+		}
+
+		boolean take() {
+			return this.remaining-- > 0;
+		}
+
+	}
+
+}
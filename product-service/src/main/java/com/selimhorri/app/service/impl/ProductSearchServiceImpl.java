@@ -0,0 +1,110 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.InvalidInputException;
+import com.selimhorri.app.helper.ProductMappingHelper;
+import com.selimhorri.app.helper.TransactionHelper;
+import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.service.ProductSearchService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps an in-process inverted index of the catalog: loaded once at startup,
+ * then refreshed per product after each committed write.
+ */
+@Service
+@Slf4j
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ProductSearchIndex index;
+
+    public ProductSearchServiceImpl(final ProductRepository productRepository, final EntityManager entityManager,
+            @Value("${app.search.max-candidates:20000}") final int maxCandidates) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.index = new ProductSearchIndex(maxCandidates);
+    }
+
+    @Override
+    public List<ProductDto> search(final String query, final int limit) {
+        log.info("Searching products for: {} with limit: {}", query, limit);
+
+        if (query == null || query.isBlank()) {
+            throw new InvalidInputException(ErrorCode.MISSING_REQUIRED_FIELD, "Search query is required");
+        }
+
+        if (limit < 1 || limit > AppConstant.MAX_SEARCH_LIMIT) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "Limit must be between 1 and " + AppConstant.MAX_SEARCH_LIMIT);
+        }
+
+        return this.index.search(query, limit);
+    }
+
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.info("Building product search index");
+        try (Stream<Product> products = this.productRepository.streamAllWithoutDeleted()) {
+            products.forEach(product -> {
+                // A product written since startup is already indexed with its newer version
+                this.index.putIfAbsent(ProductMappingHelper.map(product));
+                this.entityManager.detach(product);
+            });
+        }
+        log.info("Product search index built with {} products", this.index.size());
+    }
+
+    @Override
+    public void refreshAfterCommit(final Integer productId) {
+        TransactionHelper.afterCommit(() -> this.refresh(productId));
+    }
+
+    @Override
+    public void refreshCategoryAfterCommit(final Integer categoryId) {
+        TransactionHelper.afterCommit(() -> {
+            List<Product> page;
+            int after = 0;
+            do {
+                page = this.productRepository.findPageByCategoryIdsWithoutDeleted(List.of(categoryId), after,
+                        PageRequest.of(0, AppConstant.MAX_PAGE_LIMIT));
+                page.forEach(product -> this.index.put(ProductMappingHelper.map(product)));
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getProductId();
+                }
+            } while (page.size() == AppConstant.MAX_PAGE_LIMIT);
+        });
+    }
+
+    @Override
+    public void refresh(final Collection<ProductDto> products) {
+        products.forEach(this.index::put);
+    }
+
+    private void refresh(final Integer productId) {
+        this.productRepository.findByIdWithoutDeleted(productId)
+                .map(ProductMappingHelper::map)
+                .ifPresentOrElse(this.index::put, () -> this.index.remove(productId));
+    }
+
+}
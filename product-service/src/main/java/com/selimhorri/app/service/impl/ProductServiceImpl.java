@@ -1,21 +1,45 @@
 package com.selimhorri.app.service.impl;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.selimhorri.app.config.audit.DatabaseClock;
+import com.selimhorri.app.config.cache.JsonResponseCache;
+import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Category;
 import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.domain.StockReservation;
+import com.selimhorri.app.domain.StockReservationLine;
+import com.selimhorri.app.domain.StockReservationStatus;
 import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.StockLineDto;
+import com.selimhorri.app.dto.StockReservationDto;
+import com.selimhorri.app.dto.response.collection.DtoChangesResponse;
+import com.selimhorri.app.dto.response.collection.DtoKeysetPageResponse;
 import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.InsufficientStockException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.helper.ProductMappingHelper;
+import com.selimhorri.app.helper.StockReservationMappingHelper;
+import com.selimhorri.app.helper.TransactionHelper;
 import com.selimhorri.app.repository.CategoryRepository;
 import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.repository.StockReservationRepository;
+import com.selimhorri.app.service.ProductSearchService;
 import com.selimhorri.app.service.ProductService;
 
 import lombok.RequiredArgsConstructor;
@@ -29,6 +53,11 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final ProductSearchService productSearchService;
+    private final JsonResponseCache jsonResponseCache;
+    private final StockReservationRepository stockReservationRepository;
+    private final DatabaseClock databaseClock;
 
     @Override
     public List<ProductDto> findAll() {
@@ -40,6 +69,88 @@ public class ProductServiceImpl implements ProductService {
                 .collect(Collectors.toUnmodifiableList());
     }
 
+    @Override
+    public DtoKeysetPageResponse<ProductDto> findPage(final Integer after, final int limit) {
+        log.info("Fetching products page after id: {} with limit: {}", after, limit);
+
+        if (limit < 1 || limit > AppConstant.MAX_PAGE_LIMIT) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "Limit must be between 1 and " + AppConstant.MAX_PAGE_LIMIT);
+        }
+
+        // One extra row tells whether another page follows without a COUNT query
+        final List<ProductDto> rows = this.productRepository
+                .findPageWithoutDeleted(after == null ? 0 : after, PageRequest.of(0, limit + 1))
+                .stream()
+                .map(ProductMappingHelper::map)
+                .collect(Collectors.toList());
+
+        final boolean hasMore = rows.size() > limit;
+        final List<ProductDto> page = hasMore ? rows.subList(0, limit) : rows;
+
+        return DtoKeysetPageResponse.<ProductDto>builder()
+                .collection(List.copyOf(page))
+                .limit(limit)
+                .nextCursor(hasMore ? page.get(page.size() - 1).getProductId() : null)
+                .build();
+    }
+
+    @Override
+    public void streamAll(final Consumer<ProductDto> consumer) {
+        log.info("Streaming all products");
+        try (Stream<Product> products = this.productRepository.streamAllWithoutDeleted()) {
+            products.forEach(product -> {
+                consumer.accept(ProductMappingHelper.map(product));
+                // Keep the persistence context flat so memory does not grow with the catalog
+                this.entityManager.detach(product);
+            });
+        }
+    }
+
+    @Override
+    public DtoChangesResponse<ProductDto> findChanges(final Instant since, final Integer afterId, final int limit) {
+        log.info("Fetching product changes since: {} after id: {} with limit: {}", since, afterId, limit);
+
+        if (since == null) {
+            throw new InvalidInputException(ErrorCode.MISSING_REQUIRED_FIELD, "since is required");
+        }
+
+        if (limit < 1 || limit > AppConstant.MAX_PAGE_LIMIT) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "Limit must be between 1 and " + AppConstant.MAX_PAGE_LIMIT);
+        }
+
+        // Rows stamped in the last few seconds may belong to transactions that have not committed yet;
+        // handing out a watermark past them would skip those rows forever. The bound comes from the clock
+        // updated_at is stamped with, so JVM clock skew cannot eat into the lag
+        final Instant until = this.databaseClock.now().minusSeconds(AppConstant.CHANGES_SAFETY_LAG_SECONDS);
+        final List<Product> rows = this.productRepository.findChangedSince(since, afterId == null ? 0 : afterId,
+                until, PageRequest.of(0, limit + 1));
+
+        final boolean hasMore = rows.size() > limit;
+        final List<Product> page = hasMore ? rows.subList(0, limit) : rows;
+
+        final List<ProductDto> changed = new ArrayList<>();
+        final List<Integer> deletedIds = new ArrayList<>();
+        page.forEach(product -> {
+            if (product.isDeleted()) {
+                deletedIds.add(product.getProductId());
+            }
+            else {
+                changed.add(ProductMappingHelper.map(product));
+            }
+        });
+
+        final Product last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return DtoChangesResponse.<ProductDto>builder()
+                .collection(List.copyOf(changed))
+                .deletedIds(List.copyOf(deletedIds))
+                .watermark(last == null ? since : last.getUpdatedAt())
+                .watermarkId(last == null ? afterId : last.getProductId())
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Override
     public ProductDto findById(final Integer productId) {
         log.info("Fetching product with id: {}", productId);
@@ -48,6 +159,25 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.PRODUCT_NOT_FOUND, productId));
     }
 
+    @Override
+    public List<ProductDto> findAllByIds(final Collection<Integer> productIds) {
+        log.info("Fetching products by ids, batch size: {}", productIds == null ? 0 : productIds.size());
+
+        if (productIds == null || productIds.isEmpty()) {
+            return List.of();
+        }
+
+        if (productIds.size() > AppConstant.MAX_BATCH_LOOKUP_SIZE) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "At most " + AppConstant.MAX_BATCH_LOOKUP_SIZE + " product ids can be requested at once");
+        }
+
+        return this.productRepository.findAllByIdsWithoutDeleted(productIds)
+                .stream()
+                .map(ProductMappingHelper::map)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
     @Override
     public ProductDto save(final ProductDto productDto) {
         log.info("Saving new product");
@@ -81,18 +211,28 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.CATEGORY_NOT_FOUND, categoryId));
 
         productDto.setProductId(null);
-        return ProductMappingHelper.map(this.productRepository.save(ProductMappingHelper.map(productDto)));
+        final Product savedProduct = this.productRepository.save(ProductMappingHelper.map(productDto));
+        this.productSearchService.refreshAfterCommit(savedProduct.getProductId());
+        return ProductMappingHelper.map(savedProduct);
     }
 
     @Override
     public ProductDto update(final ProductDto productDto) {
         log.info("Updating product with id: {}", productDto.getProductId());
 
-        if (productDto.getProductId() == null || !productRepository.existsById(productDto.getProductId())) {
+        Product existingProduct = productDto.getProductId() == null ? null
+                : this.productRepository.findById(productDto.getProductId()).orElse(null);
+        if (existingProduct == null) {
             throw new ResourceNotFoundException(ErrorCode.PRODUCT_NOT_FOUND, productDto.getProductId());
         }
 
-        return ProductMappingHelper.map(this.productRepository.save(ProductMappingHelper.map(productDto)));
+        Product updatedProduct = ProductMappingHelper.map(productDto);
+        keepDeletionState(existingProduct, updatedProduct);
+
+        final Product savedProduct = this.productRepository.save(updatedProduct);
+        this.productSearchService.refreshAfterCommit(savedProduct.getProductId());
+        this.evictAfterCommit(List.of(savedProduct.getProductId()));
+        return ProductMappingHelper.map(savedProduct);
     }
 
     @Override
@@ -104,22 +244,118 @@ public class ProductServiceImpl implements ProductService {
 
         Product updatedProduct = ProductMappingHelper.map(productDto);
         updatedProduct.setProductId(existingProduct.getProductId());
+        keepDeletionState(existingProduct, updatedProduct);
 
-        return ProductMappingHelper.map(this.productRepository.save(updatedProduct));
+        final Product savedProduct = this.productRepository.save(updatedProduct);
+        this.productSearchService.refreshAfterCommit(savedProduct.getProductId());
+        this.evictAfterCommit(List.of(savedProduct.getProductId()));
+        return ProductMappingHelper.map(savedProduct);
     }
 
     @Override
     public void deleteById(final Integer productId) {
         log.info("Soft deleting product with id: {}", productId);
 
-        Product product = this.productRepository.findByIdWithoutDeleted(productId)
+        Product product = this.productRepository.findByProductIdAndIsDeletedFalse(productId)
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.PRODUCT_NOT_FOUND, productId));
 
         Category deletedCategory = this.categoryRepository.findByCategoryTitle("Deleted")
                 .orElseThrow(() -> new InvalidInputException(ErrorCode.INVALID_INPUT, 
                         "Category 'Deleted' not found in database"));
 
+        // The flag drives every read; the 'Deleted' category is kept for clients that still look at it
+        product.setDeleted(true);
+        product.setDeletedAt(this.databaseClock.now());
         product.setCategory(deletedCategory);
         this.productRepository.save(product);
+        this.productSearchService.refreshAfterCommit(productId);
+        this.evictAfterCommit(List.of(productId));
+    }
+
+    @Override
+    public StockReservationDto reserve(final Collection<StockLineDto> lines) {
+        final Map<Integer, Integer> quantities = mergeStockLines(lines);
+        log.info("Reserving stock for {} products", quantities.size());
+
+        // Rows are locked in ascending product id order, so concurrent reservations cannot deadlock;
+        // any failing line throws and rolls back the lines already decremented
+        quantities.forEach((productId, quantity) -> {
+            if (this.productRepository.decrementStock(productId, quantity) == 0) {
+                if (this.productRepository.findByProductIdAndIsDeletedFalse(productId).isEmpty()) {
+                    throw new ResourceNotFoundException(ErrorCode.PRODUCT_NOT_FOUND, productId);
+                }
+                throw new InsufficientStockException(ErrorCode.INSUFFICIENT_STOCK, productId);
+            }
+        });
+        final StockReservation reservation = this.stockReservationRepository.save(StockReservation.builder()
+                .status(StockReservationStatus.RESERVED)
+                .lines(quantities.entrySet()
+                        .stream()
+                        .map(entry -> StockReservationLine.builder()
+                                .productId(entry.getKey())
+                                .quantity(entry.getValue())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build());
+        // Stock is not searchable, so only the cached product JSON goes
+        this.evictAfterCommit(quantities.keySet());
+
+        return StockReservationMappingHelper.map(reservation);
+    }
+
+    @Override
+    public StockReservationDto release(final Integer reservationId) {
+        log.info("Releasing stock reservation with id: {}", reservationId);
+        final StockReservation reservation = this.stockReservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.STOCK_RESERVATION_NOT_FOUND, reservationId));
+
+        // Only the release that moves the reservation out of RESERVED restocks; a retry returns it unchanged
+        if (this.stockReservationRepository.transition(reservationId,
+                StockReservationStatus.RESERVED, StockReservationStatus.RELEASED) == 1) {
+            reservation.getLines().forEach(line -> {
+                if (this.productRepository.incrementStock(line.getProductId(), line.getQuantity()) == 0) {
+                    log.warn("Product {} was deleted after reservation {}; its {} units are not restocked",
+                            line.getProductId(), reservationId, line.getQuantity());
+                }
+            });
+            this.evictAfterCommit(reservation.getLines()
+                    .stream()
+                    .map(StockReservationLine::getProductId)
+                    .collect(Collectors.toList()));
+        }
+        reservation.setStatus(StockReservationStatus.RELEASED);
+
+        return StockReservationMappingHelper.map(reservation);
+    }
+
+    // Evicting before commit would let a concurrent read re-cache the old row
+    private void evictAfterCommit(final Collection<Integer> productIds) {
+        TransactionHelper.afterCommit(() -> productIds.forEach(this.jsonResponseCache::evictProduct));
+    }
+
+    private static Map<Integer, Integer> mergeStockLines(final Collection<StockLineDto> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new InvalidInputException(ErrorCode.MISSING_REQUIRED_FIELD, "At least one stock line is required");
+        }
+
+        if (lines.size() > AppConstant.MAX_BATCH_LOOKUP_SIZE) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "At most " + AppConstant.MAX_BATCH_LOOKUP_SIZE + " stock lines can be sent at once");
+        }
+
+        final Map<Integer, Integer> quantities = new TreeMap<>();
+        for (final StockLineDto line : lines) {
+            if (line == null || line.getProductId() == null || line.getQuantity() == null || line.getQuantity() < 1) {
+                throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                        "Each stock line needs a product id and a positive quantity");
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Math::addExact);
+        }
+        return quantities;
+    }
+
+    private static void keepDeletionState(final Product existingProduct, final Product updatedProduct) {
+        updatedProduct.setDeleted(existingProduct.isDeleted());
+        updatedProduct.setDeletedAt(existingProduct.getDeletedAt());
     }
 }
\ No newline at end of file
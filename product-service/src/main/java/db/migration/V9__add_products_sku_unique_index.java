@@ -0,0 +1,64 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Makes SKUs unique, which the bulk import upserts on.
+ * Soft-deleted products keep their SKU inside the constraint: a SKU names one product for good,
+ * and importing it again brings that product back instead of creating a second one.
+ * SKUs were never unique before, so existing duplicates stop the migration with the offending rows listed;
+ * they must be resolved by a reviewed data fix before it can run, never renamed here behind anyone's back.
+ */
+public class V9__add_products_sku_unique_index extends BaseJavaMigration {
+	
+	private static final int MAX_LISTED = 50;
+	
+	@Override
+	public void migrate(final Context context) throws Exception {
+		final Connection connection = context.getConnection();
+		final Map<String, List<Integer>> duplicates = findDuplicates(connection);
+		if (!duplicates.isEmpty())
+			throw new FlywayException(describe(duplicates));
+		
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE UNIQUE INDEX uq_products_sku ON products (sku)");
+		}
+	}
+	
+	private static Map<String, List<Integer>> findDuplicates(final Connection connection) throws SQLException {
+		final Map<String, List<Integer>> duplicates = new LinkedHashMap<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet rows = statement.executeQuery("SELECT p.sku, p.product_id FROM products p "
+						+ "JOIN (SELECT sku FROM products WHERE sku IS NOT NULL GROUP BY sku HAVING COUNT(*) > 1) d "
+						+ "ON d.sku = p.sku ORDER BY p.sku, p.product_id")) {
+			while (rows.next())
+				duplicates.computeIfAbsent(rows.getString(1), sku -> new ArrayList<>()).add(rows.getInt(2));
+		}
+		return duplicates;
+	}
+	
+	private static String describe(final Map<String, List<Integer>> duplicates) {
+		final StringBuilder message = new StringBuilder(duplicates.size()
+				+ " SKUs are shared by several products and block uq_products_sku; "
+				+ "resolve them with a reviewed data fix, then migrate again:");
+		duplicates.entrySet()
+				.stream()
+				.limit(MAX_LISTED)
+				.forEach(entry -> message.append("\n  '").append(entry.getKey()).append("' products ").append(entry.getValue()));
+		if (duplicates.size() > MAX_LISTED)
+			message.append("\n  ... and ").append(duplicates.size() - MAX_LISTED).append(" more");
+		return message.toString();
+	}
+	
+}
@@ -0,0 +1,15 @@
+CREATE TABLE stock_reservations (
+	reservation_id INT NOT NULL PRIMARY KEY AUTO_INCREMENT,
+	status VARCHAR(16) NOT NULL,
+	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	updated_at TIMESTAMP
+);
+
+CREATE TABLE stock_reservation_lines (
+	reservation_id INT NOT NULL,
+	product_id INT NOT NULL,
+	quantity INT NOT NULL,
+	PRIMARY KEY (reservation_id, product_id),
+	CONSTRAINT fk_stock_reservation_lines_reservation_id
+		FOREIGN KEY (reservation_id) REFERENCES stock_reservations (reservation_id)
+);
@@ -0,0 +1,8 @@
+ALTER TABLE products ADD COLUMN is_deleted BOOLEAN DEFAULT FALSE NOT NULL;
+ALTER TABLE products ADD COLUMN deleted_at TIMESTAMP NULL;
+
+UPDATE products
+SET is_deleted = TRUE, deleted_at = COALESCE(updated_at, CURRENT_TIMESTAMP)
+WHERE category_id IN (SELECT category_id FROM categories WHERE category_title = 'Deleted');
+
+CREATE INDEX idx_products_is_deleted ON products (is_deleted, product_id);
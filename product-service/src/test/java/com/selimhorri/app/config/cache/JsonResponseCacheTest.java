@@ -0,0 +1,95 @@
+package com.selimhorri.app.config.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.exception.ErrorCode;
+import com.selimhorri.app.exception.custom.ResourceNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class JsonResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JsonResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new JsonResponseCache(this.meterRegistry, new ObjectMapper(), 1024 * 1024, Duration.ofMinutes(1));
+        this.loads = new AtomicInteger();
+    }
+
+    private ProductDto load(Integer productId) {
+        this.loads.incrementAndGet();
+        return ProductDto.builder().productId(productId).productTitle("asus").build();
+    }
+
+    @Test
+    void product_encodesOncePerId() {
+        byte[] first = this.cache.product(1, () -> this.load(1));
+        byte[] second = this.cache.product(1, () -> this.load(1));
+
+        assertSame(first, second);
+        assertTrue(new String(first, StandardCharsets.UTF_8).contains("\"productTitle\":\"asus\""));
+        assertEquals(1, this.loads.get());
+        assertEquals(0.5, this.meterRegistry.get("json.response.cache.hit.ratio").gauge().value());
+        assertEquals(first.length, this.meterRegistry.get("json.response.cache.bytes").gauge().value());
+    }
+
+    @Test
+    void evictProduct_forcesReencode() {
+        this.cache.product(1, () -> this.load(1));
+        this.cache.evictProduct(1);
+        this.cache.product(1, () -> this.load(1));
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    void product_notFound_isNotCached() {
+        assertThrows(ResourceNotFoundException.class, () -> this.cache.product(9, () -> {
+            throw new ResourceNotFoundException(ErrorCode.PRODUCT_NOT_FOUND, 9);
+        }));
+
+        this.cache.product(9, () -> this.load(9));
+        assertEquals(1, this.loads.get());
+    }
+
+    @Test
+    void evictAll_dropsTheLateWriteOfALoadInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        CompletableFuture<byte[]> inFlight = CompletableFuture.supplyAsync(() -> this.cache.product(1, () -> {
+            loading.countDown();
+            // Reads the row before the writer commits, then finishes after the eviction
+            ProductDto stale = this.load(1);
+            try {
+                committed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return stale;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        this.cache.evictAll();
+        committed.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        this.cache.product(1, () -> this.load(1));
+        assertEquals(2, this.loads.get());
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.selimhorri.app.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.selimhorri.app.config.audit.DatabaseClock;
+import com.selimhorri.app.domain.Category;
+import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.helper.ProductMappingHelper;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(DatabaseClock.class)
+public class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DatabaseClock databaseClock;
+
+    private static final Instant OLD = Instant.parse("2020-01-01T00:00:00Z");
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        this.statistics = this.entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+
+        // Spread the products over several categories so a lazy load would hit one SELECT per category
+        List<Category> categories = IntStream.range(0, 10)
+                .mapToObj(i -> this.categoryRepository.save(Category.builder()
+                        .categoryTitle("stats-category-" + i)
+                        .imageUrl("")
+                        .build()))
+                .collect(Collectors.toList());
+
+        IntStream.range(0, 50).forEach(i -> this.productRepository.save(Product.builder()
+                .productTitle("stats-product-" + i)
+                .imageUrl("")
+                .sku("stats-sku-" + i)
+                .priceUnit(1.0)
+                .quantity(1)
+                .category(categories.get(i % categories.size()))
+                .build()));
+
+        this.entityManager.flush();
+        this.entityManager.clear();
+        this.statistics.clear();
+    }
+
+    @Test
+    void findAllWithoutDeleted_mapsAllRowsWithOneStatement() {
+        List<ProductDto> products = this.productRepository.findAllWithoutDeleted()
+                .stream()
+                .map(ProductMappingHelper::map)
+                .collect(Collectors.toList());
+
+        assertTrue(products.size() >= 50);
+        assertEquals(1, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdWithoutDeleted_loadsCategoryInSameStatement() {
+        Integer productId = this.productRepository.findAll().get(0).getProductId();
+        this.entityManager.clear();
+        this.statistics.clear();
+
+        ProductDto product = this.productRepository.findByIdWithoutDeleted(productId)
+                .map(ProductMappingHelper::map)
+                .orElseThrow();
+
+        assertNotNull(product.getCategoryDto().getCategoryTitle());
+        assertEquals(1, this.statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdWithoutDeleted_skipsFlaggedProducts() {
+        Product product = this.productRepository.findAll().get(0);
+        product.setDeleted(true);
+        this.productRepository.saveAndFlush(product);
+        this.entityManager.clear();
+
+        assertTrue(this.productRepository.findByIdWithoutDeleted(product.getProductId()).isEmpty());
+        assertTrue(this.productRepository.findByProductIdAndIsDeletedFalse(product.getProductId()).isEmpty());
+    }
+
+    @Test
+    void categoryWideUpdates_bumpUpdatedAtForTheDeltaFeed() {
+        Category first = this.categoryRepository.findByCategoryTitleIgnoreCase("stats-category-0").orElseThrow();
+        Category second = this.categoryRepository.findByCategoryTitleIgnoreCase("stats-category-1").orElseThrow();
+        this.entityManager.createQuery("UPDATE Product p SET p.updatedAt = :old")
+                .setParameter("old", OLD)
+                .executeUpdate();
+
+        assertEquals(5, this.productRepository.touchProductsOfCategory(first.getCategoryId()));
+        this.productRepository.updateCategoryForProducts(second.getCategoryId(), first);
+        this.entityManager.clear();
+
+        List<Product> changed = this.productRepository.findAll().stream()
+                .filter(product -> product.getUpdatedAt().isAfter(OLD))
+                .collect(Collectors.toList());
+        assertEquals(10, changed.size());
+        assertTrue(changed.stream().allMatch(product ->
+                product.getCategory().getCategoryId().equals(first.getCategoryId())));
+    }
+
+    @Test
+    void auditedAndBulkWrites_stampUpdatedAtFromTheDatabaseClock() {
+        Product product = this.productRepository.findAll().get(0);
+        product.setProductTitle("renamed");
+        this.productRepository.saveAndFlush(product);
+        // H2 holds CURRENT_TIMESTAMP for the whole transaction, the JVM clock has moved on
+        assertEquals(this.databaseClock.now(), product.getUpdatedAt());
+
+        this.productRepository.incrementStock(product.getProductId(), 1);
+        this.entityManager.clear();
+        assertEquals(product.getUpdatedAt(),
+                this.productRepository.findById(product.getProductId()).orElseThrow().getUpdatedAt());
+    }
+
+}
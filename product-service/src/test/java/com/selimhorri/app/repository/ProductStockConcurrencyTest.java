@@ -0,0 +1,198 @@
+package com.selimhorri.app.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.audit.DatabaseClock;
+import com.selimhorri.app.config.cache.JsonResponseCache;
+import com.selimhorri.app.domain.Category;
+import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.domain.StockReservationStatus;
+import com.selimhorri.app.dto.StockLineDto;
+import com.selimhorri.app.dto.StockReservationDto;
+import com.selimhorri.app.exception.custom.InsufficientStockException;
+import com.selimhorri.app.service.ProductSearchService;
+import com.selimhorri.app.service.impl.ProductServiceImpl;
+
+/**
+ * Hundreds of buyers race for the same hot SKUs through {@code reserve()}, each order spanning several of them
+ * and listing its lines in its own order; every reservation commits on its own, like real checkouts.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock_concurrency_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(DatabaseClock.class)
+public class ProductStockConcurrencyTest {
+
+    private static final int BUYERS = 300;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private DatabaseClock databaseClock;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ProductServiceImpl productService;
+
+    private List<Integer> productIds;
+
+    @BeforeEach
+    void setup() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.productService = new ProductServiceImpl(this.productRepository, this.categoryRepository, this.entityManager,
+                Mockito.mock(ProductSearchService.class), Mockito.mock(JsonResponseCache.class),
+                this.stockReservationRepository, this.databaseClock);
+        this.productIds = this.transactionTemplate.execute(status -> {
+            Category category = this.categoryRepository.save(Category.builder()
+                    .categoryTitle("hot-category-" + System.nanoTime())
+                    .imageUrl("")
+                    .build());
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                ids.add(this.productRepository.save(Product.builder()
+                        .productTitle("hot-product-" + i)
+                        .imageUrl("")
+                        .sku("hot-sku-" + i + "-" + System.nanoTime())
+                        .priceUnit(1.0)
+                        .quantity(STOCK)
+                        .category(category)
+                        .build()).getProductId());
+            }
+            return ids;
+        });
+    }
+
+    @Test
+    void reserve_multiLineOrdersOnHotSkus_neverOversellAndNeverDeadlock() throws Exception {
+        List<StockReservationDto> reservations = this.race(buyer -> {
+            // Two of the three products, listed high id first for half of the buyers
+            Integer first = this.productIds.get(buyer % 3);
+            Integer second = this.productIds.get((buyer + 1) % 3);
+            return buyer % 2 == 0
+                    ? List.of(line(first, 1), line(second, 2))
+                    : List.of(line(second, 2), line(first, 1));
+        });
+
+        Map<Integer, Integer> reserved = reservations.stream()
+                .flatMap(reservation -> reservation.getLines().stream())
+                .collect(Collectors.groupingBy(StockLineDto::getProductId, Collectors.summingInt(StockLineDto::getQuantity)));
+        for (Integer productId : this.productIds) {
+            int quantity = this.quantity(productId);
+            assertTrue(quantity >= 0);
+            assertEquals(STOCK, quantity + reserved.getOrDefault(productId, 0));
+        }
+        // A failed order reserved none of its lines
+        assertEquals(reservations.size(), this.stockReservationRepository.count());
+    }
+
+    @Test
+    void release_racingRetries_restockEachReservationOnce() throws Exception {
+        StockReservationDto reservation = this.transactionTemplate.execute(status -> this.productService.reserve(
+                List.of(line(this.productIds.get(0), 30), line(this.productIds.get(1), 10))));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<StockReservationDto>> releases = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                releases.add(executor.submit(() -> {
+                    start.await();
+                    return this.transactionTemplate.execute(status -> this.productService.release(reservation.getReservationId()));
+                }));
+            }
+            start.countDown();
+            for (Future<StockReservationDto> release : releases) {
+                assertEquals(StockReservationStatus.RELEASED, release.get(60, TimeUnit.SECONDS).getStatus());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(STOCK, this.quantity(this.productIds.get(0)));
+        assertEquals(STOCK, this.quantity(this.productIds.get(1)));
+    }
+
+    private List<StockReservationDto> race(final IntFunction<List<StockLineDto>> order) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<StockReservationDto>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < BUYERS; i++) {
+                final List<StockLineDto> lines = order.apply(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return this.transactionTemplate.execute(status -> this.productService.reserve(lines));
+                    }
+                    catch (InsufficientStockException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<StockReservationDto> reservations = new ArrayList<>();
+            for (Future<StockReservationDto> result : results) {
+                StockReservationDto reservation = result.get(60, TimeUnit.SECONDS);
+                if (reservation != null) {
+                    reservations.add(reservation);
+                }
+            }
+            return reservations;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int quantity(final Integer productId) {
+        return this.productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private static StockLineDto line(final Integer productId, final int quantity) {
+        return StockLineDto.builder().productId(productId).quantity(quantity).build();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.selimhorri.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import com.selimhorri.app.domain.Category;
+import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.dto.CategoryDto;
+import com.selimhorri.app.exception.custom.ResourceNotFoundException;
+import com.selimhorri.app.repository.CategoryRepository;
+import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.service.impl.CategoryTreeServiceImpl;
+
+public class CategoryTreeServiceImplTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private CategoryTreeServiceImpl categoryTreeService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        // 3 Computer -> 6 Laptop -> 8 Gaming, 3 Computer -> 7 Desktop, 5 Game; 9 <-> 10 form a cycle
+        when(this.categoryRepository.findTreeRowsNonReserved()).thenReturn(List.of(
+                new Object[] { 8, 6, "Gaming", "" },
+                new Object[] { 3, null, "Computer", "" },
+                new Object[] { 7, 3, "Desktop", "" },
+                new Object[] { 6, 3, "Laptop", "" },
+                new Object[] { 5, null, "Game", "" },
+                new Object[] { 9, 10, "Loop A", "" },
+                new Object[] { 10, 9, "Loop B", "" }));
+    }
+
+    @Test
+    void findTree_nestsChildrenUnderRoots() {
+        List<CategoryDto> roots = this.categoryTreeService.findTree();
+
+        assertEquals(List.of(3, 5), ids(roots));
+        assertEquals(List.of(6, 7), ids(List.copyOf(roots.get(0).getSubCategoriesDtos())));
+        assertNull(roots.get(1).getSubCategoriesDtos());
+    }
+
+    @Test
+    void findDescendants_returnsWholeSubtreeFromOneLoad() {
+        assertEquals(List.of(6, 8, 7), ids(this.categoryTreeService.findDescendants(3)));
+        assertEquals(List.of(), ids(this.categoryTreeService.findDescendants(5)));
+        verify(this.categoryRepository, times(1)).findTreeRowsNonReserved();
+    }
+
+    @Test
+    void findDescendants_unknownOrCyclicCategory_throwsNotFound() {
+        assertThrows(ResourceNotFoundException.class, () -> this.categoryTreeService.findDescendants(99));
+        assertThrows(ResourceNotFoundException.class, () -> this.categoryTreeService.findDescendants(9));
+    }
+
+    @Test
+    void findProductsInSubtree_queriesAllSubtreeIdsAtOnce() {
+        Category laptop = Category.builder().categoryId(6).categoryTitle("Laptop").build();
+        when(this.productRepository.findPageByCategoryIdsWithoutDeleted(List.of(6, 8), 0, PageRequest.of(0, 3)))
+                .thenReturn(List.of(Product.builder().productId(1).category(laptop).build()));
+
+        var page = this.categoryTreeService.findProductsInSubtree(6, null, 2);
+
+        assertEquals(1, page.getCollection().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void refreshAfterCommit_swapsSnapshot() {
+        this.categoryTreeService.findTree();
+        when(this.categoryRepository.findTreeRowsNonReserved()).thenReturn(List.<Object[]>of(
+                new Object[] { 5, null, "Game", "" }));
+
+        this.categoryTreeService.refreshAfterCommit();
+
+        assertEquals(List.of(5), ids(this.categoryTreeService.findTree()));
+    }
+
+    private static List<Integer> ids(final List<CategoryDto> categories) {
+        return categories.stream().map(CategoryDto::getCategoryId).collect(Collectors.toList());
+    }
+
+}
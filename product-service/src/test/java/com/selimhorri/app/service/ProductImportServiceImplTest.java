@@ -0,0 +1,151 @@
+package com.selimhorri.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.cache.JsonResponseCache;
+import com.selimhorri.app.domain.Category;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.ProductImportReportDto;
+import com.selimhorri.app.exception.custom.InvalidInputException;
+import com.selimhorri.app.repository.CategoryRepository;
+import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.service.impl.ProductImportServiceImpl;
+
+public class ProductImportServiceImplTest {
+
+    private static final String HEADER = "sku,productTitle,imageUrl,priceUnit,quantity,categoryId\n";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private JsonResponseCache jsonResponseCache;
+
+    private ProductImportServiceImpl productImportService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        this.productImportService = new ProductImportServiceImpl(this.jdbcTemplate, this.transactionOperations,
+                this.productRepository, this.categoryRepository, this.productSearchService, this.jsonResponseCache,
+                new ObjectMapper(), 2);
+        when(this.categoryRepository.findAllNonReserved()).thenReturn(List.of(
+                Category.builder().categoryId(3).build(),
+                Category.builder().categoryId(5).build()));
+        when(this.transactionOperations.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void importProducts_csv_upsertsBySkuInBatches() {
+        when(this.productRepository.findExistingSkus(anyCollection())).thenReturn(List.of("B"));
+
+        ProductImportReportDto report = this.importBody(HEADER
+                + "A,Asus,xxx,10.5,3,3\n"
+                + "B,\"HP, 15\"\"\",xxx,20,4,3\n"
+                + "\n"
+                + "C,GTA,xxx,30,5,5\n", ProductImportService.Format.CSV);
+
+        assertEquals(3, report.getProcessed());
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(0, report.getFailed());
+        // Batch size 2: {A, B} then {C}
+        verify(this.transactionOperations, times(2)).execute(any());
+        assertEquals(List.of(List.of("A"), List.of("C")), this.batchedSkus("INSERT", 2));
+        assertEquals(List.of(List.of("B")), this.batchedSkus("UPDATE", 1));
+    }
+
+    @Test
+    void importProducts_badLines_areReportedWithoutStoppingTheLoad() {
+        ProductImportReportDto report = this.importBody(
+                "{\"sku\":\"A\",\"productTitle\":\"Asus\",\"imageUrl\":\"xxx\",\"priceUnit\":1,\"quantity\":1,\"category\":{\"categoryId\":3}}\n"
+                        + "{\"sku\":\"B\",\"productTitle\":\"HP\"\n"
+                        + "null\n"
+                        + "{\"sku\":\"C\",\"productTitle\":\"GTA\",\"imageUrl\":\"xxx\",\"priceUnit\":1,\"quantity\":1,\"category\":{\"categoryId\":99}}\n"
+                        + "{\"sku\":\"D\",\"productTitle\":\"Desk\",\"imageUrl\":\"xxx\",\"priceUnit\":1,\"quantity\":1,\"category\":{\"categoryId\":5}}\n",
+                ProductImportService.Format.JSON_LINES);
+
+        assertEquals(5, report.getProcessed());
+        assertEquals(2, report.getInserted());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(2L, 3L, 4L), report.getErrors().stream()
+                .map(error -> error.getLine())
+                .collect(Collectors.toList()));
+        assertTrue(report.getErrors().get(2).getMessage().contains("99"));
+    }
+
+    @Test
+    void importProducts_failedBatch_isReplayedLineByLine() {
+        when(this.jdbcTemplate.batchUpdate(startsWith("INSERT"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                    Collection<ProductDto> rows = invocation.getArgument(1);
+                    if (rows.stream().anyMatch(row -> row.getSku().equals("BAD"))) {
+                        throw new DataIntegrityViolationException("value too long");
+                    }
+                    return new int[0][];
+                });
+
+        ProductImportReportDto report = this.importBody(HEADER
+                + "A,Asus,xxx,1,1,3\n"
+                + "BAD,Broken,xxx,1,1,3\n", ProductImportService.Format.CSV);
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getFailed());
+        assertEquals("BAD", report.getErrors().get(0).getSku());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        verify(this.productRepository).findAllBySkusWithoutDeleted(List.of("A"));
+    }
+
+    @Test
+    void importProducts_csvWithoutRequiredColumns_isRejectedUpFront() {
+        assertThrows(InvalidInputException.class,
+                () -> this.importBody("sku,productTitle\nA,Asus\n", ProductImportService.Format.CSV));
+        verifyNoInteractions(this.jdbcTemplate);
+    }
+
+    private ProductImportReportDto importBody(final String body, final ProductImportService.Format format) {
+        return this.productImportService.importProducts(new StringReader(body), format);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<String>> batchedSkus(final String statement, final int calls) {
+        ArgumentCaptor<Collection<ProductDto>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(this.jdbcTemplate, times(calls)).batchUpdate(startsWith(statement), rows.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        return rows.getAllValues().stream()
+                .map(batch -> batch.stream().map(ProductDto::getSku).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+}
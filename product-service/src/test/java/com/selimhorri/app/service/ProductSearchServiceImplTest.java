@@ -0,0 +1,143 @@
+package com.selimhorri.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.selimhorri.app.domain.Category;
+import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.exception.custom.InvalidInputException;
+import com.selimhorri.app.helper.ProductMappingHelper;
+import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.service.impl.ProductSearchServiceImpl;
+
+public class ProductSearchServiceImplTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ProductSearchServiceImpl productSearchService;
+
+    private final Category computer = Category.builder().categoryId(3).categoryTitle("Computer").build();
+    private final Category game = Category.builder().categoryId(5).categoryTitle("Game").build();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        this.productSearchService = new ProductSearchServiceImpl(this.productRepository, this.entityManager, 20000);
+        when(this.productRepository.streamAllWithoutDeleted()).thenReturn(Stream.of(
+                product(1, "Asus Zenbook", "AS-100", this.computer),
+                product(2, "HP Laptop", "HP-200", this.computer),
+                product(3, "Computer Desk", "DK-300", this.game),
+                product(4, "GTA V", "GTA-5", this.game)));
+        this.productSearchService.rebuild();
+    }
+
+    @Test
+    void search_prefix_ranksTitleAboveCategory() {
+        // "Computer Desk" matches in its title, the Asus and HP only through their category
+        assertEquals(List.of(3, 1, 2), ids(this.productSearchService.search("comp", 10)));
+    }
+
+    @Test
+    void search_multipleTerms_areConjunctive() {
+        assertEquals(List.of(2), ids(this.productSearchService.search("computer lap", 10)));
+        assertEquals(List.of(), ids(this.productSearchService.search("game lap", 10)));
+    }
+
+    @Test
+    void search_compactSku_matches() {
+        assertEquals(List.of(4), ids(this.productSearchService.search("gta5", 10)));
+    }
+
+    @Test
+    void search_respectsLimit() {
+        assertEquals(2, this.productSearchService.search("c", 2).size());
+    }
+
+    @Test
+    void refreshAfterCommit_reindexesOrRemovesProduct() {
+        when(this.productRepository.findByIdWithoutDeleted(2))
+                .thenReturn(Optional.of(product(2, "HP Omen", "HP-200", this.computer)));
+        this.productSearchService.refreshAfterCommit(2);
+        assertEquals(List.of(), ids(this.productSearchService.search("laptop", 10)));
+        assertEquals(List.of(2), ids(this.productSearchService.search("omen", 10)));
+
+        when(this.productRepository.findByIdWithoutDeleted(2)).thenReturn(Optional.empty());
+        this.productSearchService.refreshAfterCommit(2);
+        assertEquals(List.of(), ids(this.productSearchService.search("omen", 10)));
+    }
+
+    @Test
+    void search_prefix_ranksByScoreNotByCompletionOrder() {
+        // A small budget that the 50 "compact" products would use up if completions were scanned alphabetically
+        ProductSearchServiceImpl budgeted = new ProductSearchServiceImpl(this.productRepository, this.entityManager, 10);
+        budgeted.refresh(IntStream.rangeClosed(1, 50)
+                .mapToObj(i -> ProductMappingHelper.map(product(i, "Compact " + i, "CP-" + i, this.game)))
+                .collect(Collectors.toList()));
+        budgeted.refresh(List.of(ProductMappingHelper.map(product(99, "Computer", "PC-99", this.game))));
+
+        assertEquals(99, budgeted.search("comp", 5).get(0).getProductId());
+    }
+
+    @Test
+    void search_prefix_rankingFollowsRenamedProducts() {
+        ProductSearchServiceImpl budgeted = new ProductSearchServiceImpl(this.productRepository, this.entityManager, 10);
+        budgeted.refresh(IntStream.rangeClosed(1, 50)
+                .mapToObj(i -> ProductMappingHelper.map(product(i, "Compact " + i, "CP-" + i, this.game)))
+                .collect(Collectors.toList()));
+        budgeted.refresh(List.of(ProductMappingHelper.map(product(99, "Computer", "PC-99", this.game))));
+
+        budgeted.refresh(List.of(ProductMappingHelper.map(product(99, "Desk", "PC-99", this.game)),
+                ProductMappingHelper.map(product(100, "Compiler", "PC-100", this.game))));
+
+        List<Integer> found = ids(budgeted.search("comp", 5));
+        assertEquals(100, found.get(0));
+        assertFalse(found.contains(99));
+    }
+
+    @Test
+    void search_conjunction_findsHighIdMatchesBeyondTheBudget() {
+        ProductSearchServiceImpl budgeted = new ProductSearchServiceImpl(this.productRepository, this.entityManager, 10);
+        Category gaming = Category.builder().categoryId(7).categoryTitle("Gaming").build();
+        budgeted.refresh(IntStream.rangeClosed(1, 30)
+                .mapToObj(i -> ProductMappingHelper.map(product(i, "Laptop " + i, "LP-" + i, gaming)))
+                .collect(Collectors.toList()));
+        // Matches "gaming" in its title, so it outranks every category-only match despite the highest id
+        budgeted.refresh(List.of(ProductMappingHelper.map(product(31, "Gaming Laptop", "GL-31", gaming))));
+
+        assertEquals(31, budgeted.search("gaming laptop", 5).get(0).getProductId());
+    }
+
+    @Test
+    void search_invalidInput_throws() {
+        assertThrows(InvalidInputException.class, () -> this.productSearchService.search(" ", 10));
+        assertThrows(InvalidInputException.class, () -> this.productSearchService.search("asus", 0));
+        assertThrows(InvalidInputException.class, () -> this.productSearchService.search("asus", 101));
+    }
+
+    private static Product product(final int productId, final String title, final String sku, final Category category) {
+        return Product.builder().productId(productId).productTitle(title).sku(sku).category(category).build();
+    }
+
+    private static List<Integer> ids(final List<ProductDto> products) {
+        return products.stream().map(ProductDto::getProductId).collect(Collectors.toList());
+    }
+
+}
@@ -3,23 +3,42 @@ package com.selimhorri.app.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
 
+import com.selimhorri.app.config.audit.DatabaseClock;
+import com.selimhorri.app.config.cache.JsonResponseCache;
+import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Category;
 import com.selimhorri.app.domain.Product;
+import com.selimhorri.app.domain.StockReservation;
+import com.selimhorri.app.domain.StockReservationLine;
+import com.selimhorri.app.domain.StockReservationStatus;
 import com.selimhorri.app.dto.CategoryDto;
 import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.StockLineDto;
+import com.selimhorri.app.dto.StockReservationDto;
+import com.selimhorri.app.exception.custom.InsufficientStockException;
 import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.repository.CategoryRepository;
 import com.selimhorri.app.repository.ProductRepository;
+import com.selimhorri.app.repository.StockReservationRepository;
 import com.selimhorri.app.service.impl.ProductServiceImpl;
 
 public class ProductServiceImplTest {
@@ -30,12 +49,30 @@ public class ProductServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private JsonResponseCache jsonResponseCache;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Mock
+    private DatabaseClock databaseClock;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
+    private static final Instant DB_NOW = Instant.parse("2024-01-01T00:10:00Z");
+
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        when(this.databaseClock.now()).thenReturn(DB_NOW);
     }
 
     @Test
@@ -51,6 +88,87 @@ public class ProductServiceImplTest {
         assertEquals("asus", list.get(0).getProductTitle());
     }
 
+    @Test
+    void findPage_moreRows_returnsNextCursor() {
+        Category category = Category.builder().categoryId(3).categoryTitle("Computer").build();
+        when(this.productRepository.findPageWithoutDeleted(10, PageRequest.of(0, 3))).thenReturn(List.of(
+                Product.builder().productId(11).category(category).build(),
+                Product.builder().productId(12).category(category).build(),
+                Product.builder().productId(13).category(category).build()));
+
+        var page = this.productService.findPage(10, 2);
+        assertEquals(2, page.getCollection().size());
+        assertEquals(12, page.getNextCursor());
+    }
+
+    @Test
+    void findPage_lastPage_hasNoCursor() {
+        Category category = Category.builder().categoryId(3).categoryTitle("Computer").build();
+        when(this.productRepository.findPageWithoutDeleted(0, PageRequest.of(0, 3))).thenReturn(List.of(
+                Product.builder().productId(1).category(category).build()));
+
+        var page = this.productService.findPage(null, 2);
+        assertEquals(1, page.getCollection().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void findPage_invalidLimit_throwsInvalidInput() {
+        assertThrows(InvalidInputException.class, () -> this.productService.findPage(0, 0));
+        assertThrows(InvalidInputException.class, () -> this.productService.findPage(0, 501));
+    }
+
+    @Test
+    void findAllByIds_usesSingleQuery() {
+        Category category = Category.builder().categoryId(3).categoryTitle("Computer").build();
+        when(this.productRepository.findAllByIdsWithoutDeleted(Set.of(1, 2))).thenReturn(List.of(
+                Product.builder().productId(1).category(category).build(),
+                Product.builder().productId(2).category(category).build()));
+
+        List<ProductDto> products = this.productService.findAllByIds(Set.of(1, 2));
+
+        assertEquals(2, products.size());
+        verify(this.productRepository, times(1)).findAllByIdsWithoutDeleted(Set.of(1, 2));
+        verify(this.productRepository, never()).findByIdWithoutDeleted(anyInt());
+    }
+
+    @Test
+    void findChanges_splitsTombstonesAndAdvancesWatermark() {
+        Category category = Category.builder().categoryId(3).categoryTitle("Computer").build();
+        Instant since = Instant.parse("2024-01-01T00:00:00Z");
+        Product changed = Product.builder().productId(4).category(category).build();
+        changed.setUpdatedAt(since.plusSeconds(10));
+        Product deleted = Product.builder().productId(2).isDeleted(true).category(category).build();
+        deleted.setUpdatedAt(since.plusSeconds(20));
+        // The upper bound trails the database clock, the one updated_at is stamped with
+        when(this.productRepository.findChangedSince(since, 0, DB_NOW.minusSeconds(AppConstant.CHANGES_SAFETY_LAG_SECONDS),
+                PageRequest.of(0, 3)))
+                .thenReturn(List.of(changed, deleted));
+
+        var changes = this.productService.findChanges(since, null, 2);
+
+        assertEquals(1, changes.getCollection().size());
+        assertEquals(List.of(2), List.copyOf(changes.getDeletedIds()));
+        assertEquals(since.plusSeconds(20), changes.getWatermark());
+        assertEquals(2, changes.getWatermarkId());
+        assertFalse(changes.getHasMore());
+    }
+
+    @Test
+    void streamAll_detachesEachProduct() {
+        Category category = Category.builder().categoryId(3).categoryTitle("Computer").build();
+        Product first = Product.builder().productId(1).category(category).build();
+        Product second = Product.builder().productId(2).category(category).build();
+        when(this.productRepository.streamAllWithoutDeleted()).thenReturn(Stream.of(first, second));
+
+        List<ProductDto> streamed = new ArrayList<>();
+        this.productService.streamAll(streamed::add);
+
+        assertEquals(2, streamed.size());
+        verify(this.entityManager).detach(first);
+        verify(this.entityManager).detach(second);
+    }
+
     @Test
     void findById_notFound_throws() {
         when(this.productRepository.findByIdWithoutDeleted(99)).thenReturn(Optional.empty());
@@ -84,14 +202,113 @@ public class ProductServiceImplTest {
     }
 
     @Test
-    void deleteById_setsDeletedCategory() {
+    void deleteById_flagsProductAndSetsDeletedCategory() {
         Product p = Product.builder().productId(5).build();
-        when(this.productRepository.findByIdWithoutDeleted(5)).thenReturn(Optional.of(p));
+        when(this.productRepository.findByProductIdAndIsDeletedFalse(5)).thenReturn(Optional.of(p));
         when(this.categoryRepository.findByCategoryTitle("Deleted")).thenReturn(Optional.of(Category.builder().categoryId(1).categoryTitle("Deleted").build()));
         when(this.productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
 
         assertDoesNotThrow(() -> this.productService.deleteById(5));
         verify(this.productRepository).save(any(Product.class));
+        verify(this.productRepository, never()).findByIdWithoutDeleted(anyInt());
+        assertTrue(p.isDeleted());
+        assertEquals(DB_NOW, p.getDeletedAt());
+        assertEquals("Deleted", p.getCategory().getCategoryTitle());
+        verify(this.jsonResponseCache).evictProduct(5);
+    }
+
+    @Test
+    void update_keepsDeletionState() {
+        Product existing = Product.builder().productId(5).isDeleted(true).build();
+        when(this.productRepository.findById(5)).thenReturn(Optional.of(existing));
+        when(this.productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        ProductDto dto = ProductDto.builder().productId(5).productTitle("x")
+                .categoryDto(CategoryDto.builder().categoryId(3).build()).build();
+        this.productService.update(dto);
+
+        verify(this.productRepository).save(argThat(Product::isDeleted));
+    }
+
+    @Test
+    void reserve_mergesLinesAndLocksInProductIdOrder() {
+        when(this.productRepository.decrementStock(anyInt(), anyInt())).thenReturn(1);
+        when(this.stockReservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> {
+            StockReservation reservation = invocation.getArgument(0);
+            reservation.setReservationId(42);
+            return reservation;
+        });
+
+        StockReservationDto reserved = this.productService.reserve(List.of(
+                StockLineDto.builder().productId(9).quantity(1).build(),
+                StockLineDto.builder().productId(2).quantity(3).build(),
+                StockLineDto.builder().productId(9).quantity(2).build()));
+
+        assertEquals(42, reserved.getReservationId());
+        assertEquals(StockReservationStatus.RESERVED, reserved.getStatus());
+        assertEquals(List.of(2, 9), reserved.getLines().stream().map(StockLineDto::getProductId).collect(Collectors.toList()));
+        InOrder inOrder = inOrder(this.productRepository);
+        inOrder.verify(this.productRepository).decrementStock(2, 3);
+        inOrder.verify(this.productRepository).decrementStock(9, 3);
+        // Stock is not searchable
+        verifyNoInteractions(this.productSearchService);
+    }
+
+    @Test
+    void reserve_notEnoughStock_throwsInsufficientStock() {
+        when(this.productRepository.decrementStock(5, 4)).thenReturn(0);
+        when(this.productRepository.findByProductIdAndIsDeletedFalse(5))
+                .thenReturn(Optional.of(Product.builder().productId(5).quantity(1).build()));
+
+        assertThrows(InsufficientStockException.class, () -> this.productService.reserve(
+                List.of(StockLineDto.builder().productId(5).quantity(4).build())));
+        verify(this.stockReservationRepository, never()).save(any());
+    }
+
+    @Test
+    void release_restocksTheReservedLinesOnce() {
+        when(this.stockReservationRepository.findById(42)).thenReturn(Optional.of(reservation(42)));
+        when(this.stockReservationRepository.transition(42, StockReservationStatus.RESERVED, StockReservationStatus.RELEASED))
+                .thenReturn(1)
+                .thenReturn(0);
+        when(this.productRepository.incrementStock(anyInt(), anyInt())).thenReturn(1);
+
+        assertEquals(StockReservationStatus.RELEASED, this.productService.release(42).getStatus());
+        // A retried release finds the reservation already released and restocks nothing
+        assertEquals(StockReservationStatus.RELEASED, this.productService.release(42).getStatus());
+
+        verify(this.productRepository, times(1)).incrementStock(2, 3);
+        verify(this.productRepository, times(1)).incrementStock(9, 1);
+    }
+
+    @Test
+    void release_deletedProduct_skipsItsLine() {
+        when(this.stockReservationRepository.findById(42)).thenReturn(Optional.of(reservation(42)));
+        when(this.stockReservationRepository.transition(42, StockReservationStatus.RESERVED, StockReservationStatus.RELEASED))
+                .thenReturn(1);
+        when(this.productRepository.incrementStock(2, 3)).thenReturn(0);
+        when(this.productRepository.incrementStock(9, 1)).thenReturn(1);
+
+        assertEquals(StockReservationStatus.RELEASED, this.productService.release(42).getStatus());
+        verify(this.productRepository).incrementStock(9, 1);
+    }
+
+    @Test
+    void release_unknownReservation_throwsNotFound() {
+        when(this.stockReservationRepository.findById(7)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> this.productService.release(7));
+        verify(this.productRepository, never()).incrementStock(anyInt(), anyInt());
+    }
+
+    private static StockReservation reservation(final int reservationId) {
+        return StockReservation.builder()
+                .reservationId(reservationId)
+                .status(StockReservationStatus.RESERVED)
+                .lines(List.of(
+                        StockReservationLine.builder().productId(2).quantity(3).build(),
+                        StockReservationLine.builder().productId(9).quantity(1).build()))
+                .build();
     }
 
 }
@@ -0,0 +1,88 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.selimhorri.app.dto.CategoryDto;
+import com.selimhorri.app.dto.ProductDto;
+
+/**
+ * Latency of one search against a synthetic catalog, for the query shapes the type-ahead sends.
+ * Not picked up by surefire; run with:
+ * mvn -pl product-service test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.selimhorri.app.service.impl.ProductSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final String[] BRANDS = { "asus", "hp", "lenovo", "dell", "acer", "apple", "samsung", "sony",
+            "logitech", "razer", "corsair", "msi" };
+    private static final String[] ADJECTIVES = { "compact", "gaming", "wireless", "portable", "pro", "ultra",
+            "slim", "mechanical", "ergonomic", "silent", "smart", "classic" };
+    private static final String[] NOUNS = { "computer", "laptop", "keyboard", "mouse", "monitor", "headset",
+            "speaker", "desk", "chair", "tablet", "camera", "console" };
+    private static final String[] CATEGORIES = { "Computer", "Game", "Office", "Audio", "Furniture", "Mobile" };
+
+    @Param({ "100000", "1000000" })
+    private int products;
+
+    @Param({ "c", "comp", "1", "gaming lap", "asus zenbook 1" })
+    private String query;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        this.index = new ProductSearchIndex(20_000);
+        for (int i = 1; i <= this.products; i++) {
+            final String title = pick(random, BRANDS) + " " + pick(random, ADJECTIVES) + " " + pick(random, NOUNS)
+                    // Model names make the vocabulary grow with the catalog, as real titles do
+                    + " " + (random.nextBoolean() ? "zenbook " : "x") + random.nextInt(this.products / 10 + 1);
+            final int category = random.nextInt(CATEGORIES.length);
+            this.index.put(ProductDto.builder()
+                    .productId(i)
+                    .productTitle(title)
+                    .sku("SKU-" + i)
+                    .categoryDto(CategoryDto.builder().categoryId(category).categoryTitle(CATEGORIES[category]).build())
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<ProductDto> search() {
+        return this.index.search(this.query, 10);
+    }
+
+    private static String pick(final Random random, final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
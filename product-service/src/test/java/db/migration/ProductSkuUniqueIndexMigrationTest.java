@@ -0,0 +1,65 @@
+package db.migration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ProductSkuUniqueIndexMigrationTest {
+
+    private Connection connection;
+    private Context context;
+
+    @BeforeEach
+    void setup() throws Exception {
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:sku_migration_" + System.nanoTime());
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("CREATE TABLE products (product_id INT PRIMARY KEY, sku VARCHAR(255), "
+                    + "is_deleted BOOLEAN DEFAULT FALSE NOT NULL)");
+        }
+        this.context = mock(Context.class);
+        when(this.context.getConnection()).thenReturn(this.connection);
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        this.connection.close();
+    }
+
+    @Test
+    void duplicateSkus_failTheMigrationAndAreListed() throws Exception {
+        this.insert("(1, 'AB-1', FALSE), (2, 'AB-1', TRUE), (3, 'CD-2', FALSE), (4, NULL, FALSE), (5, NULL, FALSE)");
+
+        FlywayException failure = assertThrows(FlywayException.class,
+                () -> new V9__add_products_sku_unique_index().migrate(this.context));
+
+        assertTrue(failure.getMessage().contains("'AB-1' products [1, 2]"));
+        assertFalse(failure.getMessage().contains("CD-2"));
+        // Nothing was renamed
+        this.insert("(6, 'AB-1', FALSE)");
+    }
+
+    @Test
+    void uniqueSkus_getTheIndex_deletedRowsIncluded() throws Exception {
+        this.insert("(1, 'AB-1', TRUE), (2, 'CD-2', FALSE), (3, NULL, FALSE), (4, NULL, FALSE)");
+
+        new V9__add_products_sku_unique_index().migrate(this.context);
+
+        assertThrows(Exception.class, () -> this.insert("(5, 'AB-1', FALSE)"));
+    }
+
+    private void insert(final String values) throws Exception {
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("INSERT INTO products (product_id, sku, is_deleted) VALUES " + values);
+        }
+    }
+
+}
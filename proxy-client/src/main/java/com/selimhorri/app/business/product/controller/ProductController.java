@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.selimhorri.app.business.product.model.ProductDto;
@@ -28,6 +29,13 @@ public class ProductController {
 		return ResponseEntity.ok(this.productClientService.findAll().getBody());
 	}
 	
+	@GetMapping("/search")
+	public ResponseEntity<ProductProductServiceCollectionDtoResponse> search(
+			@RequestParam("q") final String query,
+			@RequestParam(value = "limit", defaultValue = "20") final int limit) {
+		return ResponseEntity.ok(this.productClientService.search(query, limit).getBody());
+	}
+	
 	@GetMapping("/{productId}")
 	public ResponseEntity<ProductDto> findById(@PathVariable("productId") final String productId) {
 		return ResponseEntity.ok(this.productClientService.findById(productId).getBody());
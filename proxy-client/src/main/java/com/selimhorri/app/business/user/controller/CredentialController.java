@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.selimhorri.app.business.user.model.CredentialDto;
 import com.selimhorri.app.business.user.model.response.CredentialUserServiceCollectionDtoResponse;
 import com.selimhorri.app.business.user.service.CredentialClientService;
+import com.selimhorri.app.config.cache.UserDetailsCache;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,6 +23,7 @@ import lombok.RequiredArgsConstructor;
 public class CredentialController {
 	
 	private final CredentialClientService credentialClientService;
+	private final UserDetailsCache userDetailsCache;
 	
 	@GetMapping
 	public ResponseEntity<CredentialUserServiceCollectionDtoResponse> findAll() {
@@ -45,17 +47,23 @@ public class CredentialController {
 	
 	@PutMapping
 	public ResponseEntity<CredentialDto> update(@RequestBody final CredentialDto credentialDto) {
-		return ResponseEntity.ok(this.credentialClientService.update(credentialDto).getBody());
+		final CredentialDto updated = this.credentialClientService.update(credentialDto).getBody();
+		this.userDetailsCache.removeUserFromCache(credentialDto.getUsername());
+		return ResponseEntity.ok(updated);
 	}
 	
 	@PutMapping("/{credentialId}")
 	public ResponseEntity<CredentialDto> update(@PathVariable("credentialId") final String credentialId, @RequestBody final CredentialDto credentialDto) {
-		return ResponseEntity.ok(this.credentialClientService.update(credentialDto).getBody());
+		final CredentialDto updated = this.credentialClientService.update(credentialDto).getBody();
+		this.userDetailsCache.removeUserFromCache(credentialDto.getUsername());
+		return ResponseEntity.ok(updated);
 	}
 	
 	@DeleteMapping("/{credentialId}")
 	public ResponseEntity<Boolean> deleteById(@PathVariable("credentialId") final String credentialId) {
-		return ResponseEntity.ok(this.credentialClientService.deleteById(credentialId).getBody());
+		final Boolean deleted = this.credentialClientService.deleteById(credentialId).getBody();
+		this.userDetailsCache.removeAll();
+		return ResponseEntity.ok(deleted);
 	}
 	
 	
@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.selimhorri.app.business.user.model.UserDto;
 import com.selimhorri.app.business.user.model.response.UserUserServiceCollectionDtoResponse;
 import com.selimhorri.app.business.user.service.UserClientService;
+import com.selimhorri.app.config.cache.UserDetailsCache;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,6 +23,7 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 	
 	private final UserClientService userClientService;
+	private final UserDetailsCache userDetailsCache;
 	
 	@GetMapping
 	public ResponseEntity<UserUserServiceCollectionDtoResponse> findAll() {
@@ -45,17 +47,28 @@ public class UserController {
 	
 	@PutMapping
 	public ResponseEntity<UserDto> update(@RequestBody final UserDto userDto) {
-		return ResponseEntity.ok(this.userClientService.update(userDto).getBody());
+		final UserDto updated = this.userClientService.update(userDto).getBody();
+		this.evictCredential(userDto);
+		return ResponseEntity.ok(updated);
 	}
 	
 	@PutMapping("/{userId}")
 	public ResponseEntity<UserDto> update(@PathVariable("userId") final String userId, @RequestBody final UserDto userDto) {
-		return ResponseEntity.ok(this.userClientService.update(userDto).getBody());
+		final UserDto updated = this.userClientService.update(userDto).getBody();
+		this.evictCredential(userDto);
+		return ResponseEntity.ok(updated);
 	}
 	
 	@DeleteMapping("/{userId}")
 	public ResponseEntity<Boolean> deleteById(@PathVariable("userId") final String userId) {
-		return ResponseEntity.ok(this.userClientService.deleteById(userId).getBody());
+		final Boolean deleted = this.userClientService.deleteById(userId).getBody();
+		this.userDetailsCache.removeAll();
+		return ResponseEntity.ok(deleted);
+	}
+	
+	private void evictCredential(final UserDto userDto) {
+		if (userDto.getCredentialDto() != null)
+			this.userDetailsCache.removeUserFromCache(userDto.getCredentialDto().getUsername());
 	}
 	
 	
@@ -0,0 +1,57 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size-bounded, TTL-based cache of authenticated principals keyed by username,
+ * so that a request carrying a valid JWT does not have to go back to user-service.
+ * Hits and misses are published as cache.gets{cache="user-details"}.
+ */
+public class UserDetailsCache implements UserCache {
+	
+	private final Cache<String, UserDetails> cache;
+	
+	public UserDetailsCache(final MeterRegistry meterRegistry, final long maximumSize, final Duration ttl) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "user-details");
+	}
+	
+	public UserDetails get(final String username, final Function<String, UserDetails> loader) {
+		return this.cache.get(username, loader);
+	}
+	
+	@Override
+	public UserDetails getUserFromCache(final String username) {
+		return this.cache.getIfPresent(username);
+	}
+	
+	@Override
+	public void putUserInCache(final UserDetails user) {
+		this.cache.put(user.getUsername(), user);
+	}
+	
+	@Override
+	public void removeUserFromCache(final String username) {
+		if (username != null)
+			this.cache.invalidate(username);
+	}
+	
+	public void removeAll() {
+		this.cache.invalidateAll();
+	}
+	
+}
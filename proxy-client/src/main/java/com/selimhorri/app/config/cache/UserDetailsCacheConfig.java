@@ -0,0 +1,22 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class UserDetailsCacheConfig {
+	
+	@Bean
+	public UserDetailsCache userDetailsCache(
+			final MeterRegistry meterRegistry,
+			@Value("${app.user-details-cache.max-size:10000}") final long maximumSize,
+			@Value("${app.user-details-cache.ttl:1m}") final Duration ttl) {
+		return new UserDetailsCache(meterRegistry, maximumSize, ttl);
+	}
+	
+}
@@ -16,8 +16,10 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.selimhorri.app.config.cache.UserDetailsCache;
 import com.selimhorri.app.jwt.service.JwtService;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,6 +31,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 	
 	private final UserDetailsService userDetailsService;
 	private final JwtService jwtService;
+	private final UserDetailsCache userDetailsCache;
 	
 	@Override
 	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain) 
@@ -39,18 +42,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 		final var authorizationHeader = request.getHeader("Authorization");
 		
 		String username = null;
-		String jwt = null;
+		Claims claims = null;
 		
 		if ( authorizationHeader != null && authorizationHeader.startsWith("Bearer ") ) {
-			jwt = authorizationHeader.substring(7);
-			username = jwtService.extractUsername(jwt);
+			claims = this.jwtService.extractAllClaims(authorizationHeader.substring(7));
+			username = claims.getSubject();
 		}
 		
 		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 			
-			final UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+			final UserDetails userDetails = this.userDetailsCache.get(username, this.userDetailsService::loadUserByUsername);
 			
-			if (this.jwtService.validateToken(jwt, userDetails)) {
+			if (this.jwtService.validateToken(claims, userDetails)) {
 				final UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
 						new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 				usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,71 @@
+package com.selimhorri.app.config.hedging;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class HedgingConfig {
+	
+	/**
+	 * Runs hedged attempts. There is no queue: when every thread is busy the call runs on the caller, unhedged.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor hedgingExecutor(@Value("${app.hedging.threads:32}") final int threads) {
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(0);
+		executor.setThreadNamePrefix("hedging-");
+		return executor;
+	}
+	
+	@Bean
+	public RequestHedger requestHedger(
+			final MeterRegistry meterRegistry,
+			final ThreadPoolTaskExecutor hedgingExecutor,
+			@Value("${app.hedging.enabled:false}") final boolean enabled,
+			@Value("${app.hedging.percentile:0.95}") final double percentile,
+			@Value("${app.hedging.min-delay:10ms}") final Duration minDelay,
+			@Value("${app.hedging.budget-percent:5}") final double budgetPercent) {
+		return new RequestHedger(enabled, meterRegistry, hedgingExecutor, percentile, minDelay, budgetPercent);
+	}
+	
+	/**
+	 * Wraps the load-balancing Feign client once it exists; the Feign contexts of every client pick the wrapper up.
+	 */
+	@Bean
+	public static BeanPostProcessor hedgingFeignClientPostProcessor(
+			final ObjectProvider<RequestHedger> requestHedger,
+			@Value("${app.hedging.enabled:false}") final boolean enabled,
+			@Value("${app.hedging.feign-services:}") final String feignServices) {
+		final Set<String> services = Arrays.stream(feignServices.split(","))
+				.map(String::trim)
+				.filter(service -> !service.isEmpty())
+				.map(service -> service.toUpperCase(Locale.ROOT))
+				.collect(Collectors.toUnmodifiableSet());
+		return new BeanPostProcessor() {
+			
+			@Override
+			public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+				if (!enabled || services.isEmpty() || !(bean instanceof Client) || bean instanceof HedgingFeignClient)
+					return bean;
+				return new HedgingFeignClient((Client) bean, requestHedger.getObject(), services);
+			}
+			
+		};
+	}
+	
+}
@@ -0,0 +1,51 @@
+package com.selimhorri.app.config.hedging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.Set;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Hedges GETs to the services listed in app.hedging.feign-services through {@link RequestHedger}.
+ * It wraps the load-balancing client, so every attempt picks its own instance; a losing response is closed.
+ */
+public class HedgingFeignClient implements Client {
+	
+	private final Client delegate;
+	private final RequestHedger requestHedger;
+	private final Set<String> services;
+	
+	public HedgingFeignClient(final Client delegate, final RequestHedger requestHedger, final Set<String> services) {
+		this.delegate = delegate;
+		this.requestHedger = requestHedger;
+		this.services = services;
+	}
+	
+	@Override
+	public Response execute(final Request request, final Request.Options options) throws IOException {
+		final String service = URI.create(request.url()).getHost();
+		if (request.httpMethod() != Request.HttpMethod.GET || service == null
+				|| !this.services.contains(service.toUpperCase(Locale.ROOT)))
+			return this.delegate.execute(request, options);
+		
+		try {
+			return this.requestHedger.get(service, () -> {
+				try {
+					return this.delegate.execute(request, options);
+				}
+				catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, Response::close);
+		}
+		catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+}
@@ -12,7 +12,9 @@ public interface JwtUtil {
 	String extractUsername(final String token);
 	Date extractExpiration(final String token);
 	<T> T extractClaims(final String token, final Function<Claims, T> claimsResolver);
+	Claims extractAllClaims(final String token);
 	String generateToken(final UserDetails userDetails);
 	Boolean validateToken(final String token, final UserDetails userDetails);
+	Boolean validateToken(final Claims claims, final UserDetails userDetails);
 	
 }
@@ -1,13 +1,22 @@
 package com.selimhorri.app.jwt.util.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.selimhorri.app.jwt.util.JwtUtil;
 
 import io.jsonwebtoken.Claims;
@@ -19,6 +28,19 @@ public class JwtUtilImpl implements JwtUtil {
 	
 	private static final String SECRET_KEY = "secret";
 	
+	/**
+	 * Verified claims keyed by the SHA-256 of the token, each entry living until the token's own expiration,
+	 * so a token is signature-checked once rather than on every request. Null when the cache size is 0.
+	 */
+	private final Cache<String, Claims> verifiedClaims;
+	
+	public JwtUtilImpl(@Value("${app.jwt.claims-cache-size:10000}") final long claimsCacheSize) {
+		this.verifiedClaims = claimsCacheSize <= 0 ? null : Caffeine.newBuilder()
+				.maximumSize(claimsCacheSize)
+				.expireAfter(new UntilTokenExpiration())
+				.build();
+	}
+	
 	@Override
 	public String extractUsername(final String token) {
 		return this.extractClaims(token, Claims::getSubject);
@@ -35,12 +57,19 @@ public class JwtUtilImpl implements JwtUtil {
 		return claimsResolver.apply(claims);
 	}
 	
-	private Claims extractAllClaims(final String token) {
+	@Override
+	public Claims extractAllClaims(final String token) {
+		if (this.verifiedClaims == null)
+			return this.parseClaims(token);
+		return this.verifiedClaims.get(sha256(token), key -> this.parseClaims(token));
+	}
+	
+	private Claims parseClaims(final String token) {
 		return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
 	}
 	
-	private Boolean isTokenExpired(final String token) {
-		return this.extractExpiration(token).before(new Date());
+	private Boolean isTokenExpired(final Claims claims) {
+		return claims.getExpiration() != null && claims.getExpiration().before(new Date());
 	}
 	
 	@Override
@@ -61,12 +90,49 @@ public class JwtUtilImpl implements JwtUtil {
 	
 	@Override
 	public Boolean validateToken(final String token, final UserDetails userDetails) {
-		final String username = this.extractUsername(token);
+		return this.validateToken(this.extractAllClaims(token), userDetails);
+	}
+	
+	@Override
+	public Boolean validateToken(final Claims claims, final UserDetails userDetails) {
+		final String username = claims.getSubject();
 		return (
-			username.equals(userDetails.getUsername()) && !isTokenExpired(token)
+			username.equals(userDetails.getUsername()) && !isTokenExpired(claims)
 		);
 	}
 	
+	private static String sha256(final String token) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static final class UntilTokenExpiration implements Expiry<String, Claims> {
+		
+		@Override
+		public long expireAfterCreate(final String key, final Claims claims, final long currentTime) {
+			if (claims.getExpiration() == null)
+				return 0L;
+			final long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, remainingMillis));
+		}
+		
+		@Override
+		public long expireAfterUpdate(final String key, final Claims claims, final long currentTime, final long currentDuration) {
+			return currentDuration;
+		}
+		
+		@Override
+		public long expireAfterRead(final String key, final Claims claims, final long currentTime, final long currentDuration) {
+			return currentDuration;
+		}
+		
+	}
+	
 	
 	
 }
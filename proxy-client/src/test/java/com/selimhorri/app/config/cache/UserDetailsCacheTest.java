@@ -0,0 +1,63 @@
+package com.selimhorri.app.config.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UserDetailsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new UserDetailsCache(this.meterRegistry, 100, Duration.ofMinutes(1));
+        this.loads = new AtomicInteger();
+    }
+
+    private UserDetails load(String username) {
+        this.loads.incrementAndGet();
+        return User.withUsername(username).password("secret").authorities("ROLE_USER").build();
+    }
+
+    @Test
+    void get_loadsOncePerUsername() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals("selim", this.cache.get("selim", this::load).getUsername());
+        }
+
+        assertEquals(1, this.loads.get());
+        assertEquals(4.0, this.meterRegistry.get("cache.gets")
+                .tag("cache", "user-details").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void removeUserFromCache_forcesReload() {
+        this.cache.get("selim", this::load);
+        this.cache.removeUserFromCache("selim");
+        this.cache.get("selim", this::load);
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    void removeAll_clearsEveryPrincipal() {
+        this.cache.get("selim", this::load);
+        this.cache.get("amine", this::load);
+        this.cache.removeAll();
+
+        assertNull(this.cache.getUserFromCache("selim"));
+        assertNull(this.cache.getUserFromCache("amine"));
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.selimhorri.app.config.hedging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class HedgingFeignClientTest {
+
+    private static final String PRODUCT = "http://PRODUCT-SERVICE/product-service/api/products/1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private RequestHedger hedger;
+
+    @BeforeEach
+    void setup() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.executor = Executors.newCachedThreadPool();
+        this.hedger = new RequestHedger(true, this.meterRegistry, this.executor, 0.95, Duration.ofMillis(10), 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void writesAndServicesNotOptedIn_goStraightToTheDelegate() throws IOException {
+        final Thread caller = Thread.currentThread();
+        final Client delegate = (request, options) -> {
+            assertSame(caller, Thread.currentThread());
+            return response(request, "ok", new AtomicBoolean());
+        };
+        final Client client = new HedgingFeignClient(delegate, this.hedger, Set.of("PRODUCT-SERVICE"));
+
+        client.execute(request(Request.HttpMethod.POST, PRODUCT), new Request.Options());
+        client.execute(request(Request.HttpMethod.GET, "http://PAYMENT-SERVICE/payment-service/api/payments/1"),
+                new Request.Options());
+
+        assertTrue(this.meterRegistry.find("http.client.hedging.latency").timers().isEmpty());
+    }
+
+    @Test
+    void slowGet_isAnsweredByTheHedgeAndTheLoserIsClosed() throws Exception {
+        final CountDownLatch slow = new CountDownLatch(1);
+        final AtomicBoolean primaryClosed = new AtomicBoolean();
+        final AtomicInteger calls = new AtomicInteger();
+        final Client delegate = (request, options) -> {
+            if (calls.incrementAndGet() == 21) {
+                try {
+                    slow.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response(request, "primary", primaryClosed);
+            }
+            return response(request, "fast", new AtomicBoolean());
+        };
+        final Client client = new HedgingFeignClient(delegate, this.hedger, Set.of("PRODUCT-SERVICE"));
+        for (int i = 0; i < 20; i++)
+            client.execute(request(Request.HttpMethod.GET, PRODUCT), new Request.Options()).close();
+
+        final Response response = client.execute(request(Request.HttpMethod.GET, PRODUCT), new Request.Options());
+        slow.countDown();
+
+        assertEquals("fast", new String(response.body().asInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        this.executor.shutdown();
+        assertTrue(this.executor.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(primaryClosed.get());
+    }
+
+    @Test
+    void ioFailures_reachTheCallerUnchanged() {
+        final Client delegate = (request, options) -> {
+            throw new IOException("connection refused");
+        };
+        final Client client = new HedgingFeignClient(delegate, this.hedger, Set.of("PRODUCT-SERVICE"));
+
+        final IOException e = assertThrows(IOException.class,
+                () -> client.execute(request(Request.HttpMethod.GET, PRODUCT), new Request.Options()));
+        assertEquals("connection refused", e.getMessage());
+    }
+
+    private static Request request(final Request.HttpMethod method, final String url) {
+        return Request.create(method, url, Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    private static Response response(final Request request, final String body, final AtomicBoolean closed) {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return Response.builder()
+                .status(200)
+                .request(request)
+                .headers(Map.of())
+                .body(new ByteArrayInputStream(bytes) {
+                    @Override
+                    public void close() {
+                        closed.set(true);
+                    }
+                }, bytes.length)
+                .build();
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.selimhorri.app.jwt;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.selimhorri.app.jwt.util.impl.JwtUtilImpl;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Per-request cost of validating a bearer token in JwtRequestFilter.
+ * Not picked up by surefire; run with:
+ * mvn -pl proxy-client test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.selimhorri.app.jwt.JwtValidationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private JwtUtilImpl uncached;
+    private JwtUtilImpl cached;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setup() {
+        this.uncached = new JwtUtilImpl(0);
+        this.cached = new JwtUtilImpl(10_000);
+        this.userDetails = User.withUsername("selimhorri").password("secret").authorities("ROLE_USER").build();
+        this.token = this.uncached.generateToken(this.userDetails);
+    }
+
+    /** The previous filter path: extractUsername, then validateToken re-parsing for the subject and the expiration. */
+    @Benchmark
+    public boolean threeParses() {
+        final String username = this.uncached.extractUsername(this.token);
+        final boolean sameUser = this.uncached.extractUsername(this.token).equals(username);
+        return sameUser && !this.uncached.extractExpiration(this.token).before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        final Claims claims = this.uncached.extractAllClaims(this.token);
+        return this.uncached.validateToken(claims, this.userDetails);
+    }
+
+    @Benchmark
+    public boolean memoizedClaims() {
+        final Claims claims = this.cached.extractAllClaims(this.token);
+        return this.cached.validateToken(claims, this.userDetails);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.selimhorri.app.config.balancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Picks two instances at random and sends the request to the one with the lower {@link InstanceLoadStats#cost}.
+ * Comparing only two keeps every caller from herding onto the same "best" instance between samples.
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+	
+	private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+	private final String serviceId;
+	private final InstanceLoadStats instanceLoadStats;
+	
+	public PeakEwmaLoadBalancer(final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+			final String serviceId, final InstanceLoadStats instanceLoadStats) {
+		this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+		this.serviceId = serviceId;
+		this.instanceLoadStats = instanceLoadStats;
+	}
+	
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Mono<Response<ServiceInstance>> choose(final Request request) {
+		final ServiceInstanceListSupplier supplier = this.serviceInstanceListSupplierProvider
+				.getIfAvailable(NoopServiceInstanceListSupplier::new);
+		return supplier.get(request).next().map(this::choose);
+	}
+	
+	private Response<ServiceInstance> choose(final List<ServiceInstance> instances) {
+		if (instances.isEmpty()) {
+			log.warn("No servers available for service: {}", this.serviceId);
+			return new EmptyResponse();
+		}
+		if (instances.size() == 1)
+			return new DefaultResponse(instances.get(0));
+		
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final int first = random.nextInt(instances.size());
+		final int second = (first + 1 + random.nextInt(instances.size() - 1)) % instances.size();
+		final ServiceInstance a = instances.get(first);
+		final ServiceInstance b = instances.get(second);
+		return new DefaultResponse(this.instanceLoadStats.cost(a) <= this.instanceLoadStats.cost(b) ? a : b);
+	}
+	
+}
@@ -0,0 +1,101 @@
+package com.selimhorri.app.config.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process read-through cache for DTOs fetched from other services.
+ * Each registered type gets its own size-bounded (W-TinyLFU) cache with its own TTL,
+ * plus a short-lived negative cache so repeated 404s do not go back over the network.
+ * Types that were never registered are passed straight through to the loader.
+ */
+public class RemoteLookupCache {
+	
+	private final MeterRegistry meterRegistry;
+	private final long maximumSize;
+	private final Duration notFoundTtl;
+	private final Map<Class<?>, Cache<Integer, Object>> entries = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Cache<Integer, Boolean>> notFound = new ConcurrentHashMap<>();
+	
+	public RemoteLookupCache(final MeterRegistry meterRegistry, final long maximumSize, final Duration notFoundTtl) {
+		this.meterRegistry = meterRegistry;
+		this.maximumSize = maximumSize;
+		this.notFoundTtl = notFoundTtl;
+	}
+	
+	public RemoteLookupCache register(final Class<?> type, final String name, final Duration ttl) {
+		final Cache<Integer, Object> cache = Caffeine.newBuilder()
+				.maximumSize(this.maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		final Cache<Integer, Boolean> notFoundCache = Caffeine.newBuilder()
+				.maximumSize(this.maximumSize)
+				.expireAfterWrite(this.notFoundTtl)
+				.recordStats()
+				.build();
+		
+		CaffeineCacheMetrics.monitor(this.meterRegistry, cache, "remote." + name);
+		CaffeineCacheMetrics.monitor(this.meterRegistry, notFoundCache, "remote." + name + ".not-found");
+		
+		this.entries.put(type, cache);
+		this.notFound.put(type, notFoundCache);
+		return this;
+	}
+	
+	/**
+	 * Returns the cached value or loads it. A 404 from the loader is remembered for the
+	 * negative TTL and replayed to the caller as the same {@link HttpClientErrorException.NotFound}.
+	 */
+	public <T> T get(final Class<T> type, final Integer id, final Function<Integer, T> loader) {
+		final Cache<Integer, Object> cache = this.entries.get(type);
+		if (cache == null || id == null) {
+			return loader.apply(id);
+		}
+		
+		if (this.notFound.get(type).getIfPresent(id) != null) {
+			throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, 
+					HttpStatus.NOT_FOUND.getReasonPhrase(), null, null, null);
+		}
+		
+		try {
+			return type.cast(cache.get(id, loader));
+		} catch (HttpClientErrorException.NotFound e) {
+			this.notFound.get(type).put(id, Boolean.TRUE);
+			throw e;
+		}
+	}
+	
+	public <T> T getIfPresent(final Class<T> type, final Integer id) {
+		final Cache<Integer, Object> cache = this.entries.get(type);
+		return cache == null || id == null ? null : type.cast(cache.getIfPresent(id));
+	}
+	
+	public <T> void put(final Class<T> type, final Integer id, final T value) {
+		final Cache<Integer, Object> cache = this.entries.get(type);
+		if (cache != null && id != null && value != null) {
+			cache.put(id, value);
+			this.notFound.get(type).invalidate(id);
+		}
+	}
+	
+	public void invalidate(final Class<?> type, final Integer id) {
+		final Cache<Integer, Object> cache = this.entries.get(type);
+		if (cache != null && id != null) {
+			cache.invalidate(id);
+			this.notFound.get(type).invalidate(id);
+		}
+	}
+	
+}
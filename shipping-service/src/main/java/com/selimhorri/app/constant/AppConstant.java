@@ -11,6 +11,9 @@ public abstract class AppConstant {
 	public static final String ZONED_DATE_TIME_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	public static final String INSTANT_FORMAT = "dd-MM-yyyy__HH:mm:ss:SSSSSS";
 	
+	// Kept under the 500-id cap of the product/order bulk lookups so each batch needs a single call per service
+	public static final int MAX_ORDER_ITEM_BATCH_SIZE = 200;
+	
 	@NoArgsConstructor(access = AccessLevel.PRIVATE)
 	public abstract class DiscoveredDomainsApi {
 		
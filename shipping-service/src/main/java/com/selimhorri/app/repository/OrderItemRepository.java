@@ -1,5 +1,8 @@
 package com.selimhorri.app.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.selimhorri.app.domain.OrderItem;
@@ -7,6 +10,7 @@ import com.selimhorri.app.domain.id.OrderItemId;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, OrderItemId> {
 	
-	
+	// findAllById degrades to one SELECT per id on an @IdClass entity; this superset is filtered by the caller
+	List<OrderItem> findAllByOrderIdInAndProductIdIn(final Collection<Integer> orderIds, final Collection<Integer> productIds);
 	
 }
@@ -1,5 +1,7 @@
 package com.selimhorri.app.resource;
 
+import java.util.List;
+
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.NotBlank;
@@ -70,6 +72,15 @@ public class OrderItemResource {
 		return ResponseEntity.ok(this.orderItemService.save(orderItemDto));
 	}
 	
+	@PostMapping("/batch")
+	public ResponseEntity<DtoCollectionResponse<OrderItemDto>> saveAll(
+			@RequestBody 
+			@NotNull(message = "Input must not be NULL") 
+			@Valid final List<OrderItemDto> orderItemDtos) {
+		log.info("*** OrderItemDto List, resource; save orderItems batch *");
+		return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderItemService.saveAll(orderItemDtos)));
+	}
+	
 	@PutMapping
 	public ResponseEntity<OrderItemDto> update(
 			@RequestBody 
@@ -10,6 +10,7 @@ public interface OrderItemService {
 	List<OrderItemDto> findAll();
 	OrderItemDto findById(final OrderItemId orderItemId);
 	OrderItemDto save(final OrderItemDto orderItemDto);
+	List<OrderItemDto> saveAll(final List<OrderItemDto> orderItemDtos);
 	OrderItemDto update(final OrderItemDto orderItemDto);
 	void deleteById(final OrderItemId orderItemId);
 	
@@ -1,22 +1,36 @@
 package com.selimhorri.app.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
 
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.OrderItem;
 import com.selimhorri.app.domain.id.OrderItemId;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.OrderItemDto;
 import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
 import com.selimhorri.app.exception.ErrorCode;
 import com.selimhorri.app.exception.custom.DuplicateResourceException;
 import com.selimhorri.app.exception.custom.ExternalServiceException;
@@ -37,6 +51,9 @@ public class OrderItemServiceImpl implements OrderItemService {
 	
 	private final OrderItemRepository orderItemRepository;
 	private final RestTemplate restTemplate;
+	private final RemoteLookupCache remoteLookupCache;
+	private final RequestHedger requestHedger;
+	private final EntityManager entityManager;
 	
 	@Override
 	public List<OrderItemDto> findAll() {
@@ -89,6 +106,66 @@ public class OrderItemServiceImpl implements OrderItemService {
 		}
 	}
 	
+	@Override
+	public List<OrderItemDto> saveAll(final List<OrderItemDto> orderItemDtos) {
+		log.info("*** OrderItemDto List, service; save orderItems batch *");
+		
+		if (orderItemDtos == null || orderItemDtos.isEmpty()) {
+			throw new InvalidInputException(ErrorCode.MISSING_REQUIRED_FIELD);
+		}
+		if (orderItemDtos.size() > AppConstant.MAX_ORDER_ITEM_BATCH_SIZE) {
+			throw new InvalidInputException(ErrorCode.INVALID_INPUT, 
+					"At most " + AppConstant.MAX_ORDER_ITEM_BATCH_SIZE + " order items can be saved at once");
+		}
+		
+		final Set<OrderItemId> ids = new HashSet<>();
+		for (final OrderItemDto orderItemDto : orderItemDtos) {
+			if (orderItemDto == null || orderItemDto.getOrderId() == null 
+					|| orderItemDto.getProductId() == null) {
+				throw new InvalidInputException(ErrorCode.MISSING_REQUIRED_FIELD);
+			}
+			if (!ids.add(OrderItemMappingHelper.toId(orderItemDto))) {
+				throw new DuplicateResourceException(ErrorCode.DUPLICATE_RESOURCE, 
+						OrderItemMappingHelper.toId(orderItemDto));
+			}
+		}
+		
+		final Set<Integer> orderIds = ids.stream().map(OrderItemId::getOrderId).collect(Collectors.toSet());
+		final Set<Integer> productIds = ids.stream().map(OrderItemId::getProductId).collect(Collectors.toSet());
+		
+		// Una sola consulta para detectar items ya existentes
+		this.orderItemRepository.findAllByOrderIdInAndProductIdIn(orderIds, productIds).stream()
+				.map(OrderItemMappingHelper::toId)
+				.filter(ids::contains)
+				.findFirst()
+				.ifPresent(id -> {
+					throw new DuplicateResourceException(ErrorCode.DUPLICATE_RESOURCE, id);
+				});
+		
+		// Una llamada por servicio para verificar todos los productos y ordenes distintos
+		verifyAllExist(ProductDto.class, productIds, ProductDto::getProductId, 
+				AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL, 
+				new ParameterizedTypeReference<DtoCollectionResponse<ProductDto>>() {}, ErrorCode.PRODUCT_NOT_FOUND);
+		verifyAllExist(OrderDto.class, orderIds, OrderDto::getOrderId, 
+				AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL, 
+				new ParameterizedTypeReference<DtoCollectionResponse<OrderDto>>() {}, ErrorCode.ORDER_NOT_FOUND);
+		
+		// persist en lugar de save: con @IdClass save() hace merge y un SELECT por item, lo que rompe el batch JDBC
+		final List<OrderItem> entities = orderItemDtos.stream()
+				.map(OrderItemMappingHelper::map)
+				.collect(Collectors.toList());
+		try {
+			entities.forEach(this.entityManager::persist);
+			this.entityManager.flush();
+		} catch (PersistenceException e) {
+			throw new DuplicateResourceException(ErrorCode.DUPLICATE_RESOURCE);
+		}
+		
+		return entities.stream()
+				.map(OrderItemMappingHelper::map)
+				.collect(Collectors.toUnmodifiableList());
+	}
+	
 	@Override
 	public OrderItemDto update(final OrderItemDto orderItemDto) {
 		log.info("*** OrderItemDto, service; update orderItem *");
@@ -152,7 +229,9 @@ public class OrderItemServiceImpl implements OrderItemService {
 			String url = AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL 
 					+ "/" + productId;
 			log.debug("Fetching product from: {}", url);
-			return this.restTemplate.getForObject(url, ProductDto.class);
+			return this.remoteLookupCache.get(ProductDto.class, productId, 
+					id -> this.requestHedger.get("PRODUCT-SERVICE",
+							() -> this.restTemplate.getForObject(url, ProductDto.class)));
 		} catch (HttpClientErrorException.NotFound e) {
 			log.warn("Product {} not found in product-service", productId);
 			throw new ExternalServiceException(
@@ -172,7 +251,9 @@ public class OrderItemServiceImpl implements OrderItemService {
 			String url = AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL 
 					+ "/" + orderId;
 			log.debug("Fetching order from: {}", url);
-			return this.restTemplate.getForObject(url, OrderDto.class);
+			return this.remoteLookupCache.get(OrderDto.class, orderId, 
+					id -> this.requestHedger.get("ORDER-SERVICE",
+							() -> this.restTemplate.getForObject(url, OrderDto.class)));
 		} catch (HttpClientErrorException.NotFound e) {
 			log.warn("Order {} not found in order-service", orderId);
 			throw new ExternalServiceException(
@@ -184,6 +265,54 @@ public class OrderItemServiceImpl implements OrderItemService {
 		}
 	}
 	
+	/**
+	 * Verifica en bloque que todos los ids existen en el servicio externo,
+	 * usando la cache y una unica llamada ?ids= para los que falten
+	 */
+	private <T> void verifyAllExist(final Class<T> type, final Set<Integer> ids, final Function<T, Integer> idOf, 
+			final String apiUrl, final ParameterizedTypeReference<DtoCollectionResponse<T>> responseType, 
+			final ErrorCode notFoundCode) {
+		final Map<Integer, T> found = new HashMap<>(ids.size());
+		final List<Integer> missing = new ArrayList<>();
+		
+		ids.forEach(id -> {
+			final T cached = this.remoteLookupCache.getIfPresent(type, id);
+			if (cached != null) {
+				found.put(id, cached);
+			} else {
+				missing.add(id);
+			}
+		});
+		
+		if (!missing.isEmpty()) {
+			final String url = apiUrl + "?ids=" 
+					+ missing.stream().map(String::valueOf).collect(Collectors.joining(","));
+			try {
+				final ResponseEntity<DtoCollectionResponse<T>> response = this.restTemplate.exchange(
+						url, HttpMethod.GET, null, responseType);
+				if (response.getBody() != null && response.getBody().getCollection() != null) {
+					response.getBody().getCollection().forEach(dto -> {
+						found.put(idOf.apply(dto), dto);
+						this.remoteLookupCache.put(type, idOf.apply(dto), dto);
+					});
+				}
+			} catch (RestClientException e) {
+				log.error("Error fetching {} ids {}: {}", type.getSimpleName(), missing, e.getMessage());
+				throw new ExternalServiceException(
+						"Failed to verify " + type.getSimpleName() + " ids", e);
+			}
+		}
+		
+		final List<Integer> notFound = ids.stream()
+				.filter(id -> !found.containsKey(id))
+				.sorted()
+				.collect(Collectors.toList());
+		if (!notFound.isEmpty()) {
+			throw new InvalidInputException(notFoundCode, 
+					"Cannot create order items: " + notFoundCode.formatMessage(notFound));
+		}
+	}
+	
 	/**
 	 * Verifica que un producto existe antes de crear un OrderItem
 	 */
@@ -0,0 +1,83 @@
+package com.selimhorri.app.config.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.ProductDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RemoteLookupCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RemoteLookupCache cache;
+
+    @BeforeEach
+    void setup() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new RemoteLookupCache(this.meterRegistry, 100, Duration.ofSeconds(30))
+                .register(ProductDto.class, "products", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void get_loadsOncePerId() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            ProductDto product = this.cache.get(ProductDto.class, 7, id -> {
+                calls.incrementAndGet();
+                return ProductDto.builder().productId(id).build();
+            });
+            assertEquals(7, product.getProductId());
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(2.0, this.meterRegistry.get("cache.gets")
+                .tag("cache", "remote.products").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_notFound_isCachedNegatively() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(HttpClientErrorException.NotFound.class, () -> this.cache.get(ProductDto.class, 9, id -> {
+                calls.incrementAndGet();
+                throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+            }));
+        }
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void get_unregisteredType_passesThrough() {
+        AtomicInteger calls = new AtomicInteger();
+
+        this.cache.get(OrderDto.class, 1, id -> OrderDto.builder().orderId(calls.incrementAndGet()).build());
+        this.cache.get(OrderDto.class, 1, id -> OrderDto.builder().orderId(calls.incrementAndGet()).build());
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        AtomicInteger calls = new AtomicInteger();
+
+        this.cache.get(ProductDto.class, 3, id -> ProductDto.builder().quantity(calls.incrementAndGet()).build());
+        this.cache.invalidate(ProductDto.class, 3);
+        ProductDto reloaded = this.cache.get(ProductDto.class, 3,
+                id -> ProductDto.builder().quantity(calls.incrementAndGet()).build());
+
+        assertEquals(2, reloaded.getQuantity());
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.selimhorri.app.config.hedging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestHedgerTest {
+
+    private static final String TARGET = "PRODUCT-SERVICE";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private RequestHedger hedger;
+
+    @BeforeEach
+    void setup() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.executor = Executors.newCachedThreadPool();
+        this.hedger = new RequestHedger(true, this.meterRegistry, this.executor, 0.95, Duration.ofMillis(10), 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void fastCalls_areNotHedged() {
+        final AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 50; i++)
+            assertEquals("ok", this.hedger.get(TARGET, () -> {
+                calls.incrementAndGet();
+                return "ok";
+            }));
+
+        assertEquals(50, calls.get());
+        assertEquals(0.0, this.hedges("sent"));
+    }
+
+    @Test
+    void disabled_runsEachCallOnceOnTheCallerThread() {
+        final RequestHedger disabled = new RequestHedger(false, this.meterRegistry, this.executor, 0.95,
+                Duration.ofMillis(10), 5);
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 30; i++)
+            assertEquals("slow", disabled.get(TARGET, () -> {
+                assertSame(caller, Thread.currentThread());
+                attempts.incrementAndGet();
+                sleep(20);
+                return "slow";
+            }));
+
+        assertEquals(30, attempts.get());
+        assertEquals(0.0, this.hedges("sent"));
+        assertNull(this.meterRegistry.find("http.client.hedging.latency").timer());
+    }
+
+    @Test
+    void slowAttempt_isHedgedAndTheFasterAnswerWins() throws InterruptedException {
+        this.warmUp();
+        final CountDownLatch slow = new CountDownLatch(1);
+        final AtomicInteger attempts = new AtomicInteger();
+        final List<String> discarded = new ArrayList<>();
+
+        final String result = this.hedger.get(TARGET, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                await(slow);
+                return "primary";
+            }
+            return "hedge";
+        }, discarded::add);
+        slow.countDown();
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, this.hedges("sent"));
+        assertEquals(1.0, this.hedges("won"));
+        this.executor.shutdown();
+        assertTrue(this.executor.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(List.of("primary"), discarded);
+    }
+
+    @Test
+    void bothAttemptsFailing_reportsThePrimaryFailure() {
+        this.warmUp();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final IllegalStateException e = assertThrows(IllegalStateException.class, () -> this.hedger.get(TARGET, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(50);
+                throw new IllegalStateException("primary");
+            }
+            throw new IllegalStateException("hedge");
+        }));
+
+        assertEquals("primary", e.getMessage());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void hedges_areCappedByTheBudget() {
+        this.warmUp();
+        for (int i = 0; i < 15; i++)
+            this.hedger.get(TARGET, () -> {
+                sleep(20);
+                return "slow";
+            });
+
+        // The budget starts full at 10 hedges and refills at 5% of calls
+        assertEquals(10.0, this.hedges("sent"));
+        assertEquals(5.0, this.hedges("throttled"));
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 20; i++)
+            this.hedger.get(TARGET, () -> "ok");
+    }
+
+    private double hedges(final String result) {
+        return this.meterRegistry.find("http.client.hedges").tag("result", result).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
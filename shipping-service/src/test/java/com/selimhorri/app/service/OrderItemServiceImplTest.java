@@ -3,24 +3,42 @@ package com.selimhorri.app.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.EntityManager;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.cache.RemoteLookupCache;
+import com.selimhorri.app.config.hedging.RequestHedger;
+import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.OrderItem;
 import com.selimhorri.app.domain.id.OrderItemId;
+import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
 import com.selimhorri.app.exception.custom.DuplicateResourceException;
+import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.helper.OrderItemMappingHelper;
 import com.selimhorri.app.repository.OrderItemRepository;
 import com.selimhorri.app.service.impl.OrderItemServiceImpl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class OrderItemServiceImplTest {
 
     @Mock
@@ -29,6 +47,15 @@ public class OrderItemServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private RemoteLookupCache remoteLookupCache = new RemoteLookupCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+
+    @Spy
+    private RequestHedger requestHedger = new RequestHedger(false, new SimpleMeterRegistry(), new SyncTaskExecutor(), 0.95, Duration.ofMillis(10), 5);
+
     @InjectMocks
     private OrderItemServiceImpl service;
 
@@ -87,4 +114,61 @@ public class OrderItemServiceImplTest {
         assertDoesNotThrow(() -> service.deleteById(id));
         verify(repo).deleteById(id);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveAll_verifiesIdsWithOneCallPerServiceAndPersistsEachItem() {
+        List<OrderItemDto> items = List.of(
+                OrderItemDto.builder().productId(1).orderId(10).orderedQuantity(1).build(),
+                OrderItemDto.builder().productId(2).orderId(10).orderedQuantity(2).build(),
+                OrderItemDto.builder().productId(1).orderId(11).orderedQuantity(3).build());
+        when(repo.findAllByOrderIdInAndProductIdIn(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(restTemplate.exchange(startsWith(AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL), 
+                eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(new DtoCollectionResponse<>(List.of(
+                        ProductDto.builder().productId(1).build(), ProductDto.builder().productId(2).build()))));
+        when(restTemplate.exchange(startsWith(AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL), 
+                eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(new DtoCollectionResponse<>(List.of(
+                        OrderDto.builder().orderId(10).build(), OrderDto.builder().orderId(11).build()))));
+
+        List<OrderItemDto> saved = service.saveAll(items);
+
+        assertEquals(3, saved.size());
+        verify(repo, times(1)).findAllByOrderIdInAndProductIdIn(anyCollection(), anyCollection());
+        verify(repo, never()).existsById(any());
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.GET), isNull(), 
+                any(ParameterizedTypeReference.class));
+        verify(restTemplate, never()).getForObject(anyString(), any());
+        verify(entityManager, times(3)).persist(any(OrderItem.class));
+        verify(entityManager).flush();
+    }
+
+    @Test
+    void saveAll_whenAnItemExists_throwsDuplicateWithoutRemoteCalls() {
+        List<OrderItemDto> items = List.of(
+                OrderItemDto.builder().productId(1).orderId(10).build(),
+                OrderItemDto.builder().productId(2).orderId(10).build());
+        when(repo.findAllByOrderIdInAndProductIdIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(OrderItem.builder().productId(2).orderId(10).build()));
+
+        assertThrows(DuplicateResourceException.class, () -> service.saveAll(items));
+        verifyNoInteractions(restTemplate, entityManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveAll_whenAProductIsMissing_throwsInvalidInput() {
+        List<OrderItemDto> items = List.of(
+                OrderItemDto.builder().productId(1).orderId(10).build(),
+                OrderItemDto.builder().productId(3).orderId(10).build());
+        when(repo.findAllByOrderIdInAndProductIdIn(anyCollection(), anyCollection())).thenReturn(List.of());
+        when(restTemplate.exchange(startsWith(AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL), 
+                eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(new DtoCollectionResponse<>(List.of(
+                        ProductDto.builder().productId(1).build()))));
+
+        assertThrows(InvalidInputException.class, () -> service.saveAll(items));
+        verifyNoInteractions(entityManager);
+    }
 }
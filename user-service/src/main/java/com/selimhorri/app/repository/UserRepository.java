@@ -1,5 +1,6 @@
 package com.selimhorri.app.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,9 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.credential")
     List<User> findAllWithCredentials();
     
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.credential WHERE u.userId IN :ids")
+    List<User> findAllByIdsWithCredential(@Param("ids") Collection<Integer> ids);
+    
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.credential c WHERE c.username = :username")
     Optional<User> findByCredentialUsername(@Param("username") String username);
 
@@ -1,5 +1,7 @@
 package com.selimhorri.app.resource;
 
+import java.util.Set;
+
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.selimhorri.app.dto.UserDto;
@@ -36,6 +39,13 @@ public class UserResource {
 		return ResponseEntity.ok(new DtoCollectionResponse<>(this.userService.findAll()));
 	}
 	
+	@GetMapping(params = "ids")
+	public ResponseEntity<DtoCollectionResponse<UserDto>> findAllByIds(
+			@RequestParam("ids") final Set<Integer> userIds) {
+		log.info("*** UserDto List, controller; fetch users by ids *");
+		return ResponseEntity.ok(new DtoCollectionResponse<>(this.userService.findAllByIds(userIds)));
+	}
+	
 	@GetMapping("/{userId}")
 	public ResponseEntity<UserDto> findById(
 			@PathVariable("userId") 
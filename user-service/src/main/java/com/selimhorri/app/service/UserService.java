@@ -1,5 +1,6 @@
 package com.selimhorri.app.service;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.selimhorri.app.dto.UserDto;
@@ -8,6 +9,7 @@ public interface UserService {
 	
 	List<UserDto> findAll();
 	UserDto findById(final Integer userId);
+	List<UserDto> findAllByIds(final Collection<Integer> userIds);
 	UserDto save(final UserDto userDto);
 	UserDto update(final UserDto userDto);
 	UserDto update(final Integer userId, final UserDto userDto);
@@ -1,17 +1,20 @@
 package com.selimhorri.app.service.impl;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.transaction.Transactional;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Credential;
 import com.selimhorri.app.domain.User;
 import com.selimhorri.app.dto.CredentialDto;
 import com.selimhorri.app.dto.UserDto;
 import com.selimhorri.app.exception.ErrorCode;
 import com.selimhorri.app.exception.custom.DuplicateResourceException;
+import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.helper.UserMappingHelper;
 import com.selimhorri.app.repository.UserRepository;
@@ -45,6 +48,25 @@ public class UserServiceImpl implements UserService {
             .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND, userId));
 }
     
+    @Override
+    public List<UserDto> findAllByIds(final Collection<Integer> userIds) {
+        log.info("Fetching users by ids, batch size: {}", userIds == null ? 0 : userIds.size());
+        
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of();
+        }
+        
+        if (userIds.size() > AppConstant.MAX_BATCH_LOOKUP_SIZE) {
+            throw new InvalidInputException(ErrorCode.INVALID_INPUT,
+                    "At most " + AppConstant.MAX_BATCH_LOOKUP_SIZE + " user ids can be requested at once");
+        }
+        
+        return this.userRepository.findAllByIdsWithCredential(userIds)
+                .stream()
+                .map(UserMappingHelper::map)
+                .collect(Collectors.toUnmodifiableList());
+    }
+    
     @Override
     public UserDto save(final UserDto userDto) {
         log.info("Saving new user");
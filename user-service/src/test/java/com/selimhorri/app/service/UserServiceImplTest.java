@@ -3,7 +3,10 @@ package com.selimhorri.app.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,7 @@ import org.mockito.MockitoAnnotations;
 import com.selimhorri.app.domain.User;
 import com.selimhorri.app.dto.UserDto;
 import com.selimhorri.app.exception.custom.DuplicateResourceException;
+import com.selimhorri.app.exception.custom.InvalidInputException;
 import com.selimhorri.app.exception.custom.ResourceNotFoundException;
 import com.selimhorri.app.helper.UserMappingHelper;
 import com.selimhorri.app.repository.UserRepository;
@@ -167,4 +171,28 @@ public class UserServiceImplTest {
         assertDoesNotThrow(() -> userService.deleteById(77));
         verify(this.userRepository).deleteById(77);
     }
+
+    @Test
+    void findAllByIds_usesSingleQuery() {
+        when(this.userRepository.findAllByIdsWithCredential(Set.of(1, 2))).thenReturn(List.of(
+                User.builder().userId(1).firstName("a").build(),
+                User.builder().userId(2).firstName("b").build()));
+
+        List<UserDto> users = userService.findAllByIds(Set.of(1, 2));
+
+        assertEquals(2, users.size());
+        verify(this.userRepository, times(1)).findAllByIdsWithCredential(Set.of(1, 2));
+        verify(this.userRepository, never()).findByIdWithCredential(anyInt());
+    }
+
+    @Test
+    void findAllByIds_tooManyIds_throwsInvalidInput() {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 501; i++) {
+            ids.add(i);
+        }
+
+        assertThrows(InvalidInputException.class, () -> userService.findAllByIds(ids));
+        verifyNoInteractions(this.userRepository);
+    }
 }